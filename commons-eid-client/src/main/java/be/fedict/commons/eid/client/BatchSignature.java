@@ -0,0 +1,68 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.util.List;
+
+/**
+ * The result of signing one digest value of a batch, as created by
+ * {@link BeIDCard#signBatch(List, be.fedict.commons.eid.client.impl.BeIDDigest, FileType, boolean, String, java.util.function.Consumer)}.
+ */
+public final class BatchSignature {
+
+	private final int index;
+	private final byte[] signature;
+	private final ResponseAPDUException error;
+
+	BatchSignature(final int index, final byte[] signature, final ResponseAPDUException error) {
+		this.index = index;
+		this.signature = signature;
+		this.error = error;
+	}
+
+	/**
+	 * @return the index of the digest value within the batch.
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return <code>true</code> if the digest value was signed.
+	 */
+	public boolean isSigned() {
+		return null == this.error;
+	}
+
+	/**
+	 * @return the signature value, or <code>null</code> if the card refused to
+	 *         sign the digest value.
+	 */
+	public byte[] getSignature() {
+		return this.signature;
+	}
+
+	/**
+	 * @return the reason why the card refused to sign the digest value, or
+	 *         <code>null</code>.
+	 */
+	public ResponseAPDUException getError() {
+		return this.error;
+	}
+}
@@ -25,7 +25,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.security.KeyFactory;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -36,10 +42,25 @@ import java.security.interfaces.ECPublicKey;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.smartcardio.ATR;
 import javax.smartcardio.Card;
@@ -50,9 +71,16 @@ import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
 
 import be.fedict.commons.eid.client.event.BeIDCardListener;
+import be.fedict.commons.eid.client.event.PINPadKey;
+import be.fedict.commons.eid.client.event.PINPadListener;
 import be.fedict.commons.eid.client.impl.BeIDDigest;
 import be.fedict.commons.eid.client.impl.CCID;
+import be.fedict.commons.eid.client.impl.CardAccessScheduler;
+import be.fedict.commons.eid.client.impl.FileControlInformation;
+import be.fedict.commons.eid.client.impl.HashTree;
 import be.fedict.commons.eid.client.impl.LocaleManager;
+import be.fedict.commons.eid.client.impl.ProtocolStrategy;
+import be.fedict.commons.eid.client.impl.SharingViolationStrategy;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.BeIDCardUI;
 import be.fedict.commons.eid.client.spi.Logger;
@@ -115,9 +143,60 @@ public class BeIDCard {
 	private static final byte[] APPLET_AID = new byte[] { (byte) 0xA0, 0x00, 0x00, 0x00, 0x30, 0x29, 0x05, 0x70, 0x00,
 			(byte) 0xAD, 0x13, 0x10, 0x01, 0x01, (byte) 0xFF, };
 	private static final int BLOCK_SIZE = 0xff;
+	/*
+	 * The default javax.smartcardio provider refuses response buffers with less
+	 * room than a short response with its status words.
+	 */
+	private static final int MIN_RESPONSE_BUFFER_SIZE = 0x100 + 2;
+	private static final int APPLET_VERSION_OFFSET = 21;
+	private static final int[] EXTENDED_BLOCK_SIZES = new int[] { 0x1000, 0x0800, 0x0400 };
+
+	/*
+	 * READ BINARY block sizes negotiated per card terminal and ATR, so the probe
+	 * only runs once per reader/card pair.
+	 */
+	private static final Map<String, Integer> readBlockSizes = new ConcurrentHashMap<>();
+
+	/*
+	 * Whether reads over several logical channels overlap, per card terminal and
+	 * ATR, as measured by measureLogicalChannelOverlap.
+	 */
+	private static final Map<String, Boolean> logicalChannelOverlaps = new ConcurrentHashMap<>();
+
+	private static final SharingViolationStrategy DEFAULT_SHARING_VIOLATION_STRATEGY = new SharingViolationStrategy();
+
+	/*
+	 * Shared, so the protocol is remembered per card terminal across BeIDCard
+	 * instances.
+	 */
+	static final ProtocolStrategy DEFAULT_PROTOCOL_STRATEGY = new ProtocolStrategy();
+
+	private static final int CHIP_SERIAL_NUMBER_OFFSET = 4;
+	private static final int CHIP_SERIAL_NUMBER_LENGTH = 12;
+	private static final long READ_CHECKPOINT_TIMEOUT = 5 * 60 * 1000;
+	private static final int MAX_LOGICAL_CHANNELS = 3;
+	private static final double LOGICAL_CHANNEL_OVERLAP_THRESHOLD = 1.25;
+
+	/*
+	 * Partially read files, keyed by chip serial number and file path, so a read
+	 * interrupted by a card or reader error can resume after reconnecting.
+	 */
+	private static final Map<String, ReadCheckpoint> readCheckpoints = new ConcurrentHashMap<>();
+
+	/*
+	 * Chip serial numbers per card connection, so BeIDCard instances created
+	 * again on the same connection do not ask the card again.
+	 */
+	private static final Map<Card, String> chipSerialNumbers = Collections.synchronizedMap(new WeakHashMap<>());
 
 	private final CardChannel cardChannel;
+	private final Object bufferLock;
+	private ByteBuffer commandBuffer;
+	private ByteBuffer responseBuffer;
+	private final ByteBuffer readBinaryCommand;
+	private ByteBuffer readBinaryScratch;
 	private final List<BeIDCardListener> cardListeners;
+	private final List<PINPadListener> pinPadListeners;
 	private final CertificateFactory certificateFactory;
 	private final KeyFactory keyFactory;
 
@@ -125,10 +204,30 @@ public class BeIDCard {
 	private final Logger logger;
 
 	private CCID ccid;
+	private long pinPadMinimumPollInterval;
+	private long pinPadMaximumPollInterval;
+	private long pinPadDeadline;
 	private BeIDCardUI ui;
 	private CardTerminal cardTerminal;
 	private Locale locale;
-	private Thread exclusiveAccessThread;
+	private final CardAccessScheduler cardAccessScheduler;
+	private int exclusiveAccessDepth;
+	private boolean readingSnapshot;
+	private boolean extendedLengthReads;
+	private boolean exactSizeReads;
+	private boolean fileControlInformationUnsupported;
+	private SharingViolationStrategy sharingViolationStrategy;
+	private int appletVersion;
+	private boolean resumableReads;
+	private boolean logicalChannelReads;
+	private String chipSerialNumber;
+	private boolean appletSelected;
+	private byte[] selectedFileId;
+	private int selectedFileSize;
+	private boolean shortFileSelectionUnsupported;
+	private byte[] securityEnvironment;
+	private PinState pinState;
+	private int pinCacheMisses;
 
 	/**
 	 * Instantiate a BeIDCard from an already connected javax.smartcardio.Card, with
@@ -145,11 +244,24 @@ public class BeIDCard {
 	public BeIDCard(final Card card, final Logger logger) {
 		this.card = card;
 		this.cardChannel = card.getBasicChannel();
+		this.bufferLock = new Object();
+		this.commandBuffer = ByteBuffer.allocate(5 + 0xff + 1);
+		this.responseBuffer = ByteBuffer.allocate(0x400);
+		this.readBinaryCommand = ByteBuffer.allocate(7);
 		if (null == logger) {
 			throw new IllegalArgumentException("logger expected");
 		}
 		this.logger = logger;
 		this.cardListeners = new LinkedList<>();
+		this.pinPadListeners = new LinkedList<>();
+		this.pinPadMinimumPollInterval = CCID.DEFAULT_MINIMUM_POLL_INTERVAL;
+		this.pinPadMaximumPollInterval = CCID.DEFAULT_MAXIMUM_POLL_INTERVAL;
+		this.pinPadDeadline = CCID.DEFAULT_DEADLINE;
+		this.cardAccessScheduler = new CardAccessScheduler();
+		this.sharingViolationStrategy = DEFAULT_SHARING_VIOLATION_STRATEGY;
+		this.appletVersion = -1;
+		this.selectedFileSize = -1;
+		this.pinState = PinState.UNKNOWN;
 		try {
 			this.certificateFactory = CertificateFactory.getInstance("X.509");
 			this.keyFactory = KeyFactory.getInstance("EC");
@@ -186,7 +298,23 @@ public class BeIDCard {
 	 * @throws CardException            in case of a smart card I/O error.
 	 */
 	public BeIDCard(final CardTerminal cardTerminal, final Logger logger) throws CardException {
-		this(cardTerminal.connect("T=0"), logger);
+		this(cardTerminal, logger, DEFAULT_PROTOCOL_STRATEGY);
+	}
+
+	/**
+	 * Instantiate a BeIDCard from a javax.smartcardio.CardTerminal, connecting
+	 * with the card protocol selected by the given strategy.
+	 * 
+	 * @param cardTerminal     a javax.smartcardio.CardTerminal that you have
+	 *                         previously determined to contain a BeID Card
+	 * @param logger           an instance of be.fedict.commons.eid.spi.Logger
+	 * @param protocolStrategy the strategy selecting T=0 or T=1
+	 * @throws CardException in case of a smart card I/O error.
+	 */
+	public BeIDCard(final CardTerminal cardTerminal, final Logger logger, final ProtocolStrategy protocolStrategy)
+			throws CardException {
+		this(protocolStrategy.connect(cardTerminal), logger);
+		setCardTerminal(cardTerminal);
 	}
 
 	/**
@@ -200,7 +328,7 @@ public class BeIDCard {
 	 * @throws CardException    in case of a smart card I/O error.
 	 */
 	public BeIDCard(final CardTerminal cardTerminal) throws CardException {
-		this(cardTerminal.connect("T=0"), null);
+		this(DEFAULT_PROTOCOL_STRATEGY.connect(cardTerminal), null);
 		setCardTerminal(cardTerminal);
 	}
 
@@ -213,6 +341,10 @@ public class BeIDCard {
 	public BeIDCard close() {
 		this.logger.debug("closing eID card");
 		setCardTerminal(null);
+		invalidateCardState();
+		this.pinState = PinState.NOT_VERIFIED;
+		this.exclusiveAccessDepth = 0;
+		this.cardAccessScheduler.reset();
 
 		try {
 			this.card.disconnect(true);
@@ -271,6 +403,73 @@ public class BeIDCard {
 		return this;
 	}
 
+	/**
+	 * Register a PINPadListener to receive the keys pressed on a secure PIN pad
+	 * reader during PIN entry via the CCID start/finish sequence.
+	 * 
+	 * @param pinPadListener a PINPadListener instance
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public final BeIDCard addPINPadListener(final PINPadListener pinPadListener) {
+		synchronized (this.pinPadListeners) {
+			this.pinPadListeners.add(pinPadListener);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Unregister a PINPadListener.
+	 * 
+	 * @param pinPadListener a PINPadListener instance
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public final BeIDCard removePINPadListener(final PINPadListener pinPadListener) {
+		synchronized (this.pinPadListeners) {
+			this.pinPadListeners.remove(pinPadListener);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Tune the polling for keys pressed on a secure PIN pad reader. Polling starts
+	 * at the minimum interval, backs off to the maximum interval while no key is
+	 * pressed, and stops at the deadline.
+	 * 
+	 * @param minimumPollInterval the minimum poll interval in milliseconds.
+	 * @param maximumPollInterval the maximum poll interval in milliseconds.
+	 * @param deadline            the maximum PIN entry time in milliseconds.
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public BeIDCard setPINPadPolling(final long minimumPollInterval, final long maximumPollInterval,
+			final long deadline) {
+		if (null != this.ccid) {
+			this.ccid.setPolling(minimumPollInterval, maximumPollInterval, deadline);
+		} else if (minimumPollInterval < 1 || maximumPollInterval < minimumPollInterval || deadline < 0) {
+			throw new IllegalArgumentException("invalid polling parameters");
+		}
+		this.pinPadMinimumPollInterval = minimumPollInterval;
+		this.pinPadMaximumPollInterval = maximumPollInterval;
+		this.pinPadDeadline = deadline;
+		return this;
+	}
+
+	/**
+	 * Gives back the latency, in milliseconds, between the user confirming on the
+	 * secure PIN pad reader and this BeIDCard noticing it, for the last PIN entry
+	 * via the CCID start/finish sequence. This is an upper bound, measured as the
+	 * interval between the last two polls.
+	 * 
+	 * @return the latency in milliseconds, or -1 if not yet measured.
+	 */
+	public long getPINPadConfirmLatency() {
+		if (null == this.ccid) {
+			return -1;
+		}
+		return this.ccid.getConfirmLatency();
+	}
+
 	/**
 	 * Reads a certain certificate from the card. Which certificate to read is
 	 * determined by the FileType param. Applicable FileTypes are
@@ -536,6 +735,128 @@ public class BeIDCard {
 	public byte[] sign(final byte[] digestValue, final BeIDDigest digestAlgo, final FileType fileType,
 			final boolean requireSecureReader, final String applicationName)
 			throws CardException, IOException, InterruptedException, UserCancelledException {
+		checkSignatureParameters(digestAlgo, fileType, requireSecureReader);
+
+		this.beginExclusive();
+		notifySigningBegin(fileType);
+
+		try {
+			final ResponseAPDU responseApdu = computeDigitalSignature(digestValue, digestAlgo, fileType,
+					applicationName);
+			if (0x9000 != responseApdu.getSW()) {
+				throw new ResponseAPDUException("compute digital signature error", responseApdu);
+			}
+			return toSignature(digestAlgo, responseApdu);
+		} finally {
+			this.endExclusive();
+			notifySigningEnd(fileType);
+		}
+	}
+
+	/**
+	 * Sign a batch of digest values, all within a single exclusive transaction
+	 * with the card. The key is selected once, and the PIN is verified at most
+	 * once when signing with the authentication key. The non-repudiation key
+	 * still requires a PIN verification for every signature.
+	 * 
+	 * A digest value that the card refuses to sign is reported via the
+	 * corresponding BatchSignature, and signing continues with the next digest
+	 * value. Errors that concern the card or the PIN abort the entire batch.
+	 * 
+	 * @param digestValues        the digest values to be signed.
+	 * @param digestAlgo          the algorithm used to calculate the given digest
+	 *                            values.
+	 * @param fileType            the certificate's file type.
+	 * @param requireSecureReader <code>true</code> if a secure pinpad reader is
+	 *                            required.
+	 * @param applicationName     the optional application name.
+	 * @param callback            optional callback receiving each result as soon
+	 *                            as it is available.
+	 * @return the results, in the order of the digest values.
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws UserCancelledException
+	 */
+	public List<BatchSignature> signBatch(final List<byte[]> digestValues, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader, final String applicationName,
+			final Consumer<BatchSignature> callback)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		checkSignatureParameters(digestAlgo, fileType, requireSecureReader);
+
+		final List<BatchSignature> batchSignatures = new ArrayList<>(digestValues.size());
+		this.beginExclusive();
+		notifySigningBegin(fileType);
+
+		try {
+			for (final byte[] digestValue : digestValues) {
+				if (Thread.currentThread().isInterrupted()) {
+					this.logger.debug("interrupted in signBatch");
+					throw new InterruptedException();
+				}
+				final int index = batchSignatures.size();
+				final ResponseAPDU responseApdu = computeDigitalSignature(digestValue, digestAlgo, fileType,
+						applicationName);
+				final BatchSignature batchSignature;
+				if (0x9000 == responseApdu.getSW()) {
+					batchSignature = new BatchSignature(index, toSignature(digestAlgo, responseApdu), null);
+				} else {
+					this.logger.error("compute digital signature error for digest value " + index);
+					batchSignature = new BatchSignature(index, null,
+							new ResponseAPDUException("compute digital signature error", responseApdu));
+				}
+				batchSignatures.add(batchSignature);
+				if (null != callback) {
+					callback.accept(batchSignature);
+				}
+			}
+		} finally {
+			this.endExclusive();
+			notifySigningEnd(fileType);
+		}
+		return batchSignatures;
+	}
+
+	/**
+	 * Sign a batch of document digests with a single card signature. A hash tree
+	 * is built over the document digests, and only its root is signed, as a
+	 * message digested with the given digest algorithm. Each document gets a
+	 * detached signature consisting of the root signature and its inclusion path
+	 * within the hash tree.
+	 *
+	 * @param documentDigests     the document digests, at least one.
+	 * @param digestAlgo          the algorithm used to digest the root hash.
+	 * @param fileType            the certificate's file type.
+	 * @param requireSecureReader <code>true</code> if a secure pinpad reader is
+	 *                            required.
+	 * @param applicationName     the optional application name.
+	 * @return the signatures, in the order of the document digests.
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws UserCancelledException
+	 * @see HashTree
+	 */
+	public List<HashTreeSignature> signHashTree(final List<byte[]> documentDigests, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader, final String applicationName)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		if (null == digestAlgo.getAlgorithm()) {
+			throw new IllegalArgumentException("digest algorithm required: " + digestAlgo);
+		}
+		final HashTree hashTree = new HashTree(documentDigests);
+		final MessageDigest messageDigest;
+		try {
+			messageDigest = digestAlgo.getMessageDigestInstance();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("unsupported algorithm: " + digestAlgo, e);
+		}
+		final byte[] digestValue = messageDigest.digest(hashTree.getRoot());
+		final byte[] rootSignature = sign(digestValue, digestAlgo, fileType, requireSecureReader, applicationName);
+		return hashTree.getSignatures(rootSignature);
+	}
+
+	private void checkSignatureParameters(final BeIDDigest digestAlgo, final FileType fileType,
+			final boolean requireSecureReader) {
 		if (!fileType.isCertificateUserCanSignWith()) {
 			throw new IllegalArgumentException("Not a certificate that can be used for signing: " + fileType.name());
 		}
@@ -558,75 +879,75 @@ public class BeIDCard {
 				&& (getCCID().hasFeature(CCID.FEATURE.VERIFY_PIN_START))) {
 			throw new SecurityException("not a secure reader");
 		}
+	}
 
-		this.beginExclusive();
-		notifySigningBegin(fileType);
-
-		try {
-			// select the key
-			this.logger.debug("selecting key...");
-
-			ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
-					new byte[] { (byte) 0x04, // length
-							// of
-							// following
-							// data
-							(byte) 0x80, digestAlgo.getAlgorithmReference(), // algorithm
-							// reference
-							(byte) 0x84, fileType.getKeyId(), }); // private key
-			// reference
-			if (0x9000 != responseApdu.getSW()) {
-				throw new ResponseAPDUException("SET (select algorithm and private key) error", responseApdu);
-			}
-
-			if (FileType.NonRepudiationCertificate.getKeyId() == fileType.getKeyId()) {
-				this.logger.debug("non-repudiation key detected, immediate PIN verify");
-				verifyPin(PINPurpose.NonRepudiationSignature, applicationName);
-			}
+	/*
+	 * Selects the key, verifies the PIN when required, and sends COMPUTE DIGITAL
+	 * SIGNATURE. Expects exclusive access to be held by the caller. Gives back
+	 * the last COMPUTE DIGITAL SIGNATURE response, while PIN verification errors
+	 * are thrown.
+	 */
+	private ResponseAPDU computeDigitalSignature(final byte[] digestValue, final BeIDDigest digestAlgo,
+			final FileType fileType, final String applicationName)
+			throws CardException, IOException, InterruptedException, UserCancelledException {
+		// select the key
+		selectAlgorithmAndPrivateKey(digestAlgo.getAlgorithmReference(), fileType.getKeyId());
+
+		if (FileType.NonRepudiationCertificate.getKeyId() == fileType.getKeyId()) {
+			this.logger.debug("non-repudiation key detected, immediate PIN verify");
+			verifyPin(PINPurpose.NonRepudiationSignature, applicationName);
+		} else if (PinState.NOT_VERIFIED == this.pinState) {
+			this.logger.debug("PIN not cached, immediate PIN verify");
+			verifyPin(PINPurpose.fromFileType(fileType), applicationName);
+		}
 
-			final ByteArrayOutputStream digestInfo = new ByteArrayOutputStream();
-			digestInfo.write(digestAlgo.getPrefix(digestValue.length));
-			digestInfo.write(digestValue);
+		final ByteArrayOutputStream digestInfo = new ByteArrayOutputStream();
+		digestInfo.write(digestAlgo.getPrefix(digestValue.length));
+		digestInfo.write(digestValue);
 
-			this.logger.debug("computing digital signature...");
-			responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE, digestInfo.toByteArray());
-			if (0x9000 == responseApdu.getSW()) {
-				/*
-				 * OK, we could use the card PIN caching feature.
-				 * 
-				 * Notice that the card PIN caching also works when first doing an
-				 * authentication after a non-repudiation signature.
-				 */
-				if (digestAlgo.isEc()) {
-					return formatSignature(digestAlgo, responseApdu.getData());
-				}
-				return responseApdu.getData();
-			}
-			if (0x6982 != responseApdu.getSW()) {
-				this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
-				throw new ResponseAPDUException("compute digital signature error", responseApdu);
-			}
+		this.logger.debug("computing digital signature...");
+		ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE,
+				digestInfo.toByteArray());
+		if (0x9000 == responseApdu.getSW()) {
 			/*
-			 * 0x6982 = Security status not satisfied, so we do a PIN verification before
-			 * retrying.
+			 * OK, we could use the card PIN caching feature.
+			 * 
+			 * Notice that the card PIN caching also works when first doing an
+			 * authentication after a non-repudiation signature.
 			 */
-			this.logger.debug("PIN verification required...");
-			verifyPin(PINPurpose.fromFileType(fileType), applicationName);
-
-			this.logger.debug("computing digital signature (attempt #2 after PIN verification)...");
-			responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE, digestInfo.toByteArray());
-			if (0x9000 != responseApdu.getSW()) {
-				throw new ResponseAPDUException("compute digital signature error", responseApdu);
-			}
+			this.pinState = PinState.VERIFIED;
+			return responseApdu;
+		}
+		if (0x6982 != responseApdu.getSW()) {
+			this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
+			invalidateCardState();
+			return responseApdu;
+		}
+		/*
+		 * 0x6982 = Security status not satisfied, so we do a PIN verification before
+		 * retrying.
+		 */
+		if (PinState.VERIFIED == this.pinState) {
+			this.logger.debug("PIN no longer cached");
+			this.pinCacheMisses++;
+		}
+		this.pinState = PinState.NOT_VERIFIED;
+		this.logger.debug("PIN verification required...");
+		verifyPin(PINPurpose.fromFileType(fileType), applicationName);
+
+		this.logger.debug("computing digital signature (attempt #2 after PIN verification)...");
+		responseApdu = transmitCommand(BeIDCommandAPDU.COMPUTE_DIGITAL_SIGNATURE, digestInfo.toByteArray());
+		if (0x9000 != responseApdu.getSW()) {
+			invalidateCardState();
+		}
+		return responseApdu;
+	}
 
-			if (digestAlgo.isEc()) {
-				return formatSignature(digestAlgo, responseApdu.getData());
-			}
-			return responseApdu.getData();
-		} finally {
-			this.endExclusive();
-			notifySigningEnd(fileType);
+	private byte[] toSignature(final BeIDDigest digestAlgo, final ResponseAPDU responseApdu) {
+		if (digestAlgo.isEc()) {
+			return formatSignature(digestAlgo, responseApdu.getData());
 		}
+		return responseApdu.getData();
 	}
 
 	/**
@@ -692,18 +1013,7 @@ public class BeIDCard {
 
 		this.beginExclusive();
 		try {
-			ResponseAPDU setResponseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
-					new byte[] { (byte) 0x04, // length
-							// of
-							// following
-							// data
-							(byte) 0x80, 0x02, // algorithm
-							// reference
-							(byte) 0x84, FileType.BasicPublic.getKeyId(), }); // private key
-			// reference
-			if (0x9000 != setResponseApdu.getSW()) {
-				throw new ResponseAPDUException("SET (select algorithm and private key) error", setResponseApdu);
-			}
+			selectAlgorithmAndPrivateKey((byte) 0x02, FileType.BasicPublic.getKeyId());
 
 			byte[] data = new byte[challenge.length + 2];
 			data[0] = (byte) 0x94;
@@ -712,6 +1022,7 @@ public class BeIDCard {
 
 			ResponseAPDU intAuthnResponseApdu = transmitCommand(BeIDCommandAPDU.INTERNAL_AUTHENTICATE, data);
 			if (0x9000 != intAuthnResponseApdu.getSW()) {
+				invalidateCardState();
 				throw new RuntimeException(
 						"INTERNAL AUTHENTICATE failed: " + Integer.toHexString(intAuthnResponseApdu.getSW()));
 			}
@@ -721,6 +1032,37 @@ public class BeIDCard {
 		}
 	}
 
+	/*
+	 * Sends MSE SET to select the algorithm and private key, unless they are
+	 * already the current security environment within this exclusive
+	 * transaction.
+	 */
+	private void selectAlgorithmAndPrivateKey(final byte algorithmReference, final byte keyId)
+			throws CardException {
+		final byte[] securityEnvironment = new byte[] { (byte) 0x04, // length
+				// of
+				// following
+				// data
+				(byte) 0x80, algorithmReference, // algorithm
+				// reference
+				(byte) 0x84, keyId, }; // private key
+		// reference
+		if (isSelectionTracked() && Arrays.equals(this.securityEnvironment, securityEnvironment)) {
+			this.logger.debug("key already selected");
+			return;
+		}
+		this.logger.debug("selecting key...");
+		this.securityEnvironment = null;
+		final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_ALGORITHM_AND_PRIVATE_KEY,
+				securityEnvironment);
+		if (0x9000 != responseApdu.getSW()) {
+			throw new ResponseAPDUException("SET (select algorithm and private key) error", responseApdu);
+		}
+		if (isSelectionTracked()) {
+			this.securityEnvironment = securityEnvironment;
+		}
+	}
+
 	/**
 	 * Verifying PIN Code (without other actions, for testing PIN), using the most
 	 * secure method available. Note that this still has the side effect of loading
@@ -752,7 +1094,12 @@ public class BeIDCard {
 	 */
 	public void verifyPin(String applicationName)
 			throws IOException, CardException, InterruptedException, UserCancelledException {
-		this.verifyPin(PINPurpose.PINTest, applicationName);
+		this.beginExclusive();
+		try {
+			this.verifyPin(PINPurpose.PINTest, applicationName);
+		} finally {
+			this.endExclusive();
+		}
 	}
 
 	/**
@@ -770,6 +1117,16 @@ public class BeIDCard {
 			throw new SecurityException("not a secure reader");
 		}
 
+		this.beginExclusive();
+		try {
+			changePin();
+		} finally {
+			this.endExclusive();
+		}
+		getUI().advisePINChanged();
+	}
+
+	private void changePin() throws Exception {
 		int retriesLeft = -1;
 		ResponseAPDU responseApdu;
 		do {
@@ -798,7 +1155,7 @@ public class BeIDCard {
 				this.logger.debug("retries left: " + retriesLeft);
 			}
 		} while (0x9000 != responseApdu.getSW());
-		getUI().advisePINChanged();
+		this.pinState = PinState.UNKNOWN;
 	}
 
 	/**
@@ -809,7 +1166,13 @@ public class BeIDCard {
 	 * @throws CardException
 	 */
 	public byte[] getChallenge(final int size) throws CardException {
-		final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.GET_CHALLENGE, new byte[] {}, 0, 0, size);
+		final ResponseAPDU responseApdu;
+		this.beginExclusive(CardAccessScheduler.Priority.DEFAULT);
+		try {
+			responseApdu = transmitCommand(BeIDCommandAPDU.GET_CHALLENGE, new byte[] {}, 0, 0, size);
+		} finally {
+			this.endExclusive();
+		}
 		if (0x9000 != responseApdu.getSW()) {
 			this.logger.debug("get challenge failure: " + Integer.toHexString(responseApdu.getSW()));
 			throw new ResponseAPDUException("get challenge failure: " + Integer.toHexString(responseApdu.getSW()),
@@ -883,7 +1246,15 @@ public class BeIDCard {
 	public BeIDCard logoff() throws Exception {
 		final CommandAPDU logoffApdu = new CommandAPDU(0x80, 0xE6, 0x00, 0x00);
 		this.logger.debug("logoff...");
-		final ResponseAPDU responseApdu = transmit(logoffApdu);
+		final ResponseAPDU responseApdu;
+		this.beginExclusive();
+		try {
+			invalidateCardState();
+			this.pinState = PinState.NOT_VERIFIED;
+			responseApdu = transmit(logoffApdu);
+		} finally {
+			this.endExclusive();
+		}
 		if (0x9000 != responseApdu.getSW()) {
 			throw new RuntimeException("logoff failed");
 		}
@@ -903,6 +1274,16 @@ public class BeIDCard {
 			throw new SecurityException("not a secure reader");
 		}
 
+		this.beginExclusive();
+		try {
+			unblockPin();
+		} finally {
+			this.endExclusive();
+		}
+		getUI().advisePINUnblocked();
+	}
+
+	private void unblockPin() throws Exception {
 		ResponseAPDU responseApdu;
 		int retriesLeft = -1;
 		do {
@@ -928,7 +1309,7 @@ public class BeIDCard {
 				this.logger.debug("retries left: " + retriesLeft);
 			}
 		} while (0x9000 != responseApdu.getSW());
-		getUI().advisePINUnblocked();
+		this.pinState = PinState.UNKNOWN;
 	}
 
 	/**
@@ -970,99 +1351,411 @@ public class BeIDCard {
 		return this;
 	}
 
-	// ===========================================================================================================
-	// low-level card operations
-	// not recommended for general use.
-	// if you find yourself having to call these, we'd very much like to hear
-	// about it.
-	// ===========================================================================================================
+	/**
+	 * @return whether extended-length READ BINARY commands are attempted on
+	 *         Belpic applet version 1.8 eID cards.
+	 */
+	public boolean isExtendedLengthReads() {
+		return this.extendedLengthReads;
+	}
 
 	/**
-	 * Select the BELPIC applet on the chip. Since the BELPIC applet is supposed to
-	 * be all alone on the chip, shouldn't be necessary.
-	 * 
+	 * Enable or disable extended-length READ BINARY commands. When enabled, the
+	 * first file larger than 0xff bytes read from a Belpic applet version 1.8 eID
+	 * card probes for the largest block size the card and card terminal accept.
+	 * The result is remembered per card terminal and ATR, so subsequent cards
+	 * inserted in the same reader do not probe again. Older cards, and readers
+	 * that reject the extended-length APDUs, fall back to 0xff byte blocks. A
+	 * probe that fails for another reason, like a card error, is repeated on the
+	 * next file read.
+	 *
+	 * @param extendedLengthReads
 	 * @return this BeIDCard instance, to allow method chaining
-	 * @throws CardException
 	 */
-	public BeIDCard selectApplet() throws CardException {
-		ResponseAPDU responseApdu;
+	public BeIDCard setExtendedLengthReads(final boolean extendedLengthReads) {
+		this.extendedLengthReads = extendedLengthReads;
+		return this;
+	}
 
-		responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_APPLET, BELPIC_AID);
-		if (0x9000 != responseApdu.getSW()) {
-			this.logger.error("error selecting BELPIC");
-			this.logger.debug("status word: " + Integer.toHexString(responseApdu.getSW()));
-			/*
-			 * Try to select the Applet.
-			 */
-			try {
-				responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_APPLET, APPLET_AID);
-			} catch (final CardException e) {
-				this.logger.error("error selecting Applet");
-				return this;
-			}
-			if (0x9000 != responseApdu.getSW()) {
-				this.logger.error("could not select applet");
-			} else {
-				this.logger.debug("BELPIC JavaCard applet selected by APPLET_AID");
-			}
-		} else {
-			this.logger.debug("BELPIC JavaCard applet selected by BELPIC_AID");
-		}
+	/**
+	 * @return whether files are selected with a file control information response
+	 *         to learn their exact size before reading.
+	 */
+	public boolean isExactSizeReads() {
+		return this.exactSizeReads;
+	}
 
+	/**
+	 * Enable or disable exact-size file reads. When enabled, readFile() selects
+	 * files asking for the FCI/FCP, reads exactly the announced number of bytes
+	 * into a single buffer, and reports accurate read progress. Cards that do not
+	 * return a file size are read as before, using the estimated file sizes.
+	 *
+	 * @param exactSizeReads
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public BeIDCard setExactSizeReads(final boolean exactSizeReads) {
+		this.exactSizeReads = exactSizeReads;
 		return this;
 	}
 
-	// --------------------------------------------------------------------------------------------------------------------------------
+	/**
+	 * @return whether file reads interrupted by a card or reader error can be
+	 *         resumed.
+	 */
+	public boolean isResumableReads() {
+		return this.resumableReads;
+	}
 
 	/**
-	 * Begin an exclusive transaction with the card. Once this returns, only the
-	 * calling thread will be able to access the card, until it calls
-	 * endExclusive(). Other threads will receive a CardException. Use this when you
-	 * need to make several calls to the card that depend on each other. for
-	 * example, SELECT FILE and READ BINARY, or SELECT ALGORITHM and COMPUTE
-	 * SIGNATURE, to avoid other threads/processes from interleaving commands that
-	 * would break your transactional logic.
-	 * 
-	 * Called automatically by the higher-level methods in this class. If you end up
-	 * calling this directly, this is either something wrong with your code, or with
-	 * this class. Please let us know. You should really only have to be calling
-	 * this when using some of the other low-level methods (transmitCommand, etc..)
-	 * *never* in combination with the high-level methods.
-	 * 
-	 * @return this BeIDCard Instance, to allow method chaining.
-	 * @throws CardException
+	 * Enable or disable resumable file reads. When enabled, a file read that
+	 * fails halfway because of a CardException or an unexpected status word
+	 * leaves a checkpoint with the data read so far. The next read of the same
+	 * file from the same card, identified by its chip serial number, continues
+	 * from that checkpoint, even when done via a new BeIDCard instance after
+	 * reconnecting. Checkpoints expire after five minutes. Reads are only
+	 * resumable within exclusive access to the card, as used by the higher-level
+	 * methods, since the selected file is not known otherwise.
+	 *
+	 * @param resumableReads
+	 * @return this BeIDCard instance, to allow method chaining
 	 */
-	public BeIDCard beginExclusive() throws CardException {
-		this.logger.debug("---begin exclusive---");
-		if (this.exclusiveAccessThread != null) {
-			throw new IllegalStateException(
-					"Exclusive access already granted to " + this.exclusiveAccessThread.getName());
-		}
-		this.card.beginExclusive();
-		this.exclusiveAccessThread = Thread.currentThread();
+	public BeIDCard setResumableReads(final boolean resumableReads) {
+		this.resumableReads = resumableReads;
 		return this;
 	}
 
 	/**
-	 * Release an exclusive transaction with the card, started by beginExclusive().
-	 * 
-	 * @return this BeIDCard Instance, to allow method chaining.
-	 * @throws CardException
+	 * @return <code>true</code> if snapshots may be read over several logical
+	 *         channels in parallel.
 	 */
-	public BeIDCard endExclusive() throws CardException {
-		this.logger.debug("---end exclusive---");
-		if (Thread.currentThread() != this.exclusiveAccessThread) {
+	public boolean isLogicalChannelReads() {
+		return this.logicalChannelReads;
+	}
+
+	/**
+	 * Enable or disable parallel snapshot reads over logical channels. When
+	 * enabled, {@link #readSnapshot(EnumSet)} opens extra logical channels and
+	 * reads the files from several threads, but only once
+	 * {@link #measureLogicalChannelOverlap()} has shown that the transfers
+	 * actually overlap on this card terminal and card. Snapshots are read
+	 * sequentially over the basic channel before that measurement, when called
+	 * within an exclusive transaction, or when any command on the logical
+	 * channels fails, for example if the card does not support them.
+	 * 
+	 * Reads over logical channels use short READ BINARY commands up to the end
+	 * of each file, whatever the extended length, exact size and resumable read
+	 * settings, and notify read progress only once a file is complete.
+	 *
+	 * @param logicalChannelReads
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public BeIDCard setLogicalChannelReads(final boolean logicalChannelReads) {
+		this.logicalChannelReads = logicalChannelReads;
+		return this;
+	}
+
+	/**
+	 * @return the strategy used to handle SCARD_E_SHARING_VIOLATION errors.
+	 */
+	public SharingViolationStrategy getSharingViolationStrategy() {
+		return this.sharingViolationStrategy;
+	}
+
+	/**
+	 * Set the strategy used to handle SCARD_E_SHARING_VIOLATION errors. By
+	 * default, all BeIDCard instances share one strategy, so its statistics cover
+	 * every card terminal in use.
+	 *
+	 * @param sharingViolationStrategy
+	 * @return this BeIDCard instance, to allow method chaining
+	 */
+	public BeIDCard setSharingViolationStrategy(final SharingViolationStrategy sharingViolationStrategy) {
+		if (null == sharingViolationStrategy) {
+			throw new IllegalArgumentException("sharing violation strategy expected");
+		}
+		this.sharingViolationStrategy = sharingViolationStrategy;
+		return this;
+	}
+
+	/**
+	 * Gives back the READ BINARY block size currently used for this card. This is
+	 * 0xff unless extended-length reads were enabled and successfully negotiated.
+	 *
+	 * @return the READ BINARY block size in bytes
+	 */
+	public int getReadBlockSize() {
+		if (!this.extendedLengthReads || !isEC()) {
+			return BLOCK_SIZE;
+		}
+		final Integer readBlockSize = readBlockSizes.get(getReadBlockSizeKey());
+		if (null == readBlockSize) {
+			return BLOCK_SIZE;
+		}
+		return readBlockSize;
+	}
+
+	/**
+	 * Gives back whether the PIN is believed to be in the PIN cache of the card.
+	 * This is the case after a successful PIN verification or signature, until
+	 * logoff(), close() or a reset of the card. Signing with the authentication
+	 * key skips the failing first COMPUTE DIGITAL SIGNATURE once the PIN is known
+	 * not to be cached, and verifies the PIN up front instead.
+	 *
+	 * @return <code>true</code> if the PIN is believed to be cached.
+	 */
+	public boolean isPinVerified() {
+		return PinState.VERIFIED == this.pinState;
+	}
+
+	/**
+	 * Gives back how many times a signature still required a PIN verification,
+	 * while the PIN was believed to be cached, for example because another
+	 * application did a logoff.
+	 *
+	 * @return the number of PIN cache misses.
+	 */
+	public int getPinCacheMisses() {
+		return this.pinCacheMisses;
+	}
+
+	// ===========================================================================================================
+	// low-level card operations
+	// not recommended for general use.
+	// if you find yourself having to call these, we'd very much like to hear
+	// about it.
+	// ===========================================================================================================
+
+	/**
+	 * Select the BELPIC applet on the chip. Since the BELPIC applet is supposed to
+	 * be all alone on the chip, shouldn't be necessary.
+	 * 
+	 * @return this BeIDCard instance, to allow method chaining
+	 * @throws CardException
+	 */
+	public BeIDCard selectApplet() throws CardException {
+		this.beginExclusive(CardAccessScheduler.Priority.DEFAULT);
+		try {
+			return selectBelpicApplet();
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	private BeIDCard selectBelpicApplet() throws CardException {
+		if (this.appletSelected && isSelectionTracked()) {
+			this.logger.debug("BELPIC JavaCard applet already selected");
 			return this;
 		}
+		invalidateCardState();
+		ResponseAPDU responseApdu;
+
+		responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_APPLET, BELPIC_AID);
+		if (0x9000 != responseApdu.getSW()) {
+			this.logger.error("error selecting BELPIC");
+			this.logger.debug("status word: " + Integer.toHexString(responseApdu.getSW()));
+			/*
+			 * Try to select the Applet.
+			 */
+			try {
+				responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_APPLET, APPLET_AID);
+			} catch (final CardException e) {
+				this.logger.error("error selecting Applet");
+				return this;
+			}
+			if (0x9000 != responseApdu.getSW()) {
+				this.logger.error("could not select applet");
+			} else {
+				this.logger.debug("BELPIC JavaCard applet selected by APPLET_AID");
+				this.appletSelected = isSelectionTracked();
+			}
+		} else {
+			this.logger.debug("BELPIC JavaCard applet selected by BELPIC_AID");
+			this.appletSelected = isSelectionTracked();
+		}
+
+		return this;
+	}
+
+	// --------------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Begin an exclusive transaction with the card. Once this returns, only the
+	 * calling thread will be able to access the card, until it calls
+	 * endExclusive(). Other threads wait for their turn. Use this when you need to
+	 * make several calls to the card that depend on each other. for example,
+	 * SELECT FILE and READ BINARY, or SELECT ALGORITHM and COMPUTE SIGNATURE, to
+	 * avoid other threads/processes from interleaving commands that would break
+	 * your transactional logic.
+	 * 
+	 * Called automatically by the higher-level methods in this class. Exclusive
+	 * access is reentrant: a thread that already holds it joins the ongoing
+	 * transaction, which is only released by the matching outermost
+	 * endExclusive(). To run several high-level methods within a single
+	 * transaction, use {@link #session()}.
+	 * 
+	 * Waiting threads are granted access by priority: signing goes before
+	 * certificate reads, which go before other file reads. Other file reads
+	 * yield the card in between READ BINARY commands when higher priority work
+	 * is waiting. Snapshots and transactions started via this method are never
+	 * preempted.
+	 * 
+	 * @return this BeIDCard Instance, to allow method chaining.
+	 * @throws CardException
+	 */
+	public BeIDCard beginExclusive() throws CardException {
+		return beginExclusive(CardAccessScheduler.Priority.INTERACTIVE);
+	}
+
+	private BeIDCard beginExclusive(final CardAccessScheduler.Priority priority) throws CardException {
+		if (this.cardAccessScheduler.isOwner()) {
+			this.exclusiveAccessDepth++;
+			this.logger.debug("---join exclusive (" + this.exclusiveAccessDepth + ")---");
+			return this;
+		}
+		this.logger.debug("---begin exclusive (" + priority + ")---");
+		try {
+			this.cardAccessScheduler.acquire(priority);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CardException("interrupted while waiting for the card", e);
+		}
+		boolean granted = false;
+		try {
+			int retry = 0;
+			while (true) {
+				try {
+					this.card.beginExclusive();
+					break;
+				} catch (final CardException e) {
+					cardErrorOccurred(e);
+					handleSharingViolation(e, retry++);
+				}
+			}
+			granted = true;
+		} finally {
+			if (!granted) {
+				this.cardAccessScheduler.release();
+			}
+		}
+		this.exclusiveAccessDepth = 0;
+		invalidateCardState();
+		return this;
+	}
+
+	/**
+	 * Release an exclusive transaction with the card, started by beginExclusive().
+	 * Nested calls only leave the ongoing transaction.
+	 * 
+	 * @return this BeIDCard Instance, to allow method chaining.
+	 * @throws CardException
+	 */
+	public BeIDCard endExclusive() throws CardException {
+		if (!this.cardAccessScheduler.isOwner()) {
+			return this;
+		}
+		if (this.exclusiveAccessDepth > 0) {
+			this.logger.debug("---leave exclusive (" + this.exclusiveAccessDepth + ")---");
+			this.exclusiveAccessDepth--;
+			return this;
+		}
+		this.logger.debug("---end exclusive---");
+		invalidateCardState();
 		try {
-			this.exclusiveAccessThread = null;
 			this.card.endExclusive();
 		} catch (CardException e) {
 			this.logger.error("end exclusive failed: " + e.getMessage());
+		} finally {
+			this.cardAccessScheduler.release();
 		}
 		return this;
 	}
 
+	/**
+	 * Opens a card session: an exclusive transaction during which all high-level
+	 * methods called by the current thread join the session transaction instead
+	 * of starting their own one. This avoids repeated PC/SC transactions, and
+	 * allows selection state to be reused across calls. Usage:
+	 * 
+	 * <pre>
+	 * try (BeIDCardSession session = beIDCard.session()) {
+	 * 	beIDCard.readFile(FileType.Identity);
+	 * 	beIDCard.sign(...);
+	 * }
+	 * </pre>
+	 * 
+	 * Sessions can be nested.
+	 * 
+	 * @return the session, to be closed by the calling thread.
+	 * @throws CardException
+	 */
+	public BeIDCardSession session() throws CardException {
+		beginExclusive();
+		return new BeIDCardSession(this);
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread holds exclusive access to
+	 *         the card.
+	 */
+	public boolean isExclusive() {
+		return this.cardAccessScheduler.isOwner();
+	}
+
+	/*
+	 * Releases the exclusive transaction entirely, whatever the nesting depth.
+	 * Gives back the depth to be restored via resumeExclusive, or -1 if the
+	 * current thread had no exclusive access.
+	 */
+	private int suspendExclusive() throws CardException {
+		if (!isExclusive()) {
+			return -1;
+		}
+		final int depth = this.exclusiveAccessDepth;
+		this.exclusiveAccessDepth = 0;
+		endExclusive();
+		return depth;
+	}
+
+	private void resumeExclusive(final int depth) throws CardException {
+		if (-1 == depth) {
+			return;
+		}
+		beginExclusive();
+		this.exclusiveAccessDepth = depth;
+	}
+
+	/*
+	 * Lets waiting card work of a higher priority go first, in between two READ
+	 * BINARY commands of the given file. Only the outermost transaction of a
+	 * high-level read can be preempted, snapshots never are. The file is
+	 * selected again afterwards.
+	 */
+	private void yieldExclusive(final FileType fileType) throws CardException, FileNotFoundException {
+		if (!isExclusive() || 0 != this.exclusiveAccessDepth || this.readingSnapshot
+				|| !this.cardAccessScheduler.hasPrecedingRequest()) {
+			return;
+		}
+		final CardAccessScheduler.Priority priority = this.cardAccessScheduler.getOwnerPriority();
+		this.logger.debug("yielding the card while reading " + fileType.name());
+		endExclusive();
+		beginExclusive(priority);
+		selectFileIfNeeded(fileType.getFileId());
+	}
+
+	private static CardAccessScheduler.Priority getAccessPriority(final FileType fileType) {
+		switch (fileType) {
+		case AuthentificationCertificate:
+		case NonRepudiationCertificate:
+		case CACertificate:
+		case RootCertificate:
+		case RRNCertificate:
+			return CardAccessScheduler.Priority.DEFAULT;
+		default:
+			return CardAccessScheduler.Priority.BACKGROUND;
+		}
+	}
+
 	// --------------------------------------------------------------------------------------------------------------------------------
 
 	/**
@@ -1080,87 +1773,949 @@ public class BeIDCard {
 	 */
 	public byte[] readBinary(final FileType fileType, final int estimatedMaxSize)
 			throws CardException, IOException, InterruptedException {
+		this.beginExclusive(getAccessPriority(fileType));
+		try {
+			return readSelectedFile(fileType, estimatedMaxSize);
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	/*
+	 * Reads the currently selected file, in blocks.
+	 */
+	private byte[] readSelectedFile(final FileType fileType, final int estimatedMaxSize)
+			throws CardException, IOException, InterruptedException {
 		int offset = 0;
 		this.logger.debug("read binary");
 		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final String checkpointKey = getReadCheckpointKey();
+		final byte[] checkpoint = takeReadCheckpoint(checkpointKey);
+		if (null != checkpoint) {
+			baos.write(checkpoint);
+			offset = checkpoint.length;
+		}
+		int blockSize = getReadBlockSize();
 		byte[] data;
-		do {
+		try {
+			do {
+				if (Thread.currentThread().isInterrupted()) {
+					this.logger.debug("interrupted in readBinary");
+					throw new InterruptedException();
+				}
+				if (offset > 0) {
+					yieldExclusive(fileType);
+				}
+
+				notifyReadProgress(fileType, offset, estimatedMaxSize);
+				ResponseAPDU responseApdu = null;
+				if (0 == offset && BLOCK_SIZE == blockSize && isReadBlockSizeProbeNeeded(estimatedMaxSize)) {
+					responseApdu = probeReadBlockSize();
+					blockSize = getReadBlockSize();
+				}
+				if (null == responseApdu) {
+					responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, offset >> 8, offset & 0xFF,
+							blockSize);
+				}
+				final int sw = responseApdu.getSW();
+				if (0x6B00 == sw) {
+					/*
+					 * Wrong parameters (offset outside the EF) End of file reached. Can happen in
+					 * case the file size is a multiple of 0xff bytes.
+					 */
+					break;
+				}
+
+				if (0x9000 != sw) {
+					throw new IOException("BeIDCommandAPDU response error: " + responseApdu.getSW(),
+							new ResponseAPDUException(responseApdu));
+				}
+
+				data = responseApdu.getData();
+				baos.write(data);
+				offset += data.length;
+			} while (blockSize == data.length);
+		} catch (final CardException | IOException e) {
+			putReadCheckpoint(checkpointKey, baos.toByteArray());
+			throw e;
+		}
+		notifyReadProgress(fileType, offset, offset);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Read bytes from a previously selected "File" on the card, directly into the
+	 * given buffer, which may be a direct buffer. The card responses are received
+	 * into the buffer while it has room for a full response, and else through a
+	 * per-card buffer.
+	 * 
+	 * @param fileType         the file to read (to allow for notification)
+	 * @param estimatedMaxSize the estimated total size of the file to read (to
+	 *                         allow for notification)
+	 * @param buffer           the buffer receiving the file content, starting at
+	 *                         its current position
+	 * @return the number of bytes read
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws BufferOverflowException if the file does not fit in the buffer
+	 */
+	public int readBinary(final FileType fileType, final int estimatedMaxSize, final ByteBuffer buffer)
+			throws CardException, IOException, InterruptedException {
+		this.beginExclusive(getAccessPriority(fileType));
+		try {
+			return readBinary(fileType, estimatedMaxSize, -1, buffer);
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	/*
+	 * Reads the currently selected file into the given buffer, stopping at
+	 * fileSize bytes when known (not -1).
+	 */
+	private int readBinary(final FileType fileType, final int estimatedMaxSize, final int fileSize,
+			final ByteBuffer buffer) throws CardException, IOException, InterruptedException {
+		this.logger.debug("read binary into buffer");
+		final int start = buffer.position();
+		int offset = 0;
+		int blockSize = getReadBlockSize();
+		while (true) {
 			if (Thread.currentThread().isInterrupted()) {
 				this.logger.debug("interrupted in readBinary");
 				throw new InterruptedException();
 			}
+			if (offset > 0) {
+				yieldExclusive(fileType);
+			}
 
 			notifyReadProgress(fileType, offset, estimatedMaxSize);
-			final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, offset >> 8, offset & 0xFF,
-					BLOCK_SIZE);
-			final int sw = responseApdu.getSW();
+			if (0 == offset && BLOCK_SIZE == blockSize
+					&& isReadBlockSizeProbeNeeded(fileSize >= 0 ? fileSize : estimatedMaxSize)) {
+				final ResponseAPDU responseApdu = probeReadBlockSize();
+				blockSize = getReadBlockSize();
+				if (null != responseApdu) {
+					final byte[] data = responseApdu.getData();
+					if (data.length > buffer.remaining()) {
+						buffer.position(start);
+						throw new BufferOverflowException();
+					}
+					buffer.put(data);
+					offset += data.length;
+					if (blockSize != data.length) {
+						break;
+					}
+					continue;
+				}
+			}
+
+			int le = blockSize;
+			if (fileSize >= 0) {
+				if (offset >= fileSize) {
+					break;
+				}
+				le = Math.min(le, fileSize - offset);
+			}
+
+			final int sw;
+			synchronized (this.bufferLock) {
+				final int responseSize = Math.max(le + 2, MIN_RESPONSE_BUFFER_SIZE);
+				if (buffer.remaining() >= responseSize) {
+					sw = transmitReadBinary(offset, le, buffer);
+				} else {
+					/*
+					 * Not enough room left for a response, so receive the block in a scratch
+					 * buffer.
+					 */
+					if (null == this.readBinaryScratch || this.readBinaryScratch.capacity() < responseSize) {
+						this.readBinaryScratch = ByteBuffer.allocate(responseSize);
+					}
+					this.readBinaryScratch.clear();
+					sw = transmitReadBinary(offset, le, this.readBinaryScratch);
+					if (0x9000 == sw) {
+						this.readBinaryScratch.flip();
+						if (this.readBinaryScratch.remaining() > buffer.remaining()) {
+							buffer.position(start + offset);
+							throw new BufferOverflowException();
+						}
+						buffer.put(this.readBinaryScratch);
+					}
+				}
+			}
 			if (0x6B00 == sw) {
 				/*
 				 * Wrong parameters (offset outside the EF) End of file reached. Can happen in
-				 * case the file size is a multiple of 0xff bytes.
+				 * case the file size is a multiple of the block size.
 				 */
 				break;
 			}
-
 			if (0x9000 != sw) {
-				throw new IOException("BeIDCommandAPDU response error: " + responseApdu.getSW(),
-						new ResponseAPDUException(responseApdu));
+				buffer.position(start + offset);
+				throw new IOException("BeIDCommandAPDU response error: " + sw);
 			}
+			final int length = buffer.position() - start - offset;
+			offset += length;
+			if (length < le) {
+				break;
+			}
+		}
+		notifyReadProgress(fileType, offset, offset);
+		return offset;
+	}
 
-			data = responseApdu.getData();
-			baos.write(data);
-			offset += data.length;
-		} while (BLOCK_SIZE == data.length);
+	/*
+	 * Transmits a READ BINARY command, with the buffer lock held, receiving the
+	 * response straight into the given buffer. On return, the buffer position is
+	 * right after the received data, excluding the status words, which are
+	 * returned.
+	 */
+	private int transmitReadBinary(final int offset, int le, final ByteBuffer response) throws CardException {
+		final int start = response.position();
+		boolean wrongLength = false;
+		while (true) {
+			this.readBinaryCommand.clear();
+			this.readBinaryCommand.put((byte) BeIDCommandAPDU.READ_BINARY.getCla());
+			this.readBinaryCommand.put((byte) BeIDCommandAPDU.READ_BINARY.getIns());
+			this.readBinaryCommand.put((byte) (offset >> 8));
+			this.readBinaryCommand.put((byte) offset);
+			if (le <= 0x100) {
+				this.readBinaryCommand.put((byte) le);
+			} else {
+				this.readBinaryCommand.put((byte) 0x00);
+				this.readBinaryCommand.put((byte) (le >> 8));
+				this.readBinaryCommand.put((byte) le);
+			}
+			this.readBinaryCommand.flip();
+
+			response.position(start);
+			final int length = transmitChannel(this.readBinaryCommand, response);
+			if (length < 2) {
+				throw new CardException("invalid response length: " + length);
+			}
+			final int sw = ((response.get(start + length - 2) & 0xff) << 8) | (response.get(start + length - 1) & 0xff);
+			response.position(start + length - 2);
+			if (0x6C != sw >> 8) {
+				if (wrongLength) {
+					readAppletVersionIfNeeded();
+				}
+				return sw;
+			}
+			/*
+			 * Wrong Le, in case the card channel did not correct it already.
+			 */
+			final int correctedLe = 0 == (sw & 0xff) ? 0x100 : sw & 0xff;
+			if (correctedLe >= le || correctedLe + 2 > response.remaining()) {
+				return sw;
+			}
+			delayAfterWrongLength();
+			wrongLength = true;
+			le = correctedLe;
+		}
+	}
+
+	/*
+	 * Reads exactly fileSize bytes from the currently selected file.
+	 */
+	private byte[] readBinaryExact(final FileType fileType, final int fileSize)
+			throws CardException, IOException, InterruptedException {
+		this.logger.debug("read binary of " + fileSize + " bytes");
+		final byte[] data = new byte[fileSize];
+		int offset = 0;
+		final String checkpointKey = getReadCheckpointKey();
+		final byte[] checkpoint = takeReadCheckpoint(checkpointKey);
+		if (null != checkpoint && checkpoint.length <= fileSize) {
+			System.arraycopy(checkpoint, 0, data, 0, checkpoint.length);
+			offset = checkpoint.length;
+		}
+		int blockSize = getReadBlockSize();
+		try {
+			while (offset < fileSize) {
+				if (Thread.currentThread().isInterrupted()) {
+					this.logger.debug("interrupted in readBinary");
+					throw new InterruptedException();
+				}
+				if (offset > 0) {
+					yieldExclusive(fileType);
+				}
+
+				notifyReadProgress(fileType, offset, fileSize);
+				ResponseAPDU responseApdu = null;
+				if (0 == offset && BLOCK_SIZE == blockSize && isReadBlockSizeProbeNeeded(fileSize)) {
+					responseApdu = probeReadBlockSize();
+					blockSize = getReadBlockSize();
+				}
+				if (null == responseApdu) {
+					responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, offset >> 8, offset & 0xFF,
+							Math.min(blockSize, fileSize - offset));
+				}
+				if (0x6B00 == responseApdu.getSW()) {
+					/*
+					 * Offset outside the EF: the file is shorter than announced.
+					 */
+					this.logger.debug("file shorter than announced: " + offset + " bytes");
+					break;
+				}
+				if (0x9000 != responseApdu.getSW()) {
+					throw new IOException("BeIDCommandAPDU response error: " + responseApdu.getSW(),
+							new ResponseAPDUException(responseApdu));
+				}
+
+				final byte[] block = responseApdu.getData();
+				final int length = Math.min(block.length, fileSize - offset);
+				if (0 == length) {
+					this.logger.debug("file shorter than announced: " + offset + " bytes");
+					break;
+				}
+				System.arraycopy(block, 0, data, offset, length);
+				offset += length;
+			}
+		} catch (final CardException | IOException e) {
+			putReadCheckpoint(checkpointKey, Arrays.copyOf(data, offset));
+			throw e;
+		}
 		notifyReadProgress(fileType, offset, offset);
-		return baos.toByteArray();
+		if (offset < fileSize) {
+			return Arrays.copyOf(data, offset);
+		}
+		return data;
+	}
+
+	/*
+	 * Gives back the key of the read checkpoint of the currently selected file on
+	 * this card, or null when reads are not resumable or the selected file is
+	 * not known.
+	 */
+	private String getReadCheckpointKey() throws CardException {
+		if (!this.resumableReads || !isSelectionTracked() || null == this.selectedFileId) {
+			return null;
+		}
+		final byte[] selectedFileId = this.selectedFileId;
+		final String chipSerialNumber = getChipSerialNumber();
+		if (chipSerialNumber.isEmpty()) {
+			return null;
+		}
+		final StringBuilder key = new StringBuilder(chipSerialNumber).append('/');
+		for (byte fileIdByte : selectedFileId) {
+			key.append(String.format("%02x", fileIdByte));
+		}
+		return key.toString();
+	}
+
+	/*
+	 * Gives back the chip serial number, or an empty string if the card does not
+	 * tell. Asked only once per card connection.
+	 */
+	private String getChipSerialNumber() throws CardException {
+		if (null == this.chipSerialNumber) {
+			this.chipSerialNumber = chipSerialNumbers.get(this.card);
+		}
+		if (null == this.chipSerialNumber) {
+			try {
+				final byte[] cardData = getCardData();
+				final StringBuilder serial = new StringBuilder();
+				for (int idx = CHIP_SERIAL_NUMBER_OFFSET; idx < Math.min(cardData.length,
+						CHIP_SERIAL_NUMBER_OFFSET + CHIP_SERIAL_NUMBER_LENGTH); idx++) {
+					serial.append(String.format("%02x", cardData[idx]));
+				}
+				this.chipSerialNumber = serial.toString();
+			} catch (final FileNotFoundException e) {
+				this.logger.debug("no card data, reads not resumable: " + e.getMessage());
+				this.chipSerialNumber = "";
+			}
+			chipSerialNumbers.put(this.card, this.chipSerialNumber);
+		}
+		return this.chipSerialNumber;
+	}
+
+	private byte[] takeReadCheckpoint(final String key) {
+		if (null == key) {
+			return null;
+		}
+		final ReadCheckpoint readCheckpoint = readCheckpoints.remove(key);
+		if (null == readCheckpoint || readCheckpoint.isExpired()) {
+			return null;
+		}
+		this.logger.debug("resuming read at offset " + readCheckpoint.data.length);
+		return readCheckpoint.data;
+	}
+
+	private void putReadCheckpoint(final String key, final byte[] data) {
+		if (null == key || 0 == data.length) {
+			return;
+		}
+		this.logger.debug("read checkpoint at offset " + data.length);
+		readCheckpoints.values().removeIf(ReadCheckpoint::isExpired);
+		readCheckpoints.put(key, new ReadCheckpoint(data));
+	}
+
+	private String getReadBlockSizeKey() {
+		final StringBuilder key = new StringBuilder();
+		if (null != this.cardTerminal) {
+			key.append(this.cardTerminal.getName());
+		}
+		key.append('/');
+		for (byte atrByte : this.card.getATR().getBytes()) {
+			key.append(String.format("%02x", atrByte));
+		}
+		return key.toString();
+	}
+
+	/*
+	 * The probe only runs on files expected to be larger than a short block, as
+	 * reading a short file with an extended Le does not tell whether the card
+	 * terminal supports it.
+	 */
+	private boolean isReadBlockSizeProbeNeeded(final int expectedSize) {
+		return this.extendedLengthReads && isEC() && expectedSize > BLOCK_SIZE
+				&& !readBlockSizes.containsKey(getReadBlockSizeKey());
+	}
+
+	/*
+	 * Probes for the largest READ BINARY block size, by reading the start of the
+	 * currently selected file with decreasing extended-length Le values. The
+	 * probe commands go straight to the card channel, as a 6Cxx correction would
+	 * otherwise hide the rejection of the extended Le. Returns the successful
+	 * response, so the probe doubles as the first block read, or null when the
+	 * card terminal only supports short READ BINARY commands, or when the probe
+	 * was inconclusive. Only a successful read or a definite rejection of all
+	 * extended Le values is remembered, so an inconclusive probe runs again on
+	 * the next file read. T=0 has no extended length commands at all, so the
+	 * probe is not even tried over T=0.
+	 */
+	private ResponseAPDU probeReadBlockSize() {
+		final String key = getReadBlockSizeKey();
+		if ("T=0".equals(this.card.getProtocol())) {
+			this.logger.debug("no extended length READ BINARY over T=0");
+			readBlockSizes.put(key, BLOCK_SIZE);
+			return null;
+		}
+		for (int extendedBlockSize : EXTENDED_BLOCK_SIZES) {
+			this.logger.debug("probing READ BINARY block size: " + extendedBlockSize);
+			final ResponseAPDU responseApdu;
+			try {
+				responseApdu = transmitChannel(new CommandAPDU(BeIDCommandAPDU.READ_BINARY.getCla(),
+						BeIDCommandAPDU.READ_BINARY.getIns(), 0x00, 0x00, extendedBlockSize));
+			} catch (final IllegalArgumentException e) {
+				this.logger.debug("extended length READ BINARY not supported: " + e.getMessage());
+				break;
+			} catch (final CardException e) {
+				this.logger.debug("READ BINARY block size probe failed: " + e.getMessage());
+				return null;
+			}
+			final int sw = responseApdu.getSW();
+			if (0x9000 == sw || 0x6282 == sw) {
+				this.logger.debug("READ BINARY block size: " + extendedBlockSize);
+				readBlockSizes.put(key, extendedBlockSize);
+				if (0x6282 == sw) {
+					/*
+					 * End of file reached before Le bytes, so the whole file was read.
+					 */
+					final byte[] data = responseApdu.getData();
+					final byte[] response = Arrays.copyOf(data, data.length + 2);
+					response[data.length] = (byte) 0x90;
+					return new ResponseAPDU(response);
+				}
+				return responseApdu;
+			}
+			if (0x6700 != sw && 0x6D00 != sw && 0x6E00 != sw) {
+				this.logger.debug("READ BINARY block size probe inconclusive: " + Integer.toHexString(sw));
+				return null;
+			}
+			this.logger.debug("READ BINARY block size rejected: " + Integer.toHexString(sw));
+		}
+		readBlockSizes.put(key, BLOCK_SIZE);
+		return null;
+	}
+
+	/**
+	 * Selects a file to read on the card
+	 * 
+	 * @param fileId the file to read
+	 * @return this BeIDCard Instance, to allow method chaining.
+	 * @throws CardException
+	 * @throws FileNotFoundException
+	 */
+	public BeIDCard selectFile(final byte[] fileId) throws CardException, FileNotFoundException {
+		this.beginExclusive(CardAccessScheduler.Priority.DEFAULT);
+		try {
+			return selectFileIfNeeded(fileId);
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	private BeIDCard selectFileIfNeeded(final byte[] fileId) throws CardException, FileNotFoundException {
+		if (isFileSelected(fileId)) {
+			this.logger.debug("file already selected");
+			return this;
+		}
+		this.logger.debug("selecting file");
+		final ResponseAPDU responseApdu = transmitSelectFile(fileId, false);
+		if (0x9000 != responseApdu.getSW()) {
+			final FileNotFoundException fnfEx = new FileNotFoundException(
+					"wrong status word after selecting file: " + Integer.toHexString(responseApdu.getSW()));
+			fnfEx.initCause(new ResponseAPDUException(responseApdu));
+			throw fnfEx;
+		}
+		fileSelected(fileId, -1);
+
+		return this;
+	}
+
+	/*
+	 * Selects a file asking for its file control information. Returns the file
+	 * size, or -1 when the card did not announce it.
+	 */
+	private int selectFileForSize(final byte[] fileId) throws CardException, FileNotFoundException {
+		if (this.fileControlInformationUnsupported) {
+			selectFileIfNeeded(fileId);
+			return -1;
+		}
+		if (isFileSelected(fileId) && this.selectedFileSize >= 0) {
+			this.logger.debug("file already selected");
+			return this.selectedFileSize;
+		}
+		this.logger.debug("selecting file with FCI");
+		final ResponseAPDU responseApdu = transmitSelectFile(fileId, true);
+		if (0x9000 == responseApdu.getSW()) {
+			final int fileSize = FileControlInformation.getFileSize(responseApdu.getData());
+			this.logger.debug("file size: " + fileSize);
+			fileSelected(fileId, fileSize);
+			return fileSize;
+		}
+		if (0x6A82 == responseApdu.getSW()) {
+			final FileNotFoundException fnfEx = new FileNotFoundException(
+					"wrong status word after selecting file: " + Integer.toHexString(responseApdu.getSW()));
+			fnfEx.initCause(new ResponseAPDUException(responseApdu));
+			throw fnfEx;
+		}
+		this.logger.debug("SELECT FILE with FCI not supported: " + Integer.toHexString(responseApdu.getSW()));
+		this.fileControlInformationUnsupported = true;
+		selectFileIfNeeded(fileId);
+		return -1;
+	}
+
+	/*
+	 * Transmits SELECT FILE. When the parent DF of the file is already the
+	 * current DF, the file is selected by its file identifier only, falling back
+	 * to the full path when the card refuses this.
+	 */
+	private ResponseAPDU transmitSelectFile(final byte[] fileId, final boolean fci) throws CardException {
+		if (isShortFileSelectionPossible(fileId)) {
+			final ResponseAPDU responseApdu;
+			if (fci) {
+				responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_EF_FCI, fileId, fileId.length - 2, 2, 0x100);
+			} else {
+				responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_EF, fileId, fileId.length - 2, 2, 0);
+			}
+			if (0x9000 == responseApdu.getSW()) {
+				return responseApdu;
+			}
+			this.logger.debug("SELECT FILE by file identifier failed: " + Integer.toHexString(responseApdu.getSW()));
+			invalidateCardState();
+			final ResponseAPDU pathResponseApdu = transmitSelectFilePath(fileId, fci);
+			if (0x9000 == pathResponseApdu.getSW()) {
+				this.shortFileSelectionUnsupported = true;
+			}
+			return pathResponseApdu;
+		}
+		return transmitSelectFilePath(fileId, fci);
+	}
+
+	private ResponseAPDU transmitSelectFilePath(final byte[] fileId, final boolean fci) throws CardException {
+		final ResponseAPDU responseApdu;
+		if (fci) {
+			responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_FILE_FCI, fileId, 0, fileId.length, 0x100);
+		} else {
+			responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_FILE, fileId);
+		}
+		if (0x9000 != responseApdu.getSW()) {
+			invalidateCardState();
+		}
+		return responseApdu;
+	}
+
+	/*
+	 * The selection state and security environment can only be relied upon
+	 * within an exclusive transaction, as other applications might change them
+	 * otherwise.
+	 */
+	private boolean isSelectionTracked() {
+		return isExclusive();
+	}
+
+	private boolean isFileSelected(final byte[] fileId) {
+		return isSelectionTracked() && Arrays.equals(this.selectedFileId, fileId);
+	}
+
+	private boolean isShortFileSelectionPossible(final byte[] fileId) {
+		if (this.shortFileSelectionUnsupported || !isSelectionTracked() || null == this.selectedFileId) {
+			return false;
+		}
+		if (fileId.length != this.selectedFileId.length || fileId.length < 4) {
+			return false;
+		}
+		for (int idx = 0; idx < fileId.length - 2; idx++) {
+			if (fileId[idx] != this.selectedFileId[idx]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void fileSelected(final byte[] fileId, final int fileSize) {
+		if (!isSelectionTracked()) {
+			return;
+		}
+		this.selectedFileId = fileId.clone();
+		this.selectedFileSize = fileSize;
+	}
+
+	private void invalidateCardState() {
+		this.appletSelected = false;
+		this.selectedFileId = null;
+		this.selectedFileSize = -1;
+		this.securityEnvironment = null;
+	}
+
+	/*
+	 * Selects and reads a file. Expects exclusive access to be held by the caller.
+	 */
+	private byte[] selectAndReadFile(final FileType fileType) throws CardException, IOException, InterruptedException {
+		if (this.exactSizeReads) {
+			final int fileSize = selectFileForSize(fileType.getFileId());
+			if (fileSize >= 0) {
+				return readBinaryExact(fileType, fileSize);
+			}
+		} else {
+			selectFileIfNeeded(fileType.getFileId());
+		}
+		return readSelectedFile(fileType, fileType.getEstimatedMaxSize());
+	}
+
+	/**
+	 * Reads a file from the card.
+	 * 
+	 * @param fileType the file to read
+	 * @return the data from the file
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public byte[] readFile(final FileType fileType) throws CardException, IOException, InterruptedException {
+		this.beginExclusive(getAccessPriority(fileType));
+
+		try {
+			return selectAndReadFile(fileType);
+		} finally {
+			this.endExclusive();
+		}
+	}
+
+	/**
+	 * Reads a file from the card directly into the given buffer, which may be a
+	 * direct or pooled buffer.
+	 * 
+	 * @param fileType the file to read
+	 * @param buffer   the buffer receiving the file content, starting at its
+	 *                 current position
+	 * @return the number of bytes read
+	 * @throws CardException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws BufferOverflowException if the file does not fit in the buffer
+	 */
+	public int readFile(final FileType fileType, final ByteBuffer buffer)
+			throws CardException, IOException, InterruptedException {
+		this.beginExclusive(getAccessPriority(fileType));
+
+		try {
+			int fileSize = -1;
+			if (this.exactSizeReads) {
+				fileSize = selectFileForSize(fileType.getFileId());
+				if (fileSize > buffer.remaining()) {
+					throw new BufferOverflowException();
+				}
+			} else {
+				selectFileIfNeeded(fileType.getFileId());
+			}
+			final int estimatedMaxSize = fileSize >= 0 ? fileSize : fileType.getEstimatedMaxSize();
+			return readBinary(fileType, estimatedMaxSize, fileSize, buffer);
+		} finally {
+			this.endExclusive();
+		}
 	}
 
 	/**
-	 * Selects a file to read on the card
+	 * Opens a file on the card for streaming. The file content is read block by
+	 * block as the returned stream is consumed, so decoding can overlap with the
+	 * card I/O. Exclusive access to the card is held until the stream is closed,
+	 * which must be done by the thread that opened it: closing the stream from
+	 * another thread throws an IllegalStateException, as it cannot release the
+	 * card.
 	 * 
-	 * @param fileId the file to read
-	 * @return this BeIDCard Instance, to allow method chaining.
+	 * @param fileType the file to read
+	 * @return an InputStream of the file content
 	 * @throws CardException
 	 * @throws FileNotFoundException
 	 */
-	public BeIDCard selectFile(final byte[] fileId) throws CardException, FileNotFoundException {
-		this.logger.debug("selecting file");
-		final ResponseAPDU responseApdu = transmitCommand(BeIDCommandAPDU.SELECT_FILE, fileId);
-		if (0x9000 != responseApdu.getSW()) {
-			final FileNotFoundException fnfEx = new FileNotFoundException(
-					"wrong status word after selecting file: " + Integer.toHexString(responseApdu.getSW()));
-			fnfEx.initCause(new ResponseAPDUException(responseApdu));
-			throw fnfEx;
-		}
-
+	public InputStream openFile(final FileType fileType) throws CardException, FileNotFoundException {
+		this.beginExclusive(getAccessPriority(fileType));
 		try {
-			// SCARD_E_SHARING_VIOLATION fix
-			Thread.sleep(20);
-		} catch (final InterruptedException e) {
-			throw new RuntimeException("sleep error: " + e.getMessage());
+			int fileSize = -1;
+			if (this.exactSizeReads) {
+				fileSize = selectFileForSize(fileType.getFileId());
+			} else {
+				selectFileIfNeeded(fileType.getFileId());
+			}
+			return new CardFileInputStream(fileType, fileSize);
+		} catch (final CardException | FileNotFoundException | RuntimeException e) {
+			this.endExclusive();
+			throw e;
 		}
-
-		return this;
 	}
 
 	/**
-	 * Reads a file from the card.
+	 * Opens a file on the card as a channel. See {@link #openFile(FileType)}.
 	 * 
 	 * @param fileType the file to read
-	 * @return the data from the file
+	 * @return a ReadableByteChannel of the file content
+	 * @throws CardException
+	 * @throws FileNotFoundException
+	 */
+	public ReadableByteChannel openFileChannel(final FileType fileType) throws CardException, FileNotFoundException {
+		return Channels.newChannel(openFile(fileType));
+	}
+
+	/**
+	 * Reads several files from the card within a single exclusive transaction.
+	 * Unlike single file reads, the snapshot does not yield the card to waiting
+	 * higher priority work, so all files come from the same card state. Files
+	 * that are not present on the card, like the basic public key file on
+	 * cards before Belpic applet version 1.8, are left out of the snapshot. With
+	 * logical channel reads enabled, the files are read in parallel over several
+	 * logical channels instead, see {@link #setLogicalChannelReads(boolean)}.
+	 * 
+	 * @param fileTypes the files to read
+	 * @return an immutable snapshot of the raw file contents
 	 * @throws CardException
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	public byte[] readFile(final FileType fileType) throws CardException, IOException, InterruptedException {
-		this.beginExclusive();
+	public EidSnapshot readSnapshot(final EnumSet<FileType> fileTypes)
+			throws CardException, IOException, InterruptedException {
+		if (this.logicalChannelReads && fileTypes.size() > 1 && !isExclusive() && isLogicalChannelOverlap()) {
+			final EnumMap<FileType, byte[]> files = readFilesOnLogicalChannels(fileTypes, MAX_LOGICAL_CHANNELS);
+			if (null != files) {
+				return new EidSnapshot(files);
+			}
+		}
+		final EnumMap<FileType, byte[]> files = new EnumMap<>(FileType.class);
+		this.beginExclusive(CardAccessScheduler.Priority.BACKGROUND);
+		final boolean readingSnapshot = this.readingSnapshot;
+		this.readingSnapshot = true;
 
 		try {
-			this.selectFile(fileType.getFileId());
-			return this.readBinary(fileType, fileType.getEstimatedMaxSize());
+			for (FileType fileType : fileTypes) {
+				try {
+					files.put(fileType, selectAndReadFile(fileType));
+				} catch (final FileNotFoundException e) {
+					this.logger.debug("file not present on card: " + fileType.name());
+				}
+			}
 		} finally {
+			this.readingSnapshot = readingSnapshot;
 			this.endExclusive();
 		}
+		return new EidSnapshot(files);
+	}
+
+	/**
+	 * Measures whether the card terminal and card overlap transfers on different
+	 * logical channels, by reading two certificate files over a single logical
+	 * channel, and then over two logical channels in parallel. Both are run once
+	 * untimed first, so that only the card transfers are compared. The outcome is
+	 * remembered per card terminal and ATR, and decides whether
+	 * {@link #readSnapshot(EnumSet)} uses logical channels. Snapshots never run
+	 * this measurement themselves.
+	 *
+	 * @return the speedup of the parallel reads, or 0 if the card does not
+	 *         support logical channels.
+	 * @throws InterruptedException
+	 */
+	public double measureLogicalChannelOverlap() throws InterruptedException {
+		final EnumSet<FileType> fileTypes = EnumSet.of(FileType.CACertificate, FileType.RootCertificate);
+		// warm up both code paths, so that neither timed run pays for class loading or JIT compilation
+		if (null == readFilesOnLogicalChannels(fileTypes, 1) || null == readFilesOnLogicalChannels(fileTypes, 2)) {
+			this.logger.debug("logical channel speedup: 0, overlap: false");
+			logicalChannelOverlaps.put(getReadBlockSizeKey(), false);
+			return 0;
+		}
+		final long sequentialStart = System.nanoTime();
+		final EnumMap<FileType, byte[]> files = readFilesOnLogicalChannels(fileTypes, 1);
+		final long sequentialTime = System.nanoTime() - sequentialStart;
+		double speedup = 0;
+		if (null != files) {
+			final long parallelStart = System.nanoTime();
+			if (null != readFilesOnLogicalChannels(fileTypes, 2)) {
+				final long parallelTime = System.nanoTime() - parallelStart;
+				speedup = (double) sequentialTime / Math.max(parallelTime, 1);
+			}
+		}
+		final boolean overlap = speedup >= LOGICAL_CHANNEL_OVERLAP_THRESHOLD;
+		this.logger.debug("logical channel speedup: " + speedup + ", overlap: " + overlap);
+		logicalChannelOverlaps.put(getReadBlockSizeKey(), overlap);
+		return speedup;
+	}
+
+	private boolean isLogicalChannelOverlap() {
+		return Boolean.TRUE.equals(logicalChannelOverlaps.get(getReadBlockSizeKey()));
+	}
+
+	/*
+	 * Reads the given files over at most channelCount logical channels, one
+	 * thread per channel. Files not present on the card are left out. Gives back
+	 * null if no logical channel could be opened, or if any command on them
+	 * failed, so that the caller can fall back to the basic channel. Holds the
+	 * card access scheduler, but no PC/SC transaction, as javax.smartcardio only
+	 * allows the owning thread to transmit within a transaction.
+	 */
+	private EnumMap<FileType, byte[]> readFilesOnLogicalChannels(final EnumSet<FileType> fileTypes,
+			final int channelCount) throws InterruptedException {
+		this.cardAccessScheduler.acquire(CardAccessScheduler.Priority.BACKGROUND);
+		final List<CardChannel> channels = new ArrayList<>();
+		try {
+			while (channels.size() < channelCount) {
+				try {
+					// javax.smartcardio checks the MANAGE CHANNEL status word
+					channels.add(this.card.openLogicalChannel());
+				} catch (final CardException e) {
+					this.logger.debug("cannot open logical channel: " + e.getMessage());
+					break;
+				}
+			}
+			if (channels.isEmpty()) {
+				return null;
+			}
+			this.logger.debug("reading " + fileTypes.size() + " files over " + channels.size() + " logical channels");
+			final Queue<FileType> pendingFileTypes = new ConcurrentLinkedQueue<>(fileTypes);
+			final Map<FileType, byte[]> files = new ConcurrentHashMap<>();
+			final ExecutorService executorService = Executors.newFixedThreadPool(channels.size());
+			Throwable failure = null;
+			try {
+				final List<Future<Void>> futures = new ArrayList<>();
+				for (final CardChannel channel : channels) {
+					futures.add(executorService.submit(() -> {
+						FileType fileType;
+						while (null != (fileType = pendingFileTypes.poll())) {
+							final byte[] data = readFileOnChannel(channel, fileType);
+							if (null != data) {
+								files.put(fileType, data);
+							}
+						}
+						return null;
+					}));
+				}
+				for (final Future<Void> future : futures) {
+					try {
+						future.get();
+					} catch (final ExecutionException e) {
+						// the other channels stop after their current file
+						pendingFileTypes.clear();
+						if (null == failure) {
+							failure = e.getCause();
+						}
+					}
+				}
+			} finally {
+				executorService.shutdownNow();
+				// the workers may still be transmitting on the channels closed below
+				boolean interrupted = false;
+				while (true) {
+					try {
+						if (executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+							break;
+						}
+					} catch (final InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (null != failure) {
+				this.logger.debug("reading over logical channels failed: " + failure.getMessage());
+				return null;
+			}
+			final EnumMap<FileType, byte[]> result = new EnumMap<>(FileType.class);
+			result.putAll(files);
+			for (final Map.Entry<FileType, byte[]> file : result.entrySet()) {
+				notifyReadProgress(file.getKey(), file.getValue().length, file.getValue().length);
+			}
+			return result;
+		} finally {
+			for (final CardChannel channel : channels) {
+				try {
+					channel.close();
+				} catch (final CardException e) {
+					this.logger.error("error closing logical channel: " + e.getMessage());
+				}
+			}
+			this.cardAccessScheduler.release();
+		}
+	}
+
+	/*
+	 * Reads a file over the given logical channel, after selecting the applet on
+	 * that channel. Gives back null if the file is not present.
+	 */
+	private byte[] readFileOnChannel(final CardChannel channel, final FileType fileType)
+			throws CardException, IOException {
+		final BeIDCommandAPDU selectApplet = BeIDCommandAPDU.SELECT_APPLET;
+		ResponseAPDU responseApdu = channel.transmit(new CommandAPDU(selectApplet.getCla(), selectApplet.getIns(),
+				selectApplet.getP1(), selectApplet.getP2(), BELPIC_AID));
+		if (0x9000 != responseApdu.getSW()) {
+			responseApdu = channel.transmit(new CommandAPDU(selectApplet.getCla(), selectApplet.getIns(),
+					selectApplet.getP1(), selectApplet.getP2(), APPLET_AID));
+		}
+		if (0x9000 != responseApdu.getSW()) {
+			throw new ResponseAPDUException("select applet error", responseApdu);
+		}
+		final BeIDCommandAPDU selectFile = BeIDCommandAPDU.SELECT_FILE;
+		responseApdu = channel.transmit(new CommandAPDU(selectFile.getCla(), selectFile.getIns(),
+				selectFile.getP1(), selectFile.getP2(), fileType.getFileId()));
+		if (0x6A82 == responseApdu.getSW()) {
+			this.logger.debug("file not present on card: " + fileType.name());
+			return null;
+		}
+		if (0x9000 != responseApdu.getSW()) {
+			throw new ResponseAPDUException("select file error", responseApdu);
+		}
+		final BeIDCommandAPDU readBinary = BeIDCommandAPDU.READ_BINARY;
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		int offset = 0;
+		while (true) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException();
+			}
+			responseApdu = channel.transmit(new CommandAPDU(readBinary.getCla(), readBinary.getIns(), offset >> 8,
+					offset & 0xff, BLOCK_SIZE));
+			if (0x6B00 == responseApdu.getSW()) {
+				break;
+			}
+			if (0x9000 != responseApdu.getSW()) {
+				throw new IOException("BeIDCommandAPDU response error: " + responseApdu.getSW(),
+						new ResponseAPDUException(responseApdu));
+			}
+			final byte[] data = responseApdu.getData();
+			baos.write(data);
+			offset += data.length;
+			if (data.length < BLOCK_SIZE) {
+				break;
+			}
+		}
+		return baos.toByteArray();
 	}
 
 	/**
@@ -1188,11 +2743,21 @@ public class BeIDCard {
 		} else {
 			apdu = BeIDCommandAPDU.GET_CARD_DATA;
 		}
-		ResponseAPDU responseApdu = transmitCommand(apdu, 0xff);
+		ResponseAPDU responseApdu;
+		this.beginExclusive(CardAccessScheduler.Priority.DEFAULT);
+		try {
+			responseApdu = transmitCommand(apdu, 0xff);
+		} finally {
+			this.endExclusive();
+		}
 		if (0x9000 != responseApdu.getSW()) {
 			throw new FileNotFoundException("GET CARD DATA ERROR: " + Integer.toHexString(responseApdu.getSW()));
 		}
-		return responseApdu.getData();
+		final byte[] cardData = responseApdu.getData();
+		if (cardData.length > APPLET_VERSION_OFFSET) {
+			this.appletVersion = cardData[APPLET_VERSION_OFFSET] & 0xff;
+		}
+		return cardData;
 	}
 
 	/**
@@ -1241,75 +2806,296 @@ public class BeIDCard {
 	}
 
 	protected ResponseAPDU transmitCommand(final BeIDCommandAPDU apdu, final int le) throws CardException {
-		return transmit(new CommandAPDU(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), le));
+		return transmit(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), null, 0, 0, le);
 	}
 
 	protected ResponseAPDU transmitCommand(final BeIDCommandAPDU apdu, final int p2, final byte[] data)
 			throws CardException {
-		return transmit(new CommandAPDU(apdu.getCla(), apdu.getIns(), apdu.getP1(), p2, data));
+		return transmit(apdu.getCla(), apdu.getIns(), apdu.getP1(), p2, data, 0, data.length, 0);
 	}
 
 	protected ResponseAPDU transmitCommand(final BeIDCommandAPDU apdu, final int p1, final int p2, final int le)
 			throws CardException {
-		return transmit(new CommandAPDU(apdu.getCla(), apdu.getIns(), p1, p2, le));
+		return transmit(apdu.getCla(), apdu.getIns(), p1, p2, null, 0, 0, le);
 	}
 
 	protected ResponseAPDU transmitCommand(final BeIDCommandAPDU apdu, final byte[] data) throws CardException {
-		return transmit(new CommandAPDU(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), data));
+		return transmit(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), data, 0, data.length, 0);
 	}
 
 	protected ResponseAPDU transmitCommand(final BeIDCommandAPDU apdu, final byte[] data, final int dataOffset,
 			final int dataLength, final int ne) throws CardException {
-		return transmit(new CommandAPDU(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), data, dataOffset,
-				dataLength, ne));
+		return transmit(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), data, dataOffset, dataLength, ne);
 	}
 
 	private ResponseAPDU transmit(final CommandAPDU commandApdu) throws CardException {
-		return transmit(commandApdu, 0);
+		return transmit(commandApdu.getCLA(), commandApdu.getINS(), commandApdu.getP1(), commandApdu.getP2(),
+				commandApdu.getData(), 0, commandApdu.getNc(), commandApdu.getNe());
+	}
+
+	/*
+	 * Transmits the command, handling 6Cxx (wrong Le) by resending it with the
+	 * corrected Le and 61xx by issuing GET RESPONSE commands, accumulating the
+	 * response data in the per-card response buffer. Only the final ResponseAPDU
+	 * is allocated. The buffers are shared by all threads using this card, so
+	 * the whole exchange is guarded by the buffer lock.
+	 */
+	private ResponseAPDU transmit(final int cla, final int ins, final int p1, final int p2, final byte[] data,
+			final int dataOffset, final int dataLength, final int ne) throws CardException {
+		synchronized (this.bufferLock) {
+			return transmitBuffered(cla, ins, p1, p2, data, dataOffset, dataLength, ne);
+		}
+	}
+
+	private ResponseAPDU transmitBuffered(final int cla, final int ins, final int p1, final int p2,
+			final byte[] data, final int dataOffset, final int dataLength, int ne) throws CardException {
+		int commandCla = cla;
+		int commandIns = ins;
+		int commandP1 = p1;
+		int commandP2 = p2;
+		int commandDataLength = dataLength;
+		boolean wrongLength = false;
+		this.responseBuffer.clear();
+		for (int attempt = 0; attempt < 32; attempt++) {
+			encodeCommand(commandCla, commandIns, commandP1, commandP2, data, dataOffset, commandDataLength, ne);
+			ensureResponseCapacity(Math.max(ne, 0x100) + 2);
+
+			final int start = this.responseBuffer.position();
+			final int length = transmitChannel(this.commandBuffer, this.responseBuffer);
+			if (length < 2) {
+				throw new CardException("invalid response length: " + length);
+			}
+			final int sw1 = this.responseBuffer.get(start + length - 2) & 0xff;
+			final int sw2 = this.responseBuffer.get(start + length - 1) & 0xff;
+			if (0x6c == sw1) {
+				/*
+				 * Resend the same command with the Le indicated by the card.
+				 */
+				this.responseBuffer.position(start);
+				delayAfterWrongLength();
+				wrongLength = true;
+				ne = 0 == sw2 ? 0x100 : sw2;
+			} else if (0x61 == sw1) {
+				/*
+				 * Keep the data received so far, and issue a GET RESPONSE command to
+				 * retrieve the remaining data.
+				 */
+				this.responseBuffer.position(start + length - 2);
+				commandCla = 0x00;
+				commandIns = 0xC0;
+				commandP1 = 0x00;
+				commandP2 = 0x00;
+				commandDataLength = 0;
+				ne = 0 == sw2 ? 0xff : sw2;
+			} else {
+				this.responseBuffer.flip();
+				final byte[] response = new byte[this.responseBuffer.remaining()];
+				this.responseBuffer.get(response);
+				if (wrongLength) {
+					readAppletVersionIfNeeded();
+				}
+				return new ResponseAPDU(response);
+			}
+		}
+		throw new CardException("Could not obtain response.");
+	}
+
+	/*
+	 * Encodes the command APDU in the per-card command buffer, according to ISO
+	 * 7816-4, the same way CommandAPDU does.
+	 */
+	private void encodeCommand(final int cla, final int ins, final int p1, final int p2, final byte[] data,
+			final int dataOffset, final int dataLength, final int ne) {
+		if (this.commandBuffer.capacity() < dataLength + 9) {
+			this.commandBuffer = ByteBuffer.allocate(dataLength + 9);
+		}
+		final boolean extended = dataLength > 0xff || ne > 0x100;
+		final ByteBuffer command = this.commandBuffer;
+		command.clear();
+		command.put((byte) cla);
+		command.put((byte) ins);
+		command.put((byte) p1);
+		command.put((byte) p2);
+		if (0 != dataLength) {
+			if (extended) {
+				command.put((byte) 0x00);
+				command.put((byte) (dataLength >> 8));
+			}
+			command.put((byte) dataLength);
+			command.put(data, dataOffset, dataLength);
+		}
+		if (0 != ne) {
+			if (extended) {
+				if (0 == dataLength) {
+					command.put((byte) 0x00);
+				}
+				command.put((byte) (ne >> 8));
+			}
+			command.put((byte) ne);
+		}
+		command.flip();
 	}
 
-	private ResponseAPDU transmit(final CommandAPDU commandApdu, final int attempt) throws CardException {
-		if (attempt >= 32) {
-			throw new CardException("Could not obtain response.");
+	/*
+	 * Makes sure the response buffer can receive the given number of additional
+	 * bytes, keeping the data accumulated so far.
+	 */
+	private void ensureResponseCapacity(final int length) {
+		if (this.responseBuffer.remaining() >= length) {
+			return;
 		}
+		final ByteBuffer responseBuffer = ByteBuffer
+				.allocate(Math.max(this.responseBuffer.capacity() * 2, this.responseBuffer.position() + length));
+		this.responseBuffer.flip();
+		responseBuffer.put(this.responseBuffer);
+		this.responseBuffer = responseBuffer;
+	}
 
-		ResponseAPDU responseApdu = this.cardChannel.transmit(commandApdu);
-		if (0x6c == responseApdu.getSW1()) {
-			/*
-			 * A minimum delay of 10 msec between the answer ?????????6C xx????????? and the
-			 * next BeIDCommandAPDU is mandatory for eID v1.0 and v1.1 cards.
-			 */
-			this.logger.debug("sleeping...");
+	/*
+	 * A minimum delay of 10 msec between the answer 6C xx and the next
+	 * BeIDCommandAPDU is mandatory for eID v1.0 and v1.1 cards.
+	 */
+	private void delayAfterWrongLength() {
+		if (!isWrongLengthDelayRequired()) {
+			return;
+		}
+		this.logger.debug("sleeping...");
+		try {
+			Thread.sleep(10);
+		} catch (final InterruptedException e) {
+			throw new RuntimeException("cannot sleep");
+		}
+	}
+
+	/*
+	 * Reads the applet version after the first exchange that got a 6C xx
+	 * answer, so later 6C xx answers of newer cards go without delay. Only
+	 * called once that exchange is complete, as the card discards a pending
+	 * response as soon as it receives another command.
+	 */
+	private void readAppletVersionIfNeeded() {
+		if (this.appletVersion < 0 && isWrongLengthDelayRequired()) {
+			readAppletVersion();
+		}
+	}
+
+	/*
+	 * Only eID v1.0 and v1.1 cards require a delay after a 6Cxx response. Applet
+	 * 1.8 cards are recognized by their ATR. Other cards are treated as v1.0 or
+	 * v1.1 cards until their card data tells otherwise.
+	 */
+	private boolean isWrongLengthDelayRequired() {
+		if (isEC()) {
+			return false;
+		}
+		return this.appletVersion < 0x17;
+	}
+
+	/*
+	 * Reads the applet version from the card data. This runs with the per-card
+	 * buffers still holding the response of the exchange, so the GET CARD DATA
+	 * command goes straight to the card channel. Cards that do not tell keep the
+	 * wrong length delay.
+	 */
+	private void readAppletVersion() {
+		this.appletVersion = 0;
+		final BeIDCommandAPDU apdu = BeIDCommandAPDU.GET_CARD_DATA;
+		int le = 0xff;
+		try {
+			for (int attempt = 0; attempt < 2; attempt++) {
+				final ResponseAPDU responseApdu = transmitChannel(
+						new CommandAPDU(apdu.getCla(), apdu.getIns(), apdu.getP1(), apdu.getP2(), le));
+				if (0x6C == responseApdu.getSW1()) {
+					delayAfterWrongLength();
+					le = 0 == responseApdu.getSW2() ? 0x100 : responseApdu.getSW2();
+					continue;
+				}
+				final byte[] cardData = responseApdu.getData();
+				if (0x9000 == responseApdu.getSW() && cardData.length > APPLET_VERSION_OFFSET) {
+					this.appletVersion = cardData[APPLET_VERSION_OFFSET] & 0xff;
+				}
+				break;
+			}
+		} catch (final CardException e) {
+			this.logger.debug("cannot read the applet version: " + e.getMessage());
+		}
+		this.logger.debug("applet version: " + Integer.toHexString(this.appletVersion));
+	}
+
+	/*
+	 * Transmits the command APDU as-is, retrying only when the PC/SC subsystem
+	 * reports a sharing violation.
+	 */
+	private ResponseAPDU transmitChannel(final CommandAPDU commandApdu) throws CardException {
+		int retry = 0;
+		while (true) {
 			try {
-				Thread.sleep(10);
-			} catch (final InterruptedException e) {
-				throw new RuntimeException("cannot sleep");
-			}
-			CommandAPDU newCommandApdu = new CommandAPDU(commandApdu.getCLA(), commandApdu.getINS(),
-					commandApdu.getP1(), commandApdu.getP2(), commandApdu.getData(), responseApdu.getSW2());
-			responseApdu = transmit(newCommandApdu, attempt + 1);
-		} else if (0x61 == responseApdu.getSW1()) {
-			/*
-			 * Issue a GET RESPONSE command to retrieve the remaining data.
-			 */
-			int le = responseApdu.getSW2();
-			if (le == 0) {
-				le = 0xff;
+				return this.cardChannel.transmit(commandApdu);
+			} catch (final CardException e) {
+				cardErrorOccurred(e);
+				handleSharingViolation(e, retry++);
 			}
-			CommandAPDU newCommandApdu = new CommandAPDU(0x00, 0xC0, 0x00, 0x00, le);
-			ResponseAPDU newResponseApdu = transmit(newCommandApdu, attempt + 1);
+		}
+	}
 
-			/*
-			 * Combine the previously received data with the new response.
-			 */
-			byte[] oldData = responseApdu.getData();
-			byte[] newResponse = newResponseApdu.getBytes();
-			byte[] combined = new byte[oldData.length + newResponse.length];
-			System.arraycopy(oldData, 0, combined, 0, oldData.length);
-			System.arraycopy(newResponse, 0, combined, oldData.length, newResponse.length);
-			responseApdu = new ResponseAPDU(combined);
+	/*
+	 * Transmits the command in the given buffer, retrying only when the PC/SC
+	 * subsystem reports a sharing violation.
+	 */
+	private int transmitChannel(final ByteBuffer command, final ByteBuffer response) throws CardException {
+		final int commandPosition = command.position();
+		final int responsePosition = response.position();
+		int retry = 0;
+		while (true) {
+			try {
+				return this.cardChannel.transmit(command, response);
+			} catch (final CardException e) {
+				cardErrorOccurred(e);
+				handleSharingViolation(e, retry++);
+				command.position(commandPosition);
+				response.position(responsePosition);
+			}
+		}
+	}
+
+	/*
+	 * Forgets the card state after a card error. After a reset of the card, its
+	 * PIN cache is empty, unless the PIN was verified again since, so nothing is
+	 * known about it anymore.
+	 */
+	private void cardErrorOccurred(final CardException cardException) {
+		invalidateCardState();
+		Throwable throwable = cardException;
+		while (null != throwable) {
+			final String message = throwable.getMessage();
+			if (null != message && message.contains("SCARD_W_RESET_CARD")) {
+				this.logger.debug("card reset");
+				this.pinState = PinState.UNKNOWN;
+				return;
+			}
+			throwable = throwable.getCause();
+		}
+	}
+
+	/*
+	 * Rethrows the given exception unless it is a sharing violation that may be
+	 * retried, in which case this backs off before returning.
+	 */
+	private void handleSharingViolation(final CardException cardException, final int retry) throws CardException {
+		if (!this.sharingViolationStrategy.isSharingViolation(cardException)
+				|| !this.sharingViolationStrategy.shouldRetry(retry)) {
+			throw cardException;
+		}
+		final String cardTerminalName = null == this.cardTerminal ? null : this.cardTerminal.getName();
+		this.sharingViolationStrategy.sharingViolationOccurred(cardTerminalName);
+		final long delay = this.sharingViolationStrategy.getDelay(retry);
+		this.logger.debug("sharing violation, retrying in " + delay + " ms");
+		try {
+			Thread.sleep(delay);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw cardException;
 		}
-		return responseApdu;
 	}
 
 	// ===========================================================================================================
@@ -1356,6 +3142,18 @@ public class BeIDCard {
 		}
 	}
 
+	private void notifyPINPadKey(final PINPadKey key) {
+		synchronized (this.pinPadListeners) {
+			for (PINPadListener listener : this.pinPadListeners) {
+				try {
+					listener.notifyPINPadKey(key);
+				} catch (final Exception ex) {
+					this.logger.debug("Exception Thrown In PINPadListener.notifyPINPadKey():" + ex.getMessage());
+				}
+			}
+		}
+	}
+
 	// ===========================================================================================================
 	// various PIN-related implementations
 	// ===========================================================================================================
@@ -1380,6 +3178,7 @@ public class BeIDCard {
 			}
 
 			if (0x9000 != responseApdu.getSW()) {
+				this.pinState = PinState.NOT_VERIFIED;
 				this.logger.debug("VERIFY_PIN error");
 				this.logger.debug("SW: " + Integer.toHexString(responseApdu.getSW()));
 				if (0x6983 == responseApdu.getSW()) {
@@ -1394,6 +3193,7 @@ public class BeIDCard {
 				this.logger.debug("retries left: " + retriesLeft);
 			}
 		} while (0x9000 != responseApdu.getSW());
+		this.pinState = PinState.VERIFIED;
 	}
 
 	/*
@@ -1434,7 +3234,7 @@ public class BeIDCard {
 		try {
 			this.transmitCCIDControl(getCCID().usesPPDU(), CCID.FEATURE.VERIFY_PIN_START,
 					getCCID().createPINVerificationDataStructure(this.getLocale(), CCID.INS.VERIFY_PIN));
-			getCCID().waitForOK();
+			getCCID().waitForOK(this::notifyPINPadKey);
 		} finally {
 			getUI().advisePINPadOperationEnd();
 		}
@@ -1455,12 +3255,17 @@ public class BeIDCard {
 	private ResponseAPDU verifyPINViaUI(final int retriesLeft, final PINPurpose purpose, final String applicationName)
 			throws CardException, UserCancelledException {
 		final boolean windows = this.isWindows();
+		int exclusiveAccessDepth = -1;
 		if (windows) {
-			this.endExclusive();
+			exclusiveAccessDepth = this.suspendExclusive();
 		}
-		final char[] pin = getUI().obtainPIN(retriesLeft, purpose, applicationName);
-		if (windows) {
-			this.beginExclusive();
+		final char[] pin;
+		try {
+			pin = getUI().obtainPIN(retriesLeft, purpose, applicationName);
+		} finally {
+			if (windows) {
+				this.resumeExclusive(exclusiveAccessDepth);
+			}
 		}
 		final byte[] verifyData = new byte[] { (byte) (0x20 | pin.length), (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
 				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, };
@@ -1531,17 +3336,17 @@ public class BeIDCard {
 		try {
 			this.logger.debug("enter old PIN...");
 			getUI().advisePINPadOldPINEntry(retriesLeft);
-			getCCID().waitForOK();
+			getCCID().waitForOK(this::notifyPINPadKey);
 			getUI().advisePINPadOperationEnd();
 
 			this.logger.debug("enter new PIN...");
 			getUI().advisePINPadNewPINEntry(retriesLeft);
-			getCCID().waitForOK();
+			getCCID().waitForOK(this::notifyPINPadKey);
 			getUI().advisePINPadOperationEnd();
 
 			this.logger.debug("enter new PIN again...");
 			getUI().advisePINPadNewPINEntryAgain(retriesLeft);
-			getCCID().waitForOK();
+			getCCID().waitForOK(this::notifyPINPadKey);
 		} finally {
 			getUI().advisePINPadOperationEnd();
 		}
@@ -1660,6 +3465,8 @@ public class BeIDCard {
 	private CCID getCCID() {
 		if (this.ccid == null) {
 			this.ccid = new CCID(this.card, this.cardTerminal, this.logger);
+			this.ccid.setPolling(this.pinPadMinimumPollInterval, this.pinPadMaximumPollInterval,
+					this.pinPadDeadline);
 		}
 		return this.ccid;
 	}
@@ -1750,6 +3557,168 @@ public class BeIDCard {
 		return der;
 	}
 
+	/*
+	 * InputStream on the currently selected file, issuing a READ BINARY whenever
+	 * the previous block has been consumed.
+	 */
+	private final class CardFileInputStream extends InputStream {
+
+		private final FileType fileType;
+		private final int fileSize;
+		private final Thread owner;
+		private byte[] block;
+		private int blockOffset;
+		private int offset;
+		private boolean endOfFile;
+		private boolean closed;
+
+		CardFileInputStream(final FileType fileType, final int fileSize) {
+			this.fileType = fileType;
+			this.fileSize = fileSize;
+			this.owner = Thread.currentThread();
+			this.block = new byte[0];
+			this.endOfFile = 0 == fileSize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			return this.block[this.blockOffset++] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int bufferOffset, final int length) throws IOException {
+			if (0 == length) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			final int count = Math.min(length, this.block.length - this.blockOffset);
+			System.arraycopy(this.block, this.blockOffset, buffer, bufferOffset, count);
+			this.blockOffset += count;
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (this.closed) {
+				return 0;
+			}
+			return this.block.length - this.blockOffset;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.closed) {
+				return;
+			}
+			if (Thread.currentThread() != this.owner) {
+				throw new IllegalStateException("card file stream can only be closed by the thread that opened it");
+			}
+			this.closed = true;
+			this.block = new byte[0];
+			this.blockOffset = 0;
+			notifyReadProgress(this.fileType, this.offset, this.offset);
+			try {
+				endExclusive();
+			} catch (final CardException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private boolean fill() throws IOException {
+			if (this.closed) {
+				throw new IOException("stream closed");
+			}
+			if (this.blockOffset < this.block.length) {
+				return true;
+			}
+			if (this.endOfFile) {
+				return false;
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				logger.debug("interrupted in readBinary");
+				throw new InterruptedIOException();
+			}
+
+			int blockSize = getReadBlockSize();
+			notifyReadProgress(this.fileType, this.offset,
+					this.fileSize >= 0 ? this.fileSize : this.fileType.getEstimatedMaxSize());
+			final ResponseAPDU responseApdu;
+			try {
+				/*
+				 * The owning thread may have selected another file in between, e.g. by
+				 * a nested readFile; READ BINARY would then read from that file.
+				 */
+				selectFileIfNeeded(this.fileType.getFileId());
+				ResponseAPDU probeResponseApdu = null;
+				if (0 == this.offset && BLOCK_SIZE == blockSize && isReadBlockSizeProbeNeeded(
+						this.fileSize >= 0 ? this.fileSize : this.fileType.getEstimatedMaxSize())) {
+					probeResponseApdu = probeReadBlockSize();
+					blockSize = getReadBlockSize();
+				}
+				if (null == probeResponseApdu) {
+					final int le = this.fileSize >= 0 ? Math.min(blockSize, this.fileSize - this.offset) : blockSize;
+					responseApdu = transmitCommand(BeIDCommandAPDU.READ_BINARY, this.offset >> 8, this.offset & 0xFF,
+							le);
+				} else {
+					responseApdu = probeResponseApdu;
+				}
+			} catch (final CardException e) {
+				throw new IOException(e);
+			}
+
+			final int sw = responseApdu.getSW();
+			if (0x6B00 == sw) {
+				this.endOfFile = true;
+				return false;
+			}
+			if (0x9000 != sw) {
+				throw new IOException("BeIDCommandAPDU response error: " + sw, new ResponseAPDUException(responseApdu));
+			}
+
+			byte[] data = responseApdu.getData();
+			if (this.fileSize >= 0 && data.length > this.fileSize - this.offset) {
+				data = Arrays.copyOf(data, this.fileSize - this.offset);
+			}
+			this.block = data;
+			this.blockOffset = 0;
+			this.offset += data.length;
+			if (blockSize != data.length || this.offset == this.fileSize) {
+				this.endOfFile = true;
+			}
+			return 0 != data.length;
+		}
+	}
+
+	/*
+	 * What is known about the PIN cache of the card. Right after connecting to a
+	 * card, the PIN might still be cached from an earlier connection.
+	 */
+	private enum PinState {
+		UNKNOWN, VERIFIED, NOT_VERIFIED
+	}
+
+	/*
+	 * The data read so far from a file when an error interrupted the read.
+	 */
+	private static final class ReadCheckpoint {
+		private final byte[] data;
+		private final long created;
+
+		ReadCheckpoint(final byte[] data) {
+			this.data = data;
+			this.created = System.currentTimeMillis();
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() - this.created > READ_CHECKPOINT_TIMEOUT;
+		}
+	}
+
 	/*
 	 * BeIDCommandAPDU encapsulates values sent in CommandAPDU's, to make these more
 	 * readable in BeIDCard.
@@ -1759,6 +3728,12 @@ public class BeIDCard {
 
 		SELECT_FILE(0x00, 0xA4, 0x08, 0x0C),
 
+		SELECT_FILE_FCI(0x00, 0xA4, 0x08, 0x00),
+
+		SELECT_EF(0x00, 0xA4, 0x02, 0x0C),
+
+		SELECT_EF_FCI(0x00, 0xA4, 0x02, 0x00),
+
 		READ_BINARY(0x00, 0xB0),
 
 		VERIFY_PIN(0x00, 0x20, 0x00, 0x01),
@@ -0,0 +1,202 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import be.fedict.commons.eid.client.impl.BeIDDigest;
+
+/**
+ * Asynchronous facade on a {@link BeIDCard}. All operations are run on a serial
+ * executor dedicated to the card, so the calling thread is not blocked during
+ * the card I/O. Cancelling a returned future interrupts the running operation,
+ * which aborts file reads in between two READ BINARY commands.
+ * 
+ * Usage:
+ * 
+ * <pre>
+ * BeIDCardAsync beIDCardAsync = new BeIDCardAsync(beIDCard);
+ * beIDCardAsync.readFileAsync(FileType.Identity).thenAccept(identityFile -&gt; ...);
+ * ...
+ * beIDCardAsync.close();
+ * </pre>
+ */
+public class BeIDCardAsync implements AutoCloseable {
+
+	private final BeIDCard beIDCard;
+
+	private final ExecutorService executorService;
+
+	private final boolean ownExecutorService;
+
+	/**
+	 * Creates an asynchronous facade using a dedicated single thread executor.
+	 * 
+	 * @param beIDCard
+	 */
+	public BeIDCardAsync(final BeIDCard beIDCard) {
+		this.beIDCard = beIDCard;
+		this.executorService = Executors.newSingleThreadExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "BeIDCardAsync");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.ownExecutorService = true;
+	}
+
+	/**
+	 * Creates an asynchronous facade using the given executor. The executor
+	 * should run its tasks one at a time, like a single thread executor, and is
+	 * not shut down on close.
+	 * 
+	 * @param beIDCard
+	 * @param executorService
+	 */
+	public BeIDCardAsync(final BeIDCard beIDCard, final ExecutorService executorService) {
+		this.beIDCard = beIDCard;
+		this.executorService = executorService;
+		this.ownExecutorService = false;
+	}
+
+	public BeIDCard getBeIDCard() {
+		return this.beIDCard;
+	}
+
+	/**
+	 * See {@link BeIDCard#readFile(FileType)}.
+	 * 
+	 * @param fileType
+	 * @return
+	 */
+	public CompletableFuture<byte[]> readFileAsync(final FileType fileType) {
+		return submit(() -> this.beIDCard.readFile(fileType));
+	}
+
+	/**
+	 * See {@link BeIDCard#getCertificateChain(FileType)}.
+	 * 
+	 * @param fileType
+	 * @return
+	 */
+	public CompletableFuture<List<X509Certificate>> getCertificateChainAsync(final FileType fileType) {
+		return submit(() -> this.beIDCard.getCertificateChain(fileType));
+	}
+
+	/**
+	 * See {@link BeIDCard#sign(byte[], BeIDDigest, FileType, boolean, String)}.
+	 * 
+	 * @param digestValue
+	 * @param digestAlgo
+	 * @param fileType
+	 * @param requireSecureReader
+	 * @param applicationName
+	 * @return
+	 */
+	public CompletableFuture<byte[]> signAsync(final byte[] digestValue, final BeIDDigest digestAlgo,
+			final FileType fileType, final boolean requireSecureReader, final String applicationName) {
+		return submit(
+				() -> this.beIDCard.sign(digestValue, digestAlgo, fileType, requireSecureReader, applicationName));
+	}
+
+	/**
+	 * See {@link BeIDCard#getChallenge(int)}.
+	 * 
+	 * @param size
+	 * @return
+	 */
+	public CompletableFuture<byte[]> getChallengeAsync(final int size) {
+		return submit(() -> this.beIDCard.getChallenge(size));
+	}
+
+	/**
+	 * See {@link BeIDCard#internalAuthenticate(byte[])}.
+	 * 
+	 * @param challenge
+	 * @return
+	 */
+	public CompletableFuture<byte[]> internalAuthenticateAsync(final byte[] challenge) {
+		return submit(() -> this.beIDCard.internalAuthenticate(challenge));
+	}
+
+	/**
+	 * Shuts down the dedicated executor, if any. Pending operations are still
+	 * run.
+	 */
+	@Override
+	public void close() {
+		if (this.ownExecutorService) {
+			this.executorService.shutdown();
+		}
+	}
+
+	private <T> CompletableFuture<T> submit(final CardOperation<T> cardOperation) {
+		final CardFuture<T> future = new CardFuture<>();
+		this.executorService.execute(() -> future.run(cardOperation));
+		return future;
+	}
+
+	private interface CardOperation<T> {
+		T execute() throws Exception;
+	}
+
+	/*
+	 * Maps cancellation onto an interrupt of the thread running the operation.
+	 */
+	private static final class CardFuture<T> extends CompletableFuture<T> {
+
+		private Thread thread;
+
+		void run(final CardOperation<T> cardOperation) {
+			synchronized (this) {
+				if (isDone()) {
+					return;
+				}
+				this.thread = Thread.currentThread();
+			}
+			try {
+				complete(cardOperation.execute());
+			} catch (final Throwable e) {
+				completeExceptionally(e);
+			} finally {
+				synchronized (this) {
+					this.thread = null;
+				}
+				// do not leak a cancellation into the next operation
+				Thread.interrupted();
+			}
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			final boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				synchronized (this) {
+					if (null != this.thread) {
+						this.thread.interrupt();
+					}
+				}
+			}
+			return cancelled;
+		}
+	}
+}
@@ -35,7 +35,10 @@ import javax.smartcardio.CardTerminal;
 import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
 import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
 import be.fedict.commons.eid.client.event.CardEventsListener;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+import be.fedict.commons.eid.client.impl.BeIDCardEventPublisher;
 import be.fedict.commons.eid.client.impl.LocaleManager;
+import be.fedict.commons.eid.client.impl.ProtocolStrategy;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.Logger;
 
@@ -75,7 +78,13 @@ public class BeIDCardManager {
 	private final Map<CardTerminal, BeIDCard> terminalsAndCards;
 	private final Set<BeIDCardEventsListener> beIdListeners;
 	private final Set<CardEventsListener> otherCardListeners;
+	/*
+	 * Never subscribed to: keeps the state to bring the publishers up to date,
+	 * and forwards the events to them.
+	 */
+	private final BeIDCardEventPublisher eventPublishers;
 	private final Logger logger;
+	private ProtocolStrategy protocolStrategy;
 
 	/**
 	 * Instantiate a BeIDCardManager with a default (void) logger and a private
@@ -129,7 +138,10 @@ public class BeIDCardManager {
 		this.logger = logger;
 		this.beIdListeners = new HashSet<>();
 		this.otherCardListeners = new HashSet<>();
+		this.eventPublishers = new BeIDCardEventPublisher(1, OverflowPolicy.DROP_OLDEST, null);
+		this.beIdListeners.add(this.eventPublishers);
 		this.terminalsAndCards = new HashMap<>();
+		this.protocolStrategy = BeIDCard.DEFAULT_PROTOCOL_STRATEGY;
 
 		this.cardAndTerminalManager = cardAndTerminalManager;
 		this.terminalManagerIsPrivate = terminalManagerIsPrivate;
@@ -267,6 +279,38 @@ public class BeIDCardManager {
 		return this;
 	}
 
+	/**
+	 * Create and register a publisher for the BeID card events, as an alternative
+	 * to registering a BeIDCardEventsListener. Every subscriber has its own buffer
+	 * of the given capacity, and starts with the BeID cards already inserted and
+	 * the INITIALIZED event, as far as known, also when the publisher is created
+	 * after {@link #start()}. Note that with {@link OverflowPolicy#BLOCK} a slow
+	 * subscriber holds up the events of all card terminals.
+	 * 
+	 * @param capacity       the buffer capacity per subscriber
+	 * @param overflowPolicy what to do when the buffer of a subscriber is full
+	 * @return the publisher, to subscribe to
+	 */
+	public BeIDCardEventPublisher createEventPublisher(final int capacity, final OverflowPolicy overflowPolicy) {
+		final BeIDCardEventPublisher publisher = new BeIDCardEventPublisher(capacity, overflowPolicy, null);
+		this.eventPublishers.addPublisher(publisher);
+		return publisher;
+	}
+
+	/**
+	 * Unregister a publisher created by
+	 * {@link #createEventPublisher(int, OverflowPolicy)}, and complete its
+	 * subscribers.
+	 * 
+	 * @param publisher the publisher to be unregistered
+	 * @return this BeIDCardManager to allow for method chaining
+	 */
+	public BeIDCardManager removeEventPublisher(final BeIDCardEventPublisher publisher) {
+		this.eventPublishers.removePublisher(publisher);
+		publisher.close();
+		return this;
+	}
+
 	/**
 	 * add a CardEventsListener to be notified of non-BeID cards being inserted and
 	 * removed. Note that this is the same interface as in
@@ -352,6 +396,30 @@ public class BeIDCardManager {
 		return Arrays.equals(atrBytes, ATR_PATTERN);
 	}
 
+	/**
+	 * @return the strategy used to select the card protocol when (re)connecting
+	 *         to eID cards.
+	 */
+	public ProtocolStrategy getProtocolStrategy() {
+		return this.protocolStrategy;
+	}
+
+	/**
+	 * Set the strategy used to select the card protocol when (re)connecting to
+	 * eID cards. If this BeIDCardManager created its own CardAndTerminalManager,
+	 * that one uses the strategy as well.
+	 * 
+	 * @param protocolStrategy
+	 * @return this BeIDCardManager, to allow method chaining
+	 */
+	public BeIDCardManager setProtocolStrategy(final ProtocolStrategy protocolStrategy) {
+		this.protocolStrategy = protocolStrategy;
+		if (this.terminalManagerIsPrivate) {
+			this.cardAndTerminalManager.setProtocolStrategy(protocolStrategy);
+		}
+		return this;
+	}
+
 	public BeIDCardManager setLocale(Locale newLocale) {
 		LocaleManager.setLocale(newLocale);
 		return this;
@@ -377,7 +445,7 @@ public class BeIDCardManager {
 					beIDCard.close();
 					CardTerminal cardTerminal = terminalsAndCard.getKey();
 					try {
-						BeIDCard newBeIDCard = createBeIDCard(cardTerminal, cardTerminal.connect("T=0"));
+						BeIDCard newBeIDCard = createBeIDCard(cardTerminal, this.protocolStrategy.connect(cardTerminal));
 						terminalsAndCard.setValue(newBeIDCard);
 						notifyEIDCardInserted(cardTerminal, newBeIDCard);
 					} catch (CardException e1) {
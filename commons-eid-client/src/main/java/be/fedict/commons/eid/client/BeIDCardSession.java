@@ -0,0 +1,54 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import javax.smartcardio.CardException;
+
+/**
+ * A card session, as opened by {@link BeIDCard#session()}. While open, all
+ * high-level BeIDCard methods called by the owning thread run within the
+ * single exclusive transaction of the session.
+ */
+public final class BeIDCardSession implements AutoCloseable {
+
+	private final BeIDCard beIDCard;
+
+	private boolean closed;
+
+	BeIDCardSession(final BeIDCard beIDCard) {
+		this.beIDCard = beIDCard;
+	}
+
+	public BeIDCard getCard() {
+		return this.beIDCard;
+	}
+
+	/**
+	 * Leaves the exclusive transaction of this session. Closing an already
+	 * closed session has no effect.
+	 */
+	@Override
+	public void close() throws CardException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.beIDCard.endExclusive();
+	}
+}
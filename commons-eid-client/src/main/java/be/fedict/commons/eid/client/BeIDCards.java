@@ -31,6 +31,7 @@ import be.fedict.commons.eid.client.CardAndTerminalManager.PROTOCOL;
 import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
 import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
 import be.fedict.commons.eid.client.impl.LocaleManager;
+import be.fedict.commons.eid.client.impl.ProtocolStrategy;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.BeIDCardsUI;
 import be.fedict.commons.eid.client.spi.Logger;
@@ -373,6 +374,19 @@ public class BeIDCards {
 		return this;
 	}
 
+	/**
+	 * Set the strategy used to select the card protocol when connecting to eID
+	 * cards, for instance to try T=1 first, instead of always using T=0.
+	 * 
+	 * @param protocolStrategy
+	 * @return this BeIDCards, to allow method chaining
+	 */
+	public BeIDCards setProtocolStrategy(final ProtocolStrategy protocolStrategy) {
+		this.cardAndTerminalManager.setProtocolStrategy(protocolStrategy);
+		this.cardManager.setProtocolStrategy(protocolStrategy);
+		return this;
+	}
+
 	/**
 	 * Set the Locale to use for subsequent UI operations. BeIDCards and
 	 * BeIDCardManager share the same global Locale, so this will impact all
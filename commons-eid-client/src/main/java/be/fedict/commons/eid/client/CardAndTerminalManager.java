@@ -29,8 +29,21 @@
  */
 package be.fedict.commons.eid.client;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.smartcardio.Card;
 import javax.smartcardio.CardException;
@@ -40,8 +53,13 @@ import javax.smartcardio.CardTerminals.State;
 
 import be.fedict.commons.eid.client.event.CardEventsListener;
 import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+import be.fedict.commons.eid.client.impl.CCIDFeatureCache;
+import be.fedict.commons.eid.client.impl.CardEventPublisher;
 import be.fedict.commons.eid.client.impl.CardTerminalsProxy;
 import be.fedict.commons.eid.client.impl.LibJ2PCSCGNULinuxFix;
+import be.fedict.commons.eid.client.impl.PrefixMatcher;
+import be.fedict.commons.eid.client.impl.ProtocolStrategy;
 import be.fedict.commons.eid.client.impl.VoidLogger;
 import be.fedict.commons.eid.client.spi.Logger;
 
@@ -57,22 +75,60 @@ import be.fedict.commons.eid.client.spi.Logger;
  * Note that at the level of CardAndTerminalManager there is no distinction
  * between types of cards or terminals: They are merely reported using the
  * standard javax.smartcardio classes.
+ * <p>
+ * By default, the PCSC subsystem is polled: after every event or delay, all
+ * terminals are listed and checked for cards. In event driven mode (see
+ * {@link #setEventDriven(boolean)}), every attached CardTerminal gets a watcher
+ * thread blocking on card insertion or removal, and the terminals are only
+ * listed periodically to detect attaches and detaches. All listeners are still
+ * called from the single worker thread, unless the terminals are sharded over
+ * several workers (see {@link #setWorkers(int)}).
  * 
  * @author Frank Marien
  * 
  */
 public class CardAndTerminalManager implements Runnable {
 	private static final int DEFAULT_DELAY = 250;
+	private static final int DEFAULT_TERMINAL_SCAN_DELAY = 1000;
+	private static final int DEFAULT_MINIMUM_DELAY = 50;
+	private static final int DEFAULT_MAXIMUM_DELAY = 1000;
+	private static final int DEFAULT_MAXIMUM_ERROR_DELAY = 30000;
 	private boolean running, subSystemInitialized, autoconnect;
 	private Thread worker;
 	private Set<CardTerminal> terminalsPresent, terminalsWithCards;
 	private final CardTerminals cardTerminals;
 	private final Set<String> terminalsToIgnoreCardEventsFor;
+	private volatile PrefixMatcher ignoredTerminalsMatcher;
+	/*
+	 * Polling mode state, per terminal index, so that an unchanged state can be
+	 * detected without allocating.
+	 */
+	private final Map<String, Integer> terminalIndices;
+	private final List<CardTerminal> terminalsByIndex;
+	private final BitSet freeTerminalIndices;
+	private final BitSet terminalBits, cardBits, currentTerminalBits, currentCardBits;
 	private final Set<CardTerminalEventsListener> cardTerminalEventsListeners;
 	private final Set<CardEventsListener> cardEventsListeners;
+	/*
+	 * Never subscribed to: keeps the state to bring the publishers up to date,
+	 * and forwards the events to them.
+	 */
+	private final CardEventPublisher eventPublishers;
 	private int delay;
+	private boolean adaptiveDelay;
+	private int minimumDelay, maximumDelay, maximumErrorDelay;
+	private volatile int effectiveDelay;
+	private int consecutiveErrors;
 	private final Logger logger;
 	private PROTOCOL protocol;
+	private ProtocolStrategy protocolStrategy;
+	private boolean eventDriven;
+	private int terminalScanDelay;
+	private long nextTerminalScan;
+	private final Map<CardTerminal, CardTerminalWatcher> cardTerminalWatchers;
+	private final BlockingQueue<CardPresenceEvent> cardPresenceEvents;
+	private int workers;
+	private CardEventsShard[] shards;
 
 	public enum PROTOCOL {
 		T0("T=0"),
@@ -146,13 +202,32 @@ public class CardAndTerminalManager implements Runnable {
 
 		this.cardTerminalEventsListeners = new HashSet<>();
 		this.cardEventsListeners = new HashSet<>();
+		this.eventPublishers = new CardEventPublisher(1, OverflowPolicy.DROP_OLDEST, null);
+		this.cardTerminalEventsListeners.add(this.eventPublishers);
+		this.cardEventsListeners.add(this.eventPublishers);
 		this.terminalsToIgnoreCardEventsFor = new HashSet<>();
+		this.ignoredTerminalsMatcher = new PrefixMatcher(this.terminalsToIgnoreCardEventsFor);
+		this.terminalIndices = new HashMap<>();
+		this.terminalsByIndex = new ArrayList<>();
+		this.freeTerminalIndices = new BitSet();
+		this.terminalBits = new BitSet();
+		this.cardBits = new BitSet();
+		this.currentTerminalBits = new BitSet();
+		this.currentCardBits = new BitSet();
 		this.delay = DEFAULT_DELAY;
+		this.effectiveDelay = DEFAULT_DELAY;
+		this.minimumDelay = DEFAULT_MINIMUM_DELAY;
+		this.maximumDelay = DEFAULT_MAXIMUM_DELAY;
+		this.maximumErrorDelay = DEFAULT_MAXIMUM_ERROR_DELAY;
 		this.logger = logger;
 		this.running = false;
 		this.subSystemInitialized = false;
 		this.autoconnect = true;
 		this.protocol = PROTOCOL.ANY;
+		this.terminalScanDelay = DEFAULT_TERMINAL_SCAN_DELAY;
+		this.cardTerminalWatchers = new HashMap<>();
+		this.cardPresenceEvents = new LinkedBlockingQueue<>();
+		this.workers = 1;
 
 		if (cardTerminals == null) {
 			this.cardTerminals = CardTerminalsProxy.getCardTerminals(logger);
@@ -244,6 +319,44 @@ public class CardAndTerminalManager implements Runnable {
 		return this;
 	}
 
+	/**
+	 * Create and register a publisher for the card terminal and card events, as an
+	 * alternative to registering listeners. Every subscriber has its own buffer of
+	 * the given capacity, and starts with the initial situation as far as known:
+	 * the terminals attached, the TERMINAL_EVENTS_INITIALIZED event, the cards
+	 * inserted and the CARD_EVENTS_INITIALIZED event, also when the publisher is
+	 * created after {@link #start()}.
+	 * <p>
+	 * Note that with {@link OverflowPolicy#BLOCK} a slow subscriber holds up
+	 * event detection. The publishers are called one event at a time, so when
+	 * the CardTerminals are sharded over several workers (see
+	 * {@link #setWorkers(int)}), a slow subscriber blocks the events of all
+	 * shards, not only those of its own CardTerminals.
+	 * 
+	 * @param capacity       the buffer capacity per subscriber
+	 * @param overflowPolicy what to do when the buffer of a subscriber is full
+	 * @return the publisher, to subscribe to
+	 */
+	public CardEventPublisher createEventPublisher(final int capacity, final OverflowPolicy overflowPolicy) {
+		final CardEventPublisher publisher = new CardEventPublisher(capacity, overflowPolicy, null);
+		this.eventPublishers.addPublisher(publisher);
+		return publisher;
+	}
+
+	/**
+	 * Unregister a publisher created by
+	 * {@link #createEventPublisher(int, OverflowPolicy)}, and complete its
+	 * subscribers.
+	 * 
+	 * @param publisher the publisher to be unregistered
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager removeEventPublisher(final CardEventPublisher publisher) {
+		this.eventPublishers.removePublisher(publisher);
+		publisher.close();
+		return this;
+	}
+
 	// -----------------------------------------------------------------------
 
 	/**
@@ -260,6 +373,7 @@ public class CardAndTerminalManager implements Runnable {
 	public CardAndTerminalManager ignoreCardEventsFor(final String terminalName) {
 		synchronized (this.terminalsToIgnoreCardEventsFor) {
 			this.terminalsToIgnoreCardEventsFor.add(terminalName);
+			this.ignoredTerminalsMatcher = new PrefixMatcher(this.terminalsToIgnoreCardEventsFor);
 		}
 		return this;
 	}
@@ -275,6 +389,7 @@ public class CardAndTerminalManager implements Runnable {
 	public CardAndTerminalManager acceptCardEventsFor(final String terminalName) {
 		synchronized (this.terminalsToIgnoreCardEventsFor) {
 			this.terminalsToIgnoreCardEventsFor.remove(terminalName);
+			this.ignoredTerminalsMatcher = new PrefixMatcher(this.terminalsToIgnoreCardEventsFor);
 		}
 		return this;
 	}
@@ -312,16 +427,77 @@ public class CardAndTerminalManager implements Runnable {
 	 * of newDelay milliseconds for new events to be received, before issuing a new
 	 * call to the PCSC subsystem. The higher this number, the less CPU this
 	 * CardAndTerminalsManager will take, but the greater the chance that terminal
-	 * attach/detach events will be noticed late.
+	 * attach/detach events will be noticed late. This disables the adaptive delay.
 	 * 
 	 * @param newDelay the new delay to trust the PCSC subsystem for
 	 * @return this CardAndTerminalManager to allow for method chaining.
 	 */
 	public CardAndTerminalManager setDelay(final int newDelay) {
 		this.delay = newDelay;
+		this.adaptiveDelay = false;
+		this.effectiveDelay = newDelay;
+		return this;
+	}
+
+	/**
+	 * Use an adaptive PCSC polling delay. Right after a terminal or card event the
+	 * minimum delay is used, and while idle the delay doubles on every poll up to
+	 * the maximum delay. When the PCSC subsystem is unavailable (for example
+	 * SCARD_E_NO_SERVICE), or no card readers can be enumerated, the delay before
+	 * retrying doubles on every consecutive failure up to the maximum error delay.
+	 * 
+	 * @param newMinimumDelay      the delay after activity, in milliseconds
+	 * @param newMaximumDelay      the delay when idle, in milliseconds
+	 * @param newMaximumErrorDelay the maximum delay before retrying a failing PCSC
+	 *                             subsystem, in milliseconds
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setAdaptiveDelay(final int newMinimumDelay, final int newMaximumDelay,
+			final int newMaximumErrorDelay) {
+		if (newMinimumDelay < 1 || newMaximumDelay < newMinimumDelay || newMaximumErrorDelay < newMaximumDelay) {
+			throw new IllegalArgumentException("invalid delay bounds");
+		}
+		this.minimumDelay = newMinimumDelay;
+		this.maximumDelay = newMaximumDelay;
+		this.maximumErrorDelay = newMaximumErrorDelay;
+		this.adaptiveDelay = true;
+		this.effectiveDelay = newMinimumDelay;
 		return this;
 	}
 
+	/**
+	 * Return whether the PCSC polling delay adapts to the activity.
+	 * 
+	 * @return whether the adaptive delay is enabled
+	 * @see #setAdaptiveDelay(int, int, int)
+	 */
+	public boolean isAdaptiveDelay() {
+		return this.adaptiveDelay;
+	}
+
+	public int getMinimumDelay() {
+		return this.minimumDelay;
+	}
+
+	public int getMaximumDelay() {
+		return this.maximumDelay;
+	}
+
+	public int getMaximumErrorDelay() {
+		return this.maximumErrorDelay;
+	}
+
+	/**
+	 * Returns the PCSC polling delay, or the delay before retrying a failing PCSC
+	 * subsystem, that is currently in effect. With a fixed delay, this is the
+	 * delay. Intended for monitoring.
+	 * 
+	 * @return the effective delay in milliseconds
+	 */
+	public int getEffectiveDelay() {
+		return this.effectiveDelay;
+	}
+
 	/**
 	 * Return whether this CardAndTerminalsManager will automatically connect() to
 	 * any cards inserted.
@@ -371,6 +547,123 @@ public class CardAndTerminalManager implements Runnable {
 		return this;
 	}
 
+	/**
+	 * return the strategy used to select the card protocol when connecting to
+	 * cards, or null if the protocol set via
+	 * {@link CardAndTerminalManager#setProtocol(PROTOCOL)} is used.
+	 * 
+	 * @return the current protocol strategy
+	 */
+	public ProtocolStrategy getProtocolStrategy() {
+		return this.protocolStrategy;
+	}
+
+	/**
+	 * Determines the strategy used to select the card protocol when connecting to
+	 * cards (if autoconnect is true). When set, it takes precedence over the
+	 * protocol set via {@link CardAndTerminalManager#setProtocol(PROTOCOL)}.
+	 * 
+	 * @param newProtocolStrategy the protocol strategy, or null.
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setProtocolStrategy(final ProtocolStrategy newProtocolStrategy) {
+		this.protocolStrategy = newProtocolStrategy;
+		return this;
+	}
+
+	/**
+	 * Return whether this CardAndTerminalManager watches every CardTerminal for
+	 * card events, instead of polling the PCSC subsystem.
+	 * 
+	 * @return whether event driven mode is enabled
+	 */
+	public boolean isEventDriven() {
+		return this.eventDriven;
+	}
+
+	/**
+	 * Set whether this CardAndTerminalManager watches every CardTerminal for card
+	 * events using a blocking wait, instead of polling the PCSC subsystem. Card
+	 * events are then noticed as they occur, while CardTerminal attaches and
+	 * detaches are noticed after at most the terminal scan delay. To be called
+	 * before {@link #start()}.
+	 * <p>
+	 * All CardTerminals of the default javax.smartcardio provider share a single
+	 * PC/SC context, and pcsc-lite serializes the calls on one context, including
+	 * the blocking SCardGetStatusChange of every watcher. On such systems each
+	 * watcher, and the terminal scan, may have to wait for the blocking waits of
+	 * the other watchers, each up to the terminal scan delay, before noticing an
+	 * event. Keep the terminal scan delay short when watching several
+	 * CardTerminals there, or stay with polling.
+	 * 
+	 * @param newEventDriven
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setEventDriven(final boolean newEventDriven) {
+		if (null != this.worker) {
+			throw new IllegalStateException("already started");
+		}
+		this.eventDriven = newEventDriven;
+		return this;
+	}
+
+	/**
+	 * Returns the number of workers calling the listeners.
+	 * 
+	 * @return the number of workers
+	 */
+	public int getWorkers() {
+		return this.workers;
+	}
+
+	/**
+	 * Shard the CardTerminals over several workers, so that a slow CardTerminal or
+	 * listener only delays the events of the CardTerminals in the same shard.
+	 * Every worker has its own thread, connects to the inserted cards and calls
+	 * the listeners for the CardTerminals assigned to it. The events of a single
+	 * CardTerminal keep their order, the events of different CardTerminals can be
+	 * delivered concurrently, so listeners have to be thread-safe. The events
+	 * themselves are still detected by a single thread: by polling all
+	 * CardTerminals at once, or, in event driven mode, by the CardTerminal
+	 * watchers and the terminal scan. To be called before {@link #start()}.
+	 * 
+	 * @param newWorkers the number of workers, 1 to not shard.
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setWorkers(final int newWorkers) {
+		if (null != this.worker) {
+			throw new IllegalStateException("already started");
+		}
+		if (newWorkers < 1) {
+			throw new IllegalArgumentException("at least one worker required");
+		}
+		this.workers = newWorkers;
+		return this;
+	}
+
+	/**
+	 * Returns the delay between two scans for attached and detached CardTerminals
+	 * in event driven mode.
+	 * 
+	 * @return the terminal scan delay in milliseconds
+	 */
+	public int getTerminalScanDelay() {
+		return this.terminalScanDelay;
+	}
+
+	/**
+	 * Set the delay between two scans for attached and detached CardTerminals in
+	 * event driven mode. This is also the maximum time a CardTerminal watcher
+	 * blocks, before checking whether it should stop.
+	 * 
+	 * @param newTerminalScanDelay the terminal scan delay in milliseconds
+	 * @return this CardAndTerminalManager to allow for method chaining.
+	 */
+	public CardAndTerminalManager setTerminalScanDelay(final int newTerminalScanDelay) {
+		this.terminalScanDelay = newTerminalScanDelay;
+		return this;
+	}
+
 	// ---------------------------
 	// Private Implementation..
 	// ---------------------------
@@ -380,11 +673,18 @@ public class CardAndTerminalManager implements Runnable {
 		this.running = true;
 		this.logger.debug("CardAndTerminalManager worker thread started.");
 
+		if (this.workers > 1) {
+			this.shards = new CardEventsShard[this.workers];
+			for (int idx = 0; idx < this.workers; idx++) {
+				this.shards[idx] = new CardEventsShard(idx);
+			}
+		}
+
 		try {
 			// do an initial run, making sure current status is detected
 			// this sends terminal attach and card insert events for this
 			// initial state to any listeners
-			handlePCSCEvents();
+			handleEvents();
 
 			// advise listeners that initial state was sent, and that any
 			// further events are relative to this
@@ -392,37 +692,99 @@ public class CardAndTerminalManager implements Runnable {
 
 			// keep updating
 			while (this.running) {
-				handlePCSCEvents();
+				handleEvents();
 			}
 		} catch (final InterruptedException iex) {
 			if (this.running) {
 				this.logger.error(
 						"CardAndTerminalManager worker thread unexpectedly interrupted: " + iex.getLocalizedMessage());
 			}
+		} finally {
+			stopCardTerminalWatchers(this.cardTerminalWatchers.keySet());
+			if (null != this.shards) {
+				for (CardEventsShard shard : this.shards) {
+					shard.shutdown();
+				}
+				this.shards = null;
+			}
 		}
 
 		this.logger.debug("CardAndTerminalManager worker thread ended.");
 	}
 
-	private void handlePCSCEvents() throws InterruptedException {
+	private void handleEvents() throws InterruptedException {
 		if (!this.subSystemInitialized) {
-			this.logger.debug("subsystem not initialized");
-			try {
-				if (this.terminalsPresent == null || this.terminalsWithCards == null) {
-					this.terminalsPresent = new HashSet<>(this.cardTerminals.list(State.ALL));
-					this.terminalsWithCards = terminalsWithCardsIn(this.terminalsPresent);
+			if (null != this.shards) {
+				if (initializeShardedSubSystem()) {
+					this.nextTerminalScan = System.nanoTime()
+							+ TimeUnit.MILLISECONDS.toNanos(this.terminalScanDelay);
 				}
+				return;
+			}
+			if (!initializeSubSystem()) {
+				return;
+			}
+			if (this.eventDriven) {
+				startCardTerminalWatchers(this.terminalsPresent);
+				this.nextTerminalScan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.terminalScanDelay);
+				return;
+			}
+		}
+		if (this.eventDriven) {
+			handleWatchedEvents();
+		} else {
+			handlePCSCEvents();
+		}
+	}
 
-				listenersTerminalsAttachedCardsInserted(this.terminalsPresent, this.terminalsWithCards);
-				this.subSystemInitialized = true;
+	private boolean initializeSubSystem() throws InterruptedException {
+		this.logger.debug("subsystem not initialized");
+		try {
+			if (this.terminalsPresent == null || this.terminalsWithCards == null) {
+				this.terminalsPresent = new HashSet<>(this.cardTerminals.list(State.ALL));
+				this.terminalsWithCards = terminalsWithCardsIn(this.terminalsPresent);
+			}
 
-			} catch (final CardException cex) {
-				logCardException(cex, "Cannot enumerate card terminals [1] (No Card Readers Connected?)");
-				clear();
-				sleepForDelay();
-				return;
+			listenersTerminalsAttachedCardsInserted(this.terminalsPresent, this.terminalsWithCards);
+			this.subSystemInitialized = true;
+			setStateBits(this.terminalsPresent, this.terminalsWithCards);
+			adaptDelay(true);
+			return true;
+		} catch (final CardException cex) {
+			logCardException(cex, "Cannot enumerate card terminals [1] (No Card Readers Connected?)");
+			clear();
+			sleepForDelay();
+			return false;
+		}
+	}
+
+	/*
+	 * Sharded mode: the initial events are delivered by the shards, but before
+	 * the listeners are told that the initial state was sent.
+	 */
+	private boolean initializeShardedSubSystem() throws InterruptedException {
+		this.logger.debug("subsystem not initialized");
+		try {
+			this.terminalsPresent = new HashSet<>(this.cardTerminals.list(State.ALL));
+			this.terminalsWithCards = new HashSet<>();
+			final Set<CardTerminal> terminalsWithCards = terminalsWithCardsIn(this.terminalsPresent);
+			for (CardTerminal terminal : this.terminalsPresent) {
+				attachToShard(terminal, terminalsWithCards.contains(terminal));
 			}
+			flushShards();
+			this.subSystemInitialized = true;
+			setStateBits(this.terminalsPresent, terminalsWithCards);
+			adaptDelay(true);
+			return true;
+		} catch (final CardException cex) {
+			logCardException(cex, "Cannot enumerate card terminals [1] (No Card Readers Connected?)");
+			clear();
+			sleepForDelay();
+			return false;
 		}
+	}
+
+	private void handlePCSCEvents() throws InterruptedException {
 
 		try {
 			// can't use waitForChange properly, that is in blocking mode,
@@ -435,7 +797,7 @@ public class CardAndTerminalManager implements Runnable {
 			// return faster than delay)
 			// for most events this will make reaction instantaneous, and worst
 			// case = delay
-			this.cardTerminals.waitForChange(this.delay);
+			this.cardTerminals.waitForChange(this.effectiveDelay);
 		} catch (final CardException cex) {
 			// waitForChange fails (e.g. PCSC is there but no readers)
 			logCardException(cex, "Cannot wait for card terminal events [2] (No Card Readers Connected?)");
@@ -454,35 +816,78 @@ public class CardAndTerminalManager implements Runnable {
 		// get here when event has occured or delay time has passed
 
 		try {
-			// get fresh state
-			final Set<CardTerminal> currentTerminals = new HashSet<>(this.cardTerminals.list(State.ALL));
-			final Set<CardTerminal> currentTerminalsWithCards = terminalsWithCardsIn(currentTerminals);
+			// get fresh state, as bits per terminal index
+			final List<CardTerminal> currentTerminalList = this.cardTerminals.list(State.ALL);
+			this.currentTerminalBits.clear();
+			this.currentCardBits.clear();
+			for (int idx = 0; idx < currentTerminalList.size(); idx++) {
+				final CardTerminal terminal = currentTerminalList.get(idx);
+				final int terminalIndex = getTerminalIndex(terminal);
+				this.currentTerminalBits.set(terminalIndex);
+				if (hasCardEvents(terminal)) {
+					this.currentCardBits.set(terminalIndex);
+				}
+			}
+
+			if (this.currentTerminalBits.equals(this.terminalBits) && this.currentCardBits.equals(this.cardBits)) {
+				// nothing changed, the usual case
+				adaptDelay(false);
+				return;
+			}
+
+			final Set<CardTerminal> currentTerminals = terminalsIn(this.currentTerminalBits, null);
+			final Set<CardTerminal> currentTerminalsWithCards = terminalsIn(this.currentCardBits, null);
 
 			// determine terminals that were attached since previous state
-			final Set<CardTerminal> terminalsAttached = new HashSet<>(currentTerminals);
-			terminalsAttached.removeAll(this.terminalsPresent);
+			final Set<CardTerminal> terminalsAttached = terminalsIn(this.currentTerminalBits, this.terminalBits);
 
 			// determine terminals that had cards inserted since previous state
-			final Set<CardTerminal> terminalsWithCardsInserted = new HashSet<>(currentTerminalsWithCards);
-			terminalsWithCardsInserted.removeAll(this.terminalsWithCards);
+			final Set<CardTerminal> terminalsWithCardsInserted = terminalsIn(this.currentCardBits, this.cardBits);
 
 			// determine terminals that had cards removed since previous state
-			final Set<CardTerminal> terminalsWithCardsRemoved = new HashSet<>(this.terminalsWithCards);
-			terminalsWithCardsRemoved.removeAll(currentTerminalsWithCards);
+			final Set<CardTerminal> terminalsWithCardsRemoved = terminalsIn(this.cardBits, this.currentCardBits);
 
 			// determine terminals detached since previous state
-			final Set<CardTerminal> terminalsDetached = new HashSet<>(this.terminalsPresent);
-			terminalsDetached.removeAll(currentTerminals);
+			final Set<CardTerminal> terminalsDetached = terminalsIn(this.terminalBits, this.currentTerminalBits);
+			// a reader may come back with other firmware
+			for (CardTerminal terminal : terminalsDetached) {
+				CCIDFeatureCache.invalidate(terminal.getName());
+			}
 
 			// keep fresh state to compare to next time (and to return to
 			// synchronous callers)
 			this.terminalsPresent = currentTerminals;
 			this.terminalsWithCards = currentTerminalsWithCards;
-
-			// advise the listeners where appropriate, always in the order
-			// attach, insert, remove, detach
-			listenersUpdateInSequence(terminalsAttached, terminalsWithCardsInserted, terminalsWithCardsRemoved,
-					terminalsDetached);
+			this.terminalBits.clear();
+			this.terminalBits.or(this.currentTerminalBits);
+			this.cardBits.clear();
+			this.cardBits.or(this.currentCardBits);
+
+			if (null != this.shards) {
+				// the shards deliver all events of their terminals, in order
+				for (CardTerminal terminal : terminalsDetached) {
+					getShard(terminal).detached(terminal);
+				}
+				for (CardTerminal terminal : terminalsAttached) {
+					attachToShard(terminal, terminalsWithCardsInserted.contains(terminal));
+				}
+				terminalsWithCardsRemoved.removeAll(terminalsDetached);
+				for (CardTerminal terminal : terminalsWithCardsRemoved) {
+					getShard(terminal).cardPresence(terminal, false);
+				}
+				terminalsWithCardsInserted.removeAll(terminalsAttached);
+				for (CardTerminal terminal : terminalsWithCardsInserted) {
+					getShard(terminal).cardPresence(terminal, true);
+				}
+			} else {
+				// advise the listeners where appropriate, always in the order
+				// attach, insert, remove, detach
+				listenersUpdateInSequence(terminalsAttached, terminalsWithCardsInserted, terminalsWithCardsRemoved,
+						terminalsDetached);
+			}
+			releaseTerminalIndices(terminalsDetached);
+			adaptDelay(!terminalsAttached.isEmpty() || !terminalsWithCardsInserted.isEmpty()
+					|| !terminalsWithCardsRemoved.isEmpty() || !terminalsDetached.isEmpty());
 		} catch (final CardException cex) {
 			// if a CardException occurs, assume we're out of readers (only
 			// CardTerminals.list throws that here)
@@ -496,37 +901,397 @@ public class CardAndTerminalManager implements Runnable {
 
 	// ---------------------------------------------------------------------------------------------------
 
-	private boolean areCardEventsIgnoredFor(final CardTerminal cardTerminal) {
-		synchronized (this.terminalsToIgnoreCardEventsFor) {
-			for (String prefixToMatch : this.terminalsToIgnoreCardEventsFor) {
-				if (cardTerminal.getName().startsWith(prefixToMatch)) {
-					return true;
+	/*
+	 * Event driven mode: card events come from the CardTerminal watchers, the
+	 * terminals are only listed every terminal scan delay.
+	 */
+	private void handleWatchedEvents() throws InterruptedException {
+		final long timeout = this.nextTerminalScan - System.nanoTime();
+		CardPresenceEvent cardPresenceEvent = this.cardPresenceEvents.poll(Math.max(timeout, 0),
+				TimeUnit.NANOSECONDS);
+		while (null != cardPresenceEvent) {
+			handleCardPresenceEvent(cardPresenceEvent);
+			cardPresenceEvent = this.cardPresenceEvents.poll();
+		}
+		if (System.nanoTime() - this.nextTerminalScan < 0) {
+			return;
+		}
+		this.nextTerminalScan = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.terminalScanDelay);
+
+		try {
+			final Set<CardTerminal> currentTerminals = new HashSet<>(this.cardTerminals.list(State.ALL));
+
+			final Set<CardTerminal> terminalsAttached = new HashSet<>(currentTerminals);
+			terminalsAttached.removeAll(this.terminalsPresent);
+			final Set<CardTerminal> terminalsWithCardsInserted = terminalsWithCardsIn(terminalsAttached);
+
+			final Set<CardTerminal> terminalsDetached = new HashSet<>(this.terminalsPresent);
+			terminalsDetached.removeAll(currentTerminals);
+			final Set<CardTerminal> terminalsWithCardsRemoved = new HashSet<>(this.terminalsWithCards);
+			terminalsWithCardsRemoved.retainAll(terminalsDetached);
+			for (CardTerminal terminal : terminalsDetached) {
+				CCIDFeatureCache.invalidate(terminal.getName());
+			}
+
+			stopCardTerminalWatchers(terminalsDetached);
+			restartFailedCardTerminalWatchers();
+			this.terminalsPresent = currentTerminals;
+
+			if (null != this.shards) {
+				// the shards deliver all events of their terminals, in order
+				for (CardTerminal terminal : terminalsDetached) {
+					getShard(terminal).detached(terminal);
 				}
+				for (CardTerminal terminal : terminalsAttached) {
+					attachToShard(terminal, terminalsWithCardsInserted.contains(terminal));
+				}
+			} else {
+				for (CardTerminal terminal : terminalsAttached) {
+					startCardTerminalWatcher(terminal, terminalsWithCardsInserted.contains(terminal));
+				}
+				this.terminalsWithCards.removeAll(terminalsWithCardsRemoved);
+				this.terminalsWithCards.addAll(terminalsWithCardsInserted);
+
+				listenersUpdateInSequence(terminalsAttached, terminalsWithCardsInserted, terminalsWithCardsRemoved,
+						terminalsDetached);
+			}
+			releaseTerminalIndices(terminalsDetached);
+			adaptDelay(!terminalsAttached.isEmpty() || !terminalsWithCardsInserted.isEmpty()
+					|| !terminalsWithCardsRemoved.isEmpty() || !terminalsDetached.isEmpty());
+		} catch (final CardException cex) {
+			logCardException(cex, "Cannot list card terminals (no PCSC subsystem?)");
+			clear();
+			sleepForDelay();
+		} catch (final IllegalStateException ise) {
+			this.logger.debug("Cannot list card terminals (no PCSC subsystem?): " + ise.getLocalizedMessage());
+			clear();
+			sleepForDelay();
+		}
+	}
+
+	private void handleCardPresenceEvent(final CardPresenceEvent cardPresenceEvent) {
+		final CardTerminal terminal = cardPresenceEvent.terminal;
+		if (!this.terminalsPresent.contains(terminal)) {
+			// detached meanwhile
+			return;
+		}
+		if (cardPresenceEvent.cardPresent) {
+			if (areCardEventsIgnoredFor(terminal)) {
+				return;
+			}
+			if (this.terminalsWithCards.add(terminal)) {
+				listenersTerminalsWithCardsInserted(Collections.singleton(terminal));
+			}
+		} else {
+			if (this.terminalsWithCards.remove(terminal)) {
+				listenersTerminalsWithCardsRemoved(Collections.singleton(terminal));
 			}
 		}
+	}
 
-		return false;
+	private void startCardTerminalWatchers(final Set<CardTerminal> terminals) {
+		for (CardTerminal terminal : terminals) {
+			startCardTerminalWatcher(terminal, this.terminalsWithCards.contains(terminal));
+		}
 	}
 
-	private Set<CardTerminal> terminalsWithCardsIn(final Set<CardTerminal> terminals) {
-		final Set<CardTerminal> terminalsWithCards = new HashSet<>();
+	private void startCardTerminalWatcher(final CardTerminal terminal, final boolean cardPresent) {
+		final CardEventsShard shard = null != this.shards ? getShard(terminal) : null;
+		final CardTerminalWatcher cardTerminalWatcher = new CardTerminalWatcher(terminal, cardPresent, shard);
+		this.cardTerminalWatchers.put(terminal, cardTerminalWatcher);
+		cardTerminalWatcher.start();
+	}
 
-		synchronized (this.terminalsToIgnoreCardEventsFor) {
-			for (CardTerminal terminal : terminals) {
+	/*
+	 * A watcher ends when waiting on its CardTerminal fails. The watchers of the
+	 * CardTerminals that are still attached are started again, at most once per
+	 * terminal scan, from the last card presence they reported.
+	 */
+	private void restartFailedCardTerminalWatchers() {
+		for (CardTerminalWatcher cardTerminalWatcher : new ArrayList<>(this.cardTerminalWatchers.values())) {
+			if (cardTerminalWatcher.hasFailed()) {
+				this.logger.debug("restarting watcher of terminal [" + cardTerminalWatcher.terminal.getName() + "]");
+				startCardTerminalWatcher(cardTerminalWatcher.terminal, cardTerminalWatcher.cardPresent);
+			}
+		}
+	}
+
+	private void stopCardTerminalWatchers(final Set<CardTerminal> terminals) {
+		for (CardTerminal terminal : new HashSet<>(terminals)) {
+			final CardTerminalWatcher cardTerminalWatcher = this.cardTerminalWatchers.remove(terminal);
+			if (null != cardTerminalWatcher) {
+				cardTerminalWatcher.stop();
+			}
+		}
+	}
+
+	private void attachToShard(final CardTerminal terminal, final boolean cardPresent) {
+		getShard(terminal).attached(terminal, cardPresent);
+		if (this.eventDriven) {
+			startCardTerminalWatcher(terminal, cardPresent);
+		}
+	}
+
+	// the terminal index is stable while the terminal is attached, and so is the
+	// shard
+	private CardEventsShard getShard(final CardTerminal terminal) {
+		return this.shards[getTerminalIndex(terminal) % this.shards.length];
+	}
+
+	private void flushShards() throws InterruptedException {
+		for (CardEventsShard shard : this.shards) {
+			shard.flush();
+		}
+	}
+
+	/*
+	 * Delivers the events of the CardTerminals assigned to it, in order, on its
+	 * own thread. The card state of these terminals is confined to that thread.
+	 */
+	private final class CardEventsShard {
+		private final ExecutorService executor;
+		private final Set<CardTerminal> terminals;
+		private final Set<CardTerminal> terminalsWithCards;
+
+		CardEventsShard(final int shardIndex) {
+			this.executor = Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "CardAndTerminalManager shard " + shardIndex);
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.terminals = new HashSet<>();
+			this.terminalsWithCards = new HashSet<>();
+		}
+
+		void attached(final CardTerminal terminal, final boolean cardPresent) {
+			execute(() -> {
+				this.terminals.add(terminal);
+				listenersTerminalsAttached(Collections.singleton(terminal));
+				cardPresenceChanged(terminal, cardPresent);
+			});
+		}
+
+		void cardPresence(final CardTerminal terminal, final boolean cardPresent) {
+			execute(() -> cardPresenceChanged(terminal, cardPresent));
+		}
+
+		void detached(final CardTerminal terminal) {
+			execute(() -> {
+				if (!this.terminals.remove(terminal)) {
+					return;
+				}
+				if (this.terminalsWithCards.remove(terminal)) {
+					listenersTerminalsWithCardsRemoved(Collections.singleton(terminal));
+				}
+				listenersTerminalsDetached(Collections.singleton(terminal));
+			});
+		}
+
+		// waits until all events handed over so far are delivered
+		void flush() throws InterruptedException {
+			try {
+				this.executor.submit(() -> {
+				}).get();
+			} catch (final ExecutionException | RejectedExecutionException e) {
+				// nothing to wait for
+			}
+		}
+
+		void shutdown() {
+			this.executor.shutdownNow();
+		}
+
+		private void cardPresenceChanged(final CardTerminal terminal, final boolean cardPresent) {
+			if (!this.terminals.contains(terminal)) {
+				// detached meanwhile
+				return;
+			}
+			if (cardPresent) {
+				if (!areCardEventsIgnoredFor(terminal) && this.terminalsWithCards.add(terminal)) {
+					listenersTerminalsWithCardsInserted(Collections.singleton(terminal));
+				}
+			} else if (this.terminalsWithCards.remove(terminal)) {
+				listenersTerminalsWithCardsRemoved(Collections.singleton(terminal));
+			}
+		}
+
+		private void execute(final Runnable runnable) {
+			try {
+				this.executor.execute(runnable);
+			} catch (final RejectedExecutionException e) {
+				// shut down
+			}
+		}
+	}
+
+	private static final class CardPresenceEvent {
+		private final CardTerminal terminal;
+		private final boolean cardPresent;
+
+		CardPresenceEvent(final CardTerminal terminal, final boolean cardPresent) {
+			this.terminal = terminal;
+			this.cardPresent = cardPresent;
+		}
+	}
+
+	/*
+	 * Blocks on card insertion or removal in a single CardTerminal, and hands over
+	 * the changes to the worker thread. Does not call any listeners itself.
+	 */
+	private final class CardTerminalWatcher implements Runnable {
+		private final CardTerminal terminal;
+		private final CardEventsShard shard;
+		private final Thread thread;
+		private volatile boolean watching;
+		private volatile boolean failed;
+		private boolean cardPresent;
+
+		CardTerminalWatcher(final CardTerminal terminal, final boolean cardPresent, final CardEventsShard shard) {
+			this.terminal = terminal;
+			this.cardPresent = cardPresent;
+			this.shard = shard;
+			this.thread = new Thread(this, "CardAndTerminalManager [" + terminal.getName() + "]");
+			this.thread.setDaemon(true);
+		}
+
+		void start() {
+			this.watching = true;
+			this.thread.start();
+		}
+
+		void stop() {
+			// the blocking wait itself cannot be interrupted, it times out
+			this.watching = false;
+		}
+
+		boolean hasFailed() {
+			return this.failed;
+		}
+
+		@Override
+		public void run() {
+			while (this.watching) {
 				try {
-					if (terminal.isCardPresent() && !this.areCardEventsIgnoredFor(terminal)) {
-						terminalsWithCards.add(terminal);
+					if (this.cardPresent) {
+						this.terminal.waitForCardAbsent(CardAndTerminalManager.this.terminalScanDelay);
+					} else {
+						this.terminal.waitForCardPresent(CardAndTerminalManager.this.terminalScanDelay);
 					}
-				} catch (final CardException cex) {
-					this.logger.error("Problem determining card presence in terminal [" + terminal.getName() + "]",
-							cex);
+					final boolean nowCardPresent = this.terminal.isCardPresent();
+					if (this.watching && nowCardPresent != this.cardPresent) {
+						this.cardPresent = nowCardPresent;
+						if (null != this.shard) {
+							this.shard.cardPresence(this.terminal, nowCardPresent);
+						} else {
+							CardAndTerminalManager.this.cardPresenceEvents
+									.add(new CardPresenceEvent(this.terminal, nowCardPresent));
+						}
+					}
+				} catch (final CardException | IllegalStateException ex) {
+					// probably detached, the terminal scan will tell, or restart us
+					CardAndTerminalManager.this.logger.debug(
+							"watching terminal [" + this.terminal.getName() + "] failed: " + ex.getMessage());
+					this.watching = false;
+					this.failed = true;
 				}
 			}
 		}
+	}
+
+	// ---------------------------------------------------------------------------------------------------
+
+	private boolean areCardEventsIgnoredFor(final CardTerminal cardTerminal) {
+		return this.ignoredTerminalsMatcher.matches(cardTerminal.getName());
+	}
+
+	// whether the terminal has a card we report events for
+	private boolean hasCardEvents(final CardTerminal terminal) {
+		if (areCardEventsIgnoredFor(terminal)) {
+			return false;
+		}
+		try {
+			return terminal.isCardPresent();
+		} catch (final CardException cex) {
+			this.logger.error("Problem determining card presence in terminal [" + terminal.getName() + "]", cex);
+			return false;
+		}
+	}
+
+	private Set<CardTerminal> terminalsWithCardsIn(final Set<CardTerminal> terminals) {
+		final Set<CardTerminal> terminalsWithCards = new HashSet<>();
+
+		for (CardTerminal terminal : terminals) {
+			if (hasCardEvents(terminal)) {
+				terminalsWithCards.add(terminal);
+			}
+		}
 
 		return terminalsWithCards;
 	}
 
+	/*
+	 * Terminal indices are stable per terminal name while the terminal is
+	 * attached, so the state of a terminal can be kept in a bit. The indices of
+	 * detached terminals are handed out again, keeping the bit sets as small as
+	 * the number of attached terminals.
+	 */
+	private int getTerminalIndex(final CardTerminal terminal) {
+		final String name = terminal.getName();
+		Integer terminalIndex = this.terminalIndices.get(name);
+		if (null == terminalIndex) {
+			terminalIndex = this.freeTerminalIndices.nextSetBit(0);
+			if (terminalIndex >= 0) {
+				this.freeTerminalIndices.clear(terminalIndex);
+				this.terminalsByIndex.set(terminalIndex, terminal);
+			} else {
+				terminalIndex = this.terminalsByIndex.size();
+				this.terminalsByIndex.add(terminal);
+			}
+			this.terminalIndices.put(name, terminalIndex);
+		} else if (this.terminalsByIndex.get(terminalIndex) != terminal) {
+			this.terminalsByIndex.set(terminalIndex, terminal);
+		}
+		return terminalIndex;
+	}
+
+	/*
+	 * Only once the events of the detached terminals have been handed to their
+	 * shards, as the shard follows from the index. An index taken over by a
+	 * terminal of the same name, attached meanwhile, stays in use.
+	 */
+	private void releaseTerminalIndices(final Set<CardTerminal> terminals) {
+		for (CardTerminal terminal : terminals) {
+			final Integer terminalIndex = this.terminalIndices.get(terminal.getName());
+			if (null != terminalIndex && this.terminalsByIndex.get(terminalIndex) == terminal) {
+				this.terminalIndices.remove(terminal.getName());
+				this.terminalsByIndex.set(terminalIndex, null);
+				this.freeTerminalIndices.set(terminalIndex);
+			}
+		}
+	}
+
+	private Set<CardTerminal> terminalsIn(final BitSet bits, final BitSet excludedBits) {
+		final Set<CardTerminal> terminals = new HashSet<>();
+		for (int idx = bits.nextSetBit(0); idx >= 0; idx = bits.nextSetBit(idx + 1)) {
+			if (null == excludedBits || !excludedBits.get(idx)) {
+				terminals.add(this.terminalsByIndex.get(idx));
+			}
+		}
+		return terminals;
+	}
+
+	private void setStateBits(final Set<CardTerminal> terminals, final Set<CardTerminal> terminalsWithCards) {
+		this.terminalBits.clear();
+		this.cardBits.clear();
+		for (CardTerminal terminal : terminals) {
+			final int terminalIndex = getTerminalIndex(terminal);
+			this.terminalBits.set(terminalIndex);
+			if (terminalsWithCards.contains(terminal)) {
+				this.cardBits.set(terminalIndex);
+			}
+		}
+	}
+
 	// -------------------------------------------------
 	// --------- private convenience methods -----------
 	// -------------------------------------------------
@@ -536,11 +1301,30 @@ public class CardAndTerminalManager implements Runnable {
 		// if we were already initialized, we may have sent attached and insert
 		// events we now pretend to remove and detach all that we know of, for
 		// consistency
+		stopCardTerminalWatchers(this.cardTerminalWatchers.keySet());
 		if (this.subSystemInitialized) {
-			listenersCardsRemovedTerminalsDetached(this.terminalsWithCards, this.terminalsPresent);
+			if (null != this.shards) {
+				for (CardTerminal terminal : this.terminalsPresent) {
+					getShard(terminal).detached(terminal);
+				}
+				try {
+					// before any events of a new initialization
+					flushShards();
+				} catch (final InterruptedException iex) {
+					Thread.currentThread().interrupt();
+				}
+			} else {
+				listenersCardsRemovedTerminalsDetached(this.terminalsWithCards, this.terminalsPresent);
+			}
 		}
+		this.cardPresenceEvents.clear();
 		this.terminalsPresent = null;
 		this.terminalsWithCards = null;
+		this.terminalBits.clear();
+		this.cardBits.clear();
+		this.terminalIndices.clear();
+		this.terminalsByIndex.clear();
+		this.freeTerminalIndices.clear();
 		this.subSystemInitialized = false;
 		this.logger.debug("cleared");
 	}
@@ -688,7 +1472,11 @@ public class CardAndTerminalManager implements Runnable {
 
 				if (this.autoconnect) {
 					try {
-						card = terminal.connect(this.protocol.getProtocol());
+						if (null != this.protocolStrategy) {
+							card = this.protocolStrategy.connect(terminal);
+						} else {
+							card = terminal.connect(this.protocol.getProtocol());
+						}
 					} catch (final CardException cex) {
 						this.logger.debug(
 								"terminal.connect(" + this.protocol.getProtocol() + ") failed. " + cex.getMessage());
@@ -708,8 +1496,25 @@ public class CardAndTerminalManager implements Runnable {
 		}
 	}
 
+	// after a successful poll: fast after activity, backing off while idle
+	private void adaptDelay(final boolean activity) {
+		this.consecutiveErrors = 0;
+		if (!this.adaptiveDelay) {
+			this.effectiveDelay = this.delay;
+		} else if (activity) {
+			this.effectiveDelay = this.minimumDelay;
+		} else {
+			this.effectiveDelay = (int) Math.min(2L * this.effectiveDelay, this.maximumDelay);
+		}
+	}
+
+	// after a PCSC failure: exponential backoff when adaptive
 	private void sleepForDelay() throws InterruptedException {
-		Thread.sleep(this.delay);
+		if (this.adaptiveDelay && this.consecutiveErrors > 0) {
+			this.effectiveDelay = (int) Math.min(2L * this.effectiveDelay, this.maximumErrorDelay);
+		}
+		this.consecutiveErrors++;
+		Thread.sleep(this.effectiveDelay);
 	}
 
 	private void logCardException(final CardException cex, final String where) {
@@ -0,0 +1,99 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the raw content of several files of a BeIDCard, as
+ * read within a single exclusive card transaction by
+ * {@link BeIDCard#readSnapshot(EnumSet)}.
+ */
+public final class EidSnapshot {
+
+	private final Map<FileType, byte[]> files;
+
+	/*
+	 * Takes ownership of the given map and file contents.
+	 */
+	EidSnapshot(final EnumMap<FileType, byte[]> files) {
+		this.files = Collections.unmodifiableMap(files);
+	}
+
+	/**
+	 * @param fileType
+	 * @return <code>true</code> if the given file is part of this snapshot.
+	 */
+	public boolean hasFile(final FileType fileType) {
+		return this.files.containsKey(fileType);
+	}
+
+	/**
+	 * Gives back the raw content of the given file.
+	 *
+	 * @param fileType
+	 * @return a copy of the file content, or <code>null</code> if the file is not
+	 *         part of this snapshot.
+	 */
+	public byte[] getFile(final FileType fileType) {
+		final byte[] data = this.files.get(fileType);
+		if (null == data) {
+			return null;
+		}
+		return data.clone();
+	}
+
+	/**
+	 * @return the file types present in this snapshot.
+	 */
+	public Set<FileType> getFileTypes() {
+		if (this.files.isEmpty()) {
+			return EnumSet.noneOf(FileType.class);
+		}
+		return EnumSet.copyOf(this.files.keySet());
+	}
+
+	public byte[] getIdentity() {
+		return getFile(FileType.Identity);
+	}
+
+	public byte[] getIdentitySignature() {
+		return getFile(FileType.IdentitySignature);
+	}
+
+	public byte[] getAddress() {
+		return getFile(FileType.Address);
+	}
+
+	public byte[] getAddressSignature() {
+		return getFile(FileType.AddressSignature);
+	}
+
+	public byte[] getPhoto() {
+		return getFile(FileType.Photo);
+	}
+
+	public byte[] getBasicPublic() {
+		return getFile(FileType.BasicPublic);
+	}
+}
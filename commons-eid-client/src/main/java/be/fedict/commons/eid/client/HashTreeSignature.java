@@ -0,0 +1,72 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.fedict.commons.eid.client.impl.HashTree;
+
+/**
+ * The detached signature of one document digest out of a batch signed via a
+ * single signature over a hash tree. It consists of the signature over the
+ * root hash, and the inclusion path of the document digest. See
+ * {@link HashTree} for the tree layout.
+ */
+public final class HashTreeSignature {
+
+	private final int index;
+	private final int treeSize;
+	private final List<byte[]> path;
+	private final byte[] rootSignature;
+
+	/**
+	 * @param index         the index of the document digest within the tree.
+	 * @param treeSize      the number of document digests in the tree.
+	 * @param path          the inclusion path of the document digest.
+	 * @param rootSignature the signature over the root hash.
+	 */
+	public HashTreeSignature(final int index, final int treeSize, final List<byte[]> path,
+			final byte[] rootSignature) {
+		this.index = index;
+		this.treeSize = treeSize;
+		this.path = Collections.unmodifiableList(new ArrayList<>(path));
+		this.rootSignature = rootSignature;
+	}
+
+	public int getIndex() {
+		return this.index;
+	}
+
+	public int getTreeSize() {
+		return this.treeSize;
+	}
+
+	/**
+	 * @return the sibling hashes from the leaf level up to the root.
+	 */
+	public List<byte[]> getPath() {
+		return this.path;
+	}
+
+	public byte[] getRootSignature() {
+		return this.rootSignature;
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.event;
+
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.BeIDCard;
+
+/**
+ * An eID card event, as published by a {@link BeIDCardEventPublisher}.
+ */
+public final class BeIDCardEvent {
+
+	public enum Type {
+		INSERTED,
+
+		REMOVED,
+
+		INITIALIZED
+	}
+
+	private final Type type;
+	private final CardTerminal cardTerminal;
+	private final BeIDCard card;
+
+	public BeIDCardEvent(final Type type, final CardTerminal cardTerminal, final BeIDCard card) {
+		this.type = type;
+		this.cardTerminal = cardTerminal;
+		this.card = card;
+	}
+
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the card terminal, or <code>null</code> for the initialized event.
+	 */
+	public CardTerminal getCardTerminal() {
+		return this.cardTerminal;
+	}
+
+	/**
+	 * @return the eID card, or <code>null</code> for the initialized event.
+	 */
+	public BeIDCard getCard() {
+		return this.card;
+	}
+
+	@Override
+	public String toString() {
+		if (null == this.cardTerminal) {
+			return this.type.name();
+		}
+		return this.type.name() + " [" + this.cardTerminal.getName() + "]";
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.event;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+/**
+ * A card or card terminal event, as published by a {@link CardEventPublisher}.
+ */
+public final class CardEvent {
+
+	public enum Type {
+		TERMINAL_ATTACHED,
+
+		TERMINAL_DETACHED,
+
+		TERMINAL_EVENTS_INITIALIZED,
+
+		CARD_INSERTED,
+
+		CARD_REMOVED,
+
+		CARD_EVENTS_INITIALIZED
+	}
+
+	private final Type type;
+	private final CardTerminal cardTerminal;
+	private final Card card;
+
+	public CardEvent(final Type type, final CardTerminal cardTerminal, final Card card) {
+		this.type = type;
+		this.cardTerminal = cardTerminal;
+		this.card = card;
+	}
+
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the card terminal, or <code>null</code> for the initialized events.
+	 */
+	public CardTerminal getCardTerminal() {
+		return this.cardTerminal;
+	}
+
+	/**
+	 * @return the card for a {@link Type#CARD_INSERTED} event, if connected.
+	 */
+	public Card getCard() {
+		return this.card;
+	}
+
+	@Override
+	public String toString() {
+		if (null == this.cardTerminal) {
+			return this.type.name();
+		}
+		return this.type.name() + " [" + this.cardTerminal.getName() + "]";
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.event;
+
+/**
+ * What an event publisher does with a new event when the buffer of a slow
+ * subscriber is full.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Drop the oldest buffered event.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Collapse the buffered events of the card terminal of the new event: a card
+	 * insertion and its removal, or a card terminal attach and its detach, are
+	 * both dropped. The order of the other events is kept, so a new event goes
+	 * after all buffered events. Drops the oldest buffered event if nothing can
+	 * be collapsed.
+	 */
+	COALESCE,
+
+	/**
+	 * Block the thread detecting the events until the subscriber catches up. As
+	 * the events are published one at a time, this holds up the events of all
+	 * card terminals, also when the card terminals are sharded over several
+	 * workers.
+	 */
+	BLOCK
+}
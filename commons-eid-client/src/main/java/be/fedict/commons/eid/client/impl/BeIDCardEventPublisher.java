@@ -0,0 +1,124 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.event.BeIDCardEvent;
+import be.fedict.commons.eid.client.event.BeIDCardEventsListener;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+
+/**
+ * Publishes the events of a BeIDCardManager as a stream of
+ * {@link BeIDCardEvent}s. A new subscriber first receives the eID cards
+ * inserted and {@link BeIDCardEvent.Type#INITIALIZED}, as far as these are
+ * known already. The events can be forwarded to other publishers, which are
+ * brought up to date with the state known to this publisher first.
+ */
+public class BeIDCardEventPublisher extends EventPublisher<BeIDCardEvent> implements BeIDCardEventsListener {
+
+	private final Map<String, BeIDCardEvent> cards;
+	private boolean initialized;
+	private final List<BeIDCardEventPublisher> publishers;
+
+	public BeIDCardEventPublisher(final int capacity, final OverflowPolicy overflowPolicy, final Executor executor) {
+		super(capacity, overflowPolicy, executor);
+		this.cards = new LinkedHashMap<>();
+		this.publishers = new ArrayList<>();
+	}
+
+	/**
+	 * Forward all events from now on to the given publisher as well, after
+	 * giving it the events that make up the current state: the eID cards
+	 * inserted and INITIALIZED, as far as known. No event is lost or repeated in
+	 * between.
+	 * 
+	 * @param publisher
+	 */
+	public synchronized void addPublisher(final BeIDCardEventPublisher publisher) {
+		for (BeIDCardEvent event : this.cards.values()) {
+			publisher.eIDCardInserted(event.getCardTerminal(), event.getCard());
+		}
+		if (this.initialized) {
+			publisher.eIDCardEventsInitialized();
+		}
+		this.publishers.add(publisher);
+	}
+
+	public synchronized void removePublisher(final BeIDCardEventPublisher publisher) {
+		this.publishers.remove(publisher);
+	}
+
+	@Override
+	public synchronized void eIDCardInserted(final CardTerminal cardTerminal, final BeIDCard card) {
+		final BeIDCardEvent event = new BeIDCardEvent(BeIDCardEvent.Type.INSERTED, cardTerminal, card);
+		this.cards.put(cardTerminal.getName(), event);
+		publish(event);
+		for (BeIDCardEventPublisher publisher : this.publishers) {
+			publisher.eIDCardInserted(cardTerminal, card);
+		}
+	}
+
+	@Override
+	public synchronized void eIDCardRemoved(final CardTerminal cardTerminal, final BeIDCard card) {
+		this.cards.remove(cardTerminal.getName());
+		publish(new BeIDCardEvent(BeIDCardEvent.Type.REMOVED, cardTerminal, card));
+		for (BeIDCardEventPublisher publisher : this.publishers) {
+			publisher.eIDCardRemoved(cardTerminal, card);
+		}
+	}
+
+	@Override
+	public synchronized void eIDCardEventsInitialized() {
+		this.initialized = true;
+		publish(new BeIDCardEvent(BeIDCardEvent.Type.INITIALIZED, null, null));
+		for (BeIDCardEventPublisher publisher : this.publishers) {
+			publisher.eIDCardEventsInitialized();
+		}
+	}
+
+	@Override
+	protected List<BeIDCardEvent> getReplay() {
+		final List<BeIDCardEvent> replay = new ArrayList<>(this.cards.values());
+		if (this.initialized) {
+			replay.add(new BeIDCardEvent(BeIDCardEvent.Type.INITIALIZED, null, null));
+		}
+		return replay;
+	}
+
+	@Override
+	protected Object getKey(final BeIDCardEvent event) {
+		if (null == event.getCardTerminal()) {
+			return null;
+		}
+		return event.getCardTerminal().getName();
+	}
+
+	@Override
+	protected boolean isUndoing(final BeIDCardEvent event, final BeIDCardEvent earlierEvent) {
+		return BeIDCardEvent.Type.REMOVED == event.getType() && BeIDCardEvent.Type.INSERTED == earlierEvent.getType();
+	}
+}
@@ -25,6 +25,7 @@ import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.smartcardio.Card;
 import javax.smartcardio.CardException;
@@ -32,6 +33,8 @@ import javax.smartcardio.CardTerminal;
 import javax.smartcardio.CommandAPDU;
 import javax.smartcardio.ResponseAPDU;
 
+import be.fedict.commons.eid.client.event.PINPadKey;
+import be.fedict.commons.eid.client.event.PINPadListener;
 import be.fedict.commons.eid.client.spi.Logger;
 
 /**
@@ -49,6 +52,10 @@ public class CCID {
 	public static final int MIN_PIN_SIZE = 4;
 	public static final int MAX_PIN_SIZE = 12;
 
+	public static final long DEFAULT_MINIMUM_POLL_INTERVAL = 20;
+	public static final long DEFAULT_MAXIMUM_POLL_INTERVAL = 200;
+	public static final long DEFAULT_DEADLINE = 120000;
+
 	public static final String DUTCH_LANGUAGE = "nl";
 	public static final String FRENCH_LANGUAGE = Locale.FRENCH.getLanguage();
 	public static final String GERMAN_LANGUAGE = Locale.GERMAN.getLanguage();
@@ -63,6 +70,10 @@ public class CCID {
 	private final Card card;
 	private final EnumMap<FEATURE, Integer> features;
 	private boolean usesPPDU;
+	private long minimumPollInterval;
+	private long maximumPollInterval;
+	private long deadline;
+	private long confirmLatency;
 
 	public enum FEATURE {
 		VERIFY_PIN_START(0x01),
@@ -79,6 +90,8 @@ public class CCID {
 
 		GET_KEY_PRESSED(0x05),
 
+		GET_TLV_PROPERTIES(0x12),
+
 		EID_PIN_PAD_READER(0x80);
 
 		private final byte tag;
@@ -145,6 +158,19 @@ public class CCID {
 		this.logger = logger;
 		this.features = new EnumMap<>(FEATURE.class);
 		this.usesPPDU = false;
+		this.minimumPollInterval = DEFAULT_MINIMUM_POLL_INTERVAL;
+		this.maximumPollInterval = DEFAULT_MAXIMUM_POLL_INTERVAL;
+		this.deadline = DEFAULT_DEADLINE;
+		this.confirmLatency = -1;
+
+		final String cardTerminalName = null != cardTerminal ? cardTerminal.getName() : null;
+		final CCIDFeatureCache.Entry cachedEntry = CCIDFeatureCache.get(cardTerminalName);
+		if (null != cachedEntry && isSameDevice(card, cachedEntry)) {
+			this.logger.debug("Using cached CCID FEATURES");
+			this.features.putAll(cachedEntry.getFeatures());
+			this.usesPPDU = cachedEntry.usesPPDU();
+			return;
+		}
 
 		final boolean onMSWindows = (System.getProperty("os.name") != null
 				&& System.getProperty("os.name").startsWith("Windows"));
@@ -156,22 +182,73 @@ public class CCID {
 				// Windows 10 work-around
 				getFeaturesUsingPPDU(card);
 			}
+			final String deviceId = this.usesPPDU ? null
+					: getDeviceId(card, getFeature(FEATURE.GET_TLV_PROPERTIES));
+			// only cache the outcome of a successful discovery
+			CCIDFeatureCache.put(cardTerminalName,
+					new CCIDFeatureCache.Entry(this.features, this.usesPPDU, deviceId));
 		} catch (final CardException cexInNormal) {
 			this.logger.debug("GET_FEATURES over standard control command failed: " + cexInNormal.getMessage());
 			if (onMSWindows && isPPDUCardTerminal(cardTerminal)) {
 				this.logger.debug("Attempting To get CCID FEATURES using Pseudo-APDU Fallback Strategy");
 				try {
 					getFeaturesUsingPPDU(card);
+					if (this.usesPPDU) {
+						CCIDFeatureCache.put(cardTerminalName,
+								new CCIDFeatureCache.Entry(this.features, this.usesPPDU));
+					}
 				} catch (CardException cexInPseudo) {
 					this.logger.error("Pseudo-APDU Fallback strategy failed as well: " + cexInPseudo.getMessage());
 				}
 			} else {
-				this.logger.debug("Not risking PPDU Fallback strategy for CardTerminal [" + cardTerminal.getName()
+				this.logger.debug("Not risking PPDU Fallback strategy for CardTerminal [" + cardTerminalName
 						+ "] on this platform");
 			}
 		}
 	}
 
+	/*
+	 * Whether the card terminal still is the device the cached features were
+	 * discovered for, going by the device properties it reports.
+	 */
+	private boolean isSameDevice(final Card card, final CCIDFeatureCache.Entry cachedEntry) {
+		if (null == cachedEntry.getDeviceId()) {
+			// only cached in memory, until the card terminal is detached
+			return true;
+		}
+		final String deviceId = getDeviceId(card, cachedEntry.getFeatures().get(FEATURE.GET_TLV_PROPERTIES));
+		if (cachedEntry.getDeviceId().equals(deviceId)) {
+			return true;
+		}
+		this.logger.debug("CCID device properties changed, discarding cached CCID FEATURES");
+		return false;
+	}
+
+	/*
+	 * Gives back the TLV properties of the card terminal, including its vendor,
+	 * product and firmware identifiers, as hex, or null if not available.
+	 */
+	private String getDeviceId(final Card card, final Integer getTLVProperties) {
+		if (null == getTLVProperties) {
+			return null;
+		}
+		final byte[] properties;
+		try {
+			properties = card.transmitControlCommand(getTLVProperties, new byte[0]);
+		} catch (final CardException cex) {
+			this.logger.debug("GET_TLV_PROPERTIES failed: " + cex.getMessage());
+			return null;
+		}
+		if (null == properties || 0 == properties.length) {
+			return null;
+		}
+		final StringBuilder deviceId = new StringBuilder();
+		for (byte property : properties) {
+			deviceId.append(String.format("%02x", property));
+		}
+		return deviceId.toString();
+	}
+
 	private void getFeaturesUsingControlChannel(final Card card, final boolean onMSWindows) throws CardException {
 		byte[] featureBytes = card.transmitControlCommand(onMSWindows ? GET_FEATURES_MICROSOFT : GET_FEATURES,
 				new byte[0]);
@@ -272,43 +349,105 @@ public class CCID {
 		return this.card.transmitControlCommand(controlCode, command);
 	}
 
+	/**
+	 * Set the GET_KEY_PRESSED polling of {@link CCID#waitForOK()}. Polling starts
+	 * at the minimum interval, and backs off to the maximum interval while no key
+	 * is pressed. Any key activity brings the interval back to the minimum.
+	 * 
+	 * @param minimumPollInterval the minimum poll interval in milliseconds.
+	 * @param maximumPollInterval the maximum poll interval in milliseconds.
+	 * @param deadline            the maximum time to wait in milliseconds.
+	 */
+	public void setPolling(final long minimumPollInterval, final long maximumPollInterval, final long deadline) {
+		if (minimumPollInterval < 1 || maximumPollInterval < minimumPollInterval || deadline < 0) {
+			throw new IllegalArgumentException("invalid polling parameters");
+		}
+		this.minimumPollInterval = minimumPollInterval;
+		this.maximumPollInterval = maximumPollInterval;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * @return the time in milliseconds between the last poll before the user
+	 *         confirmed and the poll that noticed it, during the last
+	 *         {@link CCID#waitForOK()}. This is an upper bound of the latency
+	 *         added by polling. -1 if not yet measured.
+	 */
+	public long getConfirmLatency() {
+		return this.confirmLatency;
+	}
+
 	public void waitForOK() throws CardException, InterruptedException {
+		waitForOK(null);
+	}
+
+	public void waitForOK(final PINPadListener pinPadListener) throws CardException, InterruptedException {
+		final long deadlineTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.deadline);
+		long pollInterval = this.minimumPollInterval;
+		long previousPollTime = System.nanoTime();
 		// wait for key pressed
 		loop: while (true) {
 			final byte[] getKeyPressedResult = transmitControlCommand(this.getFeature(FEATURE.GET_KEY_PRESSED),
 					new byte[0]);
+			final long pollTime = System.nanoTime();
 			final byte key = getKeyPressedResult[0];
 			switch (key) {
 			case 0x00:
+				if (pollTime - deadlineTime >= 0) {
+					this.logger.debug("CCID deadline reached");
+					notifyPINPadKey(pinPadListener, PINPadKey.TIMEOUT);
+					break loop;
+				}
 				this.logger.debug("waiting for CCID...");
-				Thread.sleep(200);
+				Thread.sleep(pollInterval);
+				pollInterval = Math.min(pollInterval * 2, this.maximumPollInterval);
 				break;
 
 			case 0x2b:
 				this.logger.debug("PIN digit");
+				notifyPINPadKey(pinPadListener, PINPadKey.DIGIT);
+				pollInterval = this.minimumPollInterval;
 				break;
 
 			case 0x0a:
 				this.logger.debug("erase PIN digit");
+				notifyPINPadKey(pinPadListener, PINPadKey.ERASE);
+				pollInterval = this.minimumPollInterval;
 				break;
 
 			case 0x0d:
-				this.logger.debug("user confirmed");
+				this.confirmLatency = TimeUnit.NANOSECONDS.toMillis(pollTime - previousPollTime);
+				this.logger.debug("user confirmed, latency: " + this.confirmLatency + " ms");
+				notifyPINPadKey(pinPadListener, PINPadKey.CONFIRM);
 				break loop;
 
 			case 0x1b:
 				this.logger.debug("user canceled");
+				notifyPINPadKey(pinPadListener, PINPadKey.CANCEL);
 				// XXX: need to send the PIN finish ioctl?
 				throw new SecurityException("canceled by user");
 
 			case 0x40:
 				// happens in case of a reader timeout
 				this.logger.debug("PIN abort");
+				notifyPINPadKey(pinPadListener, PINPadKey.TIMEOUT);
 				break loop;
 
 			default:
 				this.logger.debug("CCID get key pressed result: " + key + " hex: " + Integer.toHexString(key));
 			}
+			previousPollTime = pollTime;
+		}
+	}
+
+	private void notifyPINPadKey(final PINPadListener pinPadListener, final PINPadKey key) {
+		if (null == pinPadListener) {
+			return;
+		}
+		try {
+			pinPadListener.notifyPINPadKey(key);
+		} catch (final Exception e) {
+			this.logger.error("error in PIN pad listener: " + e.getMessage());
 		}
 	}
 
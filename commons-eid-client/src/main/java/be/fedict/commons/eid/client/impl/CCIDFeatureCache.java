@@ -0,0 +1,250 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import be.fedict.commons.eid.client.impl.CCID.FEATURE;
+
+/**
+ * Cache of the CCID features discovered per card terminal, so that feature
+ * discovery is done only once per card reader, not once per inserted card. The
+ * cache lives in memory, and can optionally be persisted in a small properties
+ * file. Entries are invalidated when the card terminal is detached.
+ * 
+ * As a card terminal name does not tell which device or firmware is behind it,
+ * entries carry the device properties reported by the card terminal, and are
+ * only used while the card terminal still reports the same ones. Entries of
+ * card terminals that do not report their properties are not persisted.
+ * 
+ * Persistence is best effort: I/O errors on the cache file are ignored, and
+ * feature discovery is simply done again.
+ */
+public final class CCIDFeatureCache {
+
+	private static final String PPDU = "PPDU";
+	private static final String DEVICE = "DEVICE";
+
+	private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private static File file;
+
+	private CCIDFeatureCache() {
+		super();
+	}
+
+	/**
+	 * The CCID features of a card terminal.
+	 */
+	public static final class Entry {
+
+		private final Map<FEATURE, Integer> features;
+		private final boolean usesPPDU;
+		private final String deviceId;
+
+		public Entry(final Map<FEATURE, Integer> features, final boolean usesPPDU) {
+			this(features, usesPPDU, null);
+		}
+
+		/**
+		 * @param features
+		 * @param usesPPDU
+		 * @param deviceId the device properties reported by the card terminal, as
+		 *                 hex, or <code>null</code> if not available.
+		 */
+		public Entry(final Map<FEATURE, Integer> features, final boolean usesPPDU, final String deviceId) {
+			final EnumMap<FEATURE, Integer> copy = new EnumMap<>(FEATURE.class);
+			copy.putAll(features);
+			this.features = Collections.unmodifiableMap(copy);
+			this.usesPPDU = usesPPDU;
+			this.deviceId = deviceId;
+		}
+
+		public Map<FEATURE, Integer> getFeatures() {
+			return this.features;
+		}
+
+		public boolean usesPPDU() {
+			return this.usesPPDU;
+		}
+
+		public String getDeviceId() {
+			return this.deviceId;
+		}
+	}
+
+	/**
+	 * Persist the cache in the given file. Entries already in the file are
+	 * loaded.
+	 * 
+	 * @param newFile the cache file, or <code>null</code> to only cache in memory.
+	 */
+	public static synchronized void setFile(final File newFile) {
+		CCIDFeatureCache.file = newFile;
+		if (null != newFile) {
+			load();
+		}
+	}
+
+	public static synchronized File getFile() {
+		return CCIDFeatureCache.file;
+	}
+
+	/**
+	 * @param cardTerminalName
+	 * @return the cached CCID features of the card terminal, or <code>null</code>.
+	 */
+	public static Entry get(final String cardTerminalName) {
+		if (null == cardTerminalName) {
+			return null;
+		}
+		return entries.get(cardTerminalName);
+	}
+
+	public static void put(final String cardTerminalName, final Entry entry) {
+		if (null == cardTerminalName) {
+			return;
+		}
+		entries.put(cardTerminalName, entry);
+		store();
+	}
+
+	/**
+	 * Invalidates the cached CCID features of the card terminal, for example
+	 * because it was detached.
+	 * 
+	 * @param cardTerminalName
+	 */
+	public static void invalidate(final String cardTerminalName) {
+		if (null == cardTerminalName) {
+			return;
+		}
+		if (null != entries.remove(cardTerminalName)) {
+			store();
+		}
+	}
+
+	/**
+	 * Invalidates all cached CCID features.
+	 */
+	public static void clear() {
+		entries.clear();
+		store();
+	}
+
+	private static synchronized void load() {
+		if (!CCIDFeatureCache.file.exists()) {
+			return;
+		}
+		final Properties properties = new Properties();
+		try (InputStream inputStream = new FileInputStream(CCIDFeatureCache.file)) {
+			properties.load(inputStream);
+		} catch (final IOException e) {
+			return;
+		}
+		for (String cardTerminalName : properties.stringPropertyNames()) {
+			final Entry entry = parse(properties.getProperty(cardTerminalName));
+			if (null != entry && null != entry.getDeviceId()) {
+				entries.putIfAbsent(cardTerminalName, entry);
+			}
+		}
+	}
+
+	private static synchronized void store() {
+		if (null == CCIDFeatureCache.file) {
+			return;
+		}
+		final Properties properties = new Properties();
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			// cannot be checked against the card terminal in another process
+			if (null != entry.getValue().getDeviceId()) {
+				properties.setProperty(entry.getKey(), format(entry.getValue()));
+			}
+		}
+		try (OutputStream outputStream = new FileOutputStream(CCIDFeatureCache.file)) {
+			properties.store(outputStream, "CCID features per card terminal");
+		} catch (final IOException e) {
+			// best effort
+		}
+	}
+
+	private static String format(final Entry entry) {
+		final StringBuilder value = new StringBuilder();
+		if (entry.usesPPDU()) {
+			value.append(PPDU);
+		}
+		if (null != entry.getDeviceId()) {
+			if (value.length() > 0) {
+				value.append(',');
+			}
+			value.append(DEVICE);
+			value.append('=');
+			value.append(entry.getDeviceId());
+		}
+		for (Map.Entry<FEATURE, Integer> feature : entry.getFeatures().entrySet()) {
+			if (value.length() > 0) {
+				value.append(',');
+			}
+			value.append(feature.getKey().name());
+			value.append('=');
+			value.append(Integer.toHexString(feature.getValue()));
+		}
+		return value.toString();
+	}
+
+	private static Entry parse(final String value) {
+		final EnumMap<FEATURE, Integer> features = new EnumMap<>(FEATURE.class);
+		boolean usesPPDU = false;
+		String deviceId = null;
+		try {
+			for (String token : value.split(",")) {
+				if (token.isEmpty()) {
+					continue;
+				}
+				if (PPDU.equals(token)) {
+					usesPPDU = true;
+					continue;
+				}
+				final int idx = token.indexOf('=');
+				if (-1 == idx) {
+					return null;
+				}
+				if (DEVICE.equals(token.substring(0, idx))) {
+					deviceId = token.substring(idx + 1);
+					continue;
+				}
+				features.put(FEATURE.valueOf(token.substring(0, idx)),
+						Integer.parseUnsignedInt(token.substring(idx + 1), 16));
+			}
+		} catch (final IllegalArgumentException e) {
+			return null;
+		}
+		return new Entry(features, usesPPDU, deviceId);
+	}
+}
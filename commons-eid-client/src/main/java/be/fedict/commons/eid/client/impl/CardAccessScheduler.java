@@ -0,0 +1,171 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.PriorityQueue;
+
+/**
+ * Serializes the access of several threads to a single card. Threads waiting
+ * for the card are granted access by priority, and first come first served
+ * within the same priority. The owner of the card can check whether work of a
+ * higher priority is waiting, and yield the card in between commands.
+ */
+public final class CardAccessScheduler {
+
+	/**
+	 * The priority of card work, from low to high.
+	 */
+	public enum Priority {
+		/**
+		 * Reading of files like the photo, or prefetching.
+		 */
+		BACKGROUND,
+
+		/**
+		 * Reading of certificates, and card access without further indication.
+		 */
+		DEFAULT,
+
+		/**
+		 * User-facing operations, like signing.
+		 */
+		INTERACTIVE
+	}
+
+	private final PriorityQueue<Request> requests;
+
+	private long sequence;
+
+	private Thread owner;
+
+	private Priority ownerPriority;
+
+	public CardAccessScheduler() {
+		this.requests = new PriorityQueue<>();
+	}
+
+	/**
+	 * Waits until the calling thread is granted access to the card.
+	 * 
+	 * @param priority
+	 * @throws InterruptedException
+	 * @throws IllegalStateException if the calling thread already has access.
+	 */
+	public synchronized void acquire(final Priority priority) throws InterruptedException {
+		final Thread currentThread = Thread.currentThread();
+		if (currentThread == this.owner) {
+			throw new IllegalStateException("access already granted");
+		}
+		final Request request = new Request(priority, this.sequence++);
+		this.requests.add(request);
+		try {
+			while (null != this.owner || request != this.requests.peek()) {
+				wait();
+			}
+		} catch (final InterruptedException e) {
+			this.requests.remove(request);
+			notifyAll();
+			throw e;
+		}
+		this.requests.remove();
+		this.owner = currentThread;
+		this.ownerPriority = priority;
+	}
+
+	/**
+	 * Releases the access of the calling thread, if any.
+	 */
+	public synchronized void release() {
+		if (Thread.currentThread() != this.owner) {
+			return;
+		}
+		this.owner = null;
+		this.ownerPriority = null;
+		notifyAll();
+	}
+
+	/**
+	 * Revokes the access of the current owner, whatever thread it is.
+	 */
+	public synchronized void reset() {
+		this.owner = null;
+		this.ownerPriority = null;
+		notifyAll();
+	}
+
+	/**
+	 * @return <code>true</code> if the calling thread has access to the card.
+	 */
+	public synchronized boolean isOwner() {
+		return Thread.currentThread() == this.owner;
+	}
+
+	/**
+	 * @return the thread having access to the card, or <code>null</code>.
+	 */
+	public synchronized Thread getOwner() {
+		return this.owner;
+	}
+
+	/**
+	 * @return the priority of the current owner, or <code>null</code>.
+	 */
+	public synchronized Priority getOwnerPriority() {
+		return this.ownerPriority;
+	}
+
+	/**
+	 * @return <code>true</code> if a thread with a higher priority than the
+	 *         current owner is waiting for the card.
+	 */
+	public synchronized boolean hasPrecedingRequest() {
+		final Request request = this.requests.peek();
+		if (null == request || null == this.ownerPriority) {
+			return false;
+		}
+		return request.priority.compareTo(this.ownerPriority) > 0;
+	}
+
+	/**
+	 * @return the number of threads waiting for the card.
+	 */
+	public synchronized int getWaitingCount() {
+		return this.requests.size();
+	}
+
+	private static final class Request implements Comparable<Request> {
+
+		private final Priority priority;
+		private final long sequence;
+
+		Request(final Priority priority, final long sequence) {
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(final Request request) {
+			final int result = request.priority.compareTo(this.priority);
+			if (0 != result) {
+				return result;
+			}
+			return Long.compare(this.sequence, request.sequence);
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+import be.fedict.commons.eid.client.event.CardEvent;
+import be.fedict.commons.eid.client.event.CardEventsListener;
+import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+
+/**
+ * Publishes the events of a CardAndTerminalManager as a stream of
+ * {@link CardEvent}s. A new subscriber first receives the terminals attached,
+ * {@link CardEvent.Type#TERMINAL_EVENTS_INITIALIZED}, the cards inserted and
+ * {@link CardEvent.Type#CARD_EVENTS_INITIALIZED}, as far as these are known
+ * already. The events can be forwarded to other publishers, which are brought
+ * up to date with the state known to this publisher first.
+ */
+public class CardEventPublisher extends EventPublisher<CardEvent>
+		implements CardTerminalEventsListener, CardEventsListener {
+
+	private final Map<String, CardTerminal> terminals;
+	private final Map<String, CardEvent> cards;
+	private boolean terminalEventsInitialized;
+	private boolean cardEventsInitialized;
+	private final List<CardEventPublisher> publishers;
+
+	public CardEventPublisher(final int capacity, final OverflowPolicy overflowPolicy, final Executor executor) {
+		super(capacity, overflowPolicy, executor);
+		this.terminals = new LinkedHashMap<>();
+		this.cards = new LinkedHashMap<>();
+		this.publishers = new ArrayList<>();
+	}
+
+	/**
+	 * Forward all events from now on to the given publisher as well, after
+	 * giving it the events that make up the current state: the terminals
+	 * attached, TERMINAL_EVENTS_INITIALIZED, the cards inserted and
+	 * CARD_EVENTS_INITIALIZED, as far as known. No event is lost or repeated in
+	 * between.
+	 * 
+	 * @param publisher
+	 */
+	public synchronized void addPublisher(final CardEventPublisher publisher) {
+		for (CardTerminal cardTerminal : this.terminals.values()) {
+			publisher.terminalAttached(cardTerminal);
+		}
+		if (this.terminalEventsInitialized) {
+			publisher.terminalEventsInitialized();
+		}
+		for (CardEvent event : this.cards.values()) {
+			publisher.cardInserted(event.getCardTerminal(), event.getCard());
+		}
+		if (this.cardEventsInitialized) {
+			publisher.cardEventsInitialized();
+		}
+		this.publishers.add(publisher);
+	}
+
+	public synchronized void removePublisher(final CardEventPublisher publisher) {
+		this.publishers.remove(publisher);
+	}
+
+	@Override
+	public synchronized void terminalAttached(final CardTerminal cardTerminal) {
+		this.terminals.put(cardTerminal.getName(), cardTerminal);
+		publish(new CardEvent(CardEvent.Type.TERMINAL_ATTACHED, cardTerminal, null));
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.terminalAttached(cardTerminal);
+		}
+	}
+
+	@Override
+	public synchronized void terminalDetached(final CardTerminal cardTerminal) {
+		this.terminals.remove(cardTerminal.getName());
+		publish(new CardEvent(CardEvent.Type.TERMINAL_DETACHED, cardTerminal, null));
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.terminalDetached(cardTerminal);
+		}
+	}
+
+	@Override
+	public synchronized void terminalEventsInitialized() {
+		this.terminalEventsInitialized = true;
+		publish(new CardEvent(CardEvent.Type.TERMINAL_EVENTS_INITIALIZED, null, null));
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.terminalEventsInitialized();
+		}
+	}
+
+	@Override
+	public synchronized void cardInserted(final CardTerminal cardTerminal, final Card card) {
+		final CardEvent event = new CardEvent(CardEvent.Type.CARD_INSERTED, cardTerminal, card);
+		this.cards.put(cardTerminal.getName(), event);
+		publish(event);
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.cardInserted(cardTerminal, card);
+		}
+	}
+
+	@Override
+	public synchronized void cardRemoved(final CardTerminal cardTerminal) {
+		this.cards.remove(cardTerminal.getName());
+		publish(new CardEvent(CardEvent.Type.CARD_REMOVED, cardTerminal, null));
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.cardRemoved(cardTerminal);
+		}
+	}
+
+	@Override
+	public synchronized void cardEventsInitialized() {
+		this.cardEventsInitialized = true;
+		publish(new CardEvent(CardEvent.Type.CARD_EVENTS_INITIALIZED, null, null));
+		for (CardEventPublisher publisher : this.publishers) {
+			publisher.cardEventsInitialized();
+		}
+	}
+
+	@Override
+	protected List<CardEvent> getReplay() {
+		final List<CardEvent> replay = new ArrayList<>();
+		for (CardTerminal cardTerminal : this.terminals.values()) {
+			replay.add(new CardEvent(CardEvent.Type.TERMINAL_ATTACHED, cardTerminal, null));
+		}
+		if (this.terminalEventsInitialized) {
+			replay.add(new CardEvent(CardEvent.Type.TERMINAL_EVENTS_INITIALIZED, null, null));
+		}
+		replay.addAll(this.cards.values());
+		if (this.cardEventsInitialized) {
+			replay.add(new CardEvent(CardEvent.Type.CARD_EVENTS_INITIALIZED, null, null));
+		}
+		return replay;
+	}
+
+	@Override
+	protected Object getKey(final CardEvent event) {
+		switch (event.getType()) {
+		case TERMINAL_ATTACHED:
+		case TERMINAL_DETACHED:
+			return "terminal:" + event.getCardTerminal().getName();
+		case CARD_INSERTED:
+		case CARD_REMOVED:
+			return "card:" + event.getCardTerminal().getName();
+		default:
+			return null;
+		}
+	}
+
+	@Override
+	protected boolean isUndoing(final CardEvent event, final CardEvent earlierEvent) {
+		switch (event.getType()) {
+		case TERMINAL_DETACHED:
+			return CardEvent.Type.TERMINAL_ATTACHED == earlierEvent.getType();
+		case CARD_REMOVED:
+			return CardEvent.Type.CARD_INSERTED == earlierEvent.getType();
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,424 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import be.fedict.commons.eid.client.event.Flow;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+
+/**
+ * Publisher with a bounded buffer per subscriber. Events are handed over by the
+ * thread detecting them, and delivered to every subscriber on an executor, as
+ * requested by that subscriber. When the buffer of a subscriber is full, the
+ * overflow policy applies.
+ * 
+ * A new subscriber first receives the current state, as given by
+ * {@link #getReplay()}. Replayed events are buffered regardless of the
+ * capacity.
+ * 
+ * @param <T> the event type.
+ */
+public abstract class EventPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+	private final int capacity;
+	private final OverflowPolicy overflowPolicy;
+	private final Executor executor;
+	private final boolean executorOwned;
+	private final List<BufferedSubscription> subscriptions;
+	private volatile boolean closed;
+	/*
+	 * The owned executor only runs while the publisher is open or subscriptions
+	 * have not ended yet. Guarded by the executor lock.
+	 */
+	private final Object executorLock;
+	private ExecutorService ownedExecutorService;
+	private int activeSubscriptions;
+
+	/**
+	 * @param capacity       the buffer capacity per subscriber.
+	 * @param overflowPolicy what to do when the buffer of a subscriber is full.
+	 * @param executor       the executor delivering the events, or
+	 *                       <code>null</code> to use daemon threads owned by this
+	 *                       publisher.
+	 */
+	protected EventPublisher(final int capacity, final OverflowPolicy overflowPolicy, final Executor executor) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity should be positive");
+		}
+		if (null == overflowPolicy) {
+			throw new IllegalArgumentException("overflow policy expected");
+		}
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+		this.executor = executor;
+		this.executorOwned = null == executor;
+		this.executorLock = new Object();
+		this.subscriptions = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Gives back the events that bring a new subscriber up to date. Called while
+	 * no events are published.
+	 * 
+	 * @return the replay events.
+	 */
+	protected abstract List<T> getReplay();
+
+	/**
+	 * Gives back the key of the event for {@link OverflowPolicy#COALESCE}.
+	 * 
+	 * @param event
+	 * @return the key, or <code>null</code> if the event should never be dropped.
+	 */
+	protected abstract Object getKey(T event);
+
+	/**
+	 * Tells whether the event undoes an earlier event with the same key, like a
+	 * card removal undoes its insertion. {@link OverflowPolicy#COALESCE} drops
+	 * both.
+	 * 
+	 * @param event
+	 * @param earlierEvent
+	 * @return <code>true</code> if the subscriber does not need to see either.
+	 */
+	protected abstract boolean isUndoing(T event, T earlierEvent);
+
+	@Override
+	public synchronized void subscribe(final Flow.Subscriber<? super T> subscriber) {
+		if (null == subscriber) {
+			throw new NullPointerException("subscriber expected");
+		}
+		final BufferedSubscription subscription = new BufferedSubscription(subscriber);
+		for (T event : getReplay()) {
+			subscription.buffer.add(event);
+		}
+		subscriptionStarted();
+		subscriber.onSubscribe(subscription);
+		if (!this.closed && !subscription.isCancelled()) {
+			this.subscriptions.add(subscription);
+		}
+		// also when close() missed it
+		if (this.closed) {
+			subscription.complete();
+		} else {
+			synchronized (subscription) {
+				subscription.scheduleDrain();
+			}
+		}
+	}
+
+	/**
+	 * Publishes an event to all current subscribers. Depending on the overflow
+	 * policy, this can block.
+	 * 
+	 * @param event
+	 */
+	protected synchronized void publish(final T event) {
+		for (BufferedSubscription subscription : this.subscriptions) {
+			subscription.offer(event);
+		}
+	}
+
+	/**
+	 * @return the number of events dropped or replaced because of full buffers.
+	 */
+	public long getDropCount() {
+		long dropCount = 0;
+		for (BufferedSubscription subscription : this.subscriptions) {
+			dropCount += subscription.getDropCount();
+		}
+		return dropCount;
+	}
+
+	public int getSubscriberCount() {
+		return this.subscriptions.size();
+	}
+
+	/**
+	 * Completes all subscriptions, once their buffered events are delivered.
+	 * Events published from now on are not delivered, and a publish blocked on a
+	 * full buffer returns. The threads owned by this publisher end once all
+	 * subscriptions have completed or were cancelled.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		// without the publisher lock, which a blocked publish holds
+		for (BufferedSubscription subscription : this.subscriptions) {
+			subscription.complete();
+		}
+		synchronized (this) {
+			this.subscriptions.clear();
+		}
+		synchronized (this.executorLock) {
+			shutdownIdleExecutor();
+		}
+	}
+
+	private void subscriptionStarted() {
+		synchronized (this.executorLock) {
+			this.activeSubscriptions++;
+		}
+	}
+
+	private void subscriptionEnded() {
+		synchronized (this.executorLock) {
+			this.activeSubscriptions--;
+			shutdownIdleExecutor();
+		}
+	}
+
+	// with the executor lock held
+	private void shutdownIdleExecutor() {
+		if (this.closed && 0 == this.activeSubscriptions && null != this.ownedExecutorService) {
+			this.ownedExecutorService.shutdown();
+			this.ownedExecutorService = null;
+		}
+	}
+
+	private Executor getExecutor() {
+		if (!this.executorOwned) {
+			return this.executor;
+		}
+		synchronized (this.executorLock) {
+			if (null == this.ownedExecutorService) {
+				this.ownedExecutorService = Executors.newCachedThreadPool(runnable -> {
+					final Thread thread = new Thread(runnable, "EventPublisher");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			return this.ownedExecutorService;
+		}
+	}
+
+	private final class BufferedSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super T> subscriber;
+		private final ArrayDeque<T> buffer;
+		private long demand;
+		private boolean cancelled;
+		private boolean completed;
+		private boolean draining;
+		private long dropCount;
+
+		BufferedSubscription(final Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+			this.buffer = new ArrayDeque<>();
+		}
+
+		synchronized void offer(final T event) {
+			while (!this.cancelled && !this.completed && this.buffer.size() >= EventPublisher.this.capacity) {
+				if (OverflowPolicy.BLOCK == EventPublisher.this.overflowPolicy) {
+					try {
+						wait();
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					continue;
+				}
+				if (OverflowPolicy.COALESCE == EventPublisher.this.overflowPolicy && coalesce(event)) {
+					scheduleDrain();
+					return;
+				}
+				if (!dropOldest()) {
+					// only events that cannot be dropped
+					break;
+				}
+				this.dropCount++;
+			}
+			if (this.cancelled || this.completed) {
+				return;
+			}
+			this.buffer.add(event);
+			scheduleDrain();
+		}
+
+		/*
+		 * Drops the last buffered event with the same key together with the new
+		 * event, if the new event undoes it. Otherwise drops the last two buffered
+		 * events with the same key if the one undoes the other, and buffers the new
+		 * event at the tail. Gives back false if nothing could be dropped.
+		 */
+		private boolean coalesce(final T event) {
+			final Object key = getKey(event);
+			if (null == key) {
+				return false;
+			}
+			T lastEvent = null;
+			T earlierEvent = null;
+			final Iterator<T> iterator = this.buffer.descendingIterator();
+			while (iterator.hasNext() && null == earlierEvent) {
+				final T bufferedEvent = iterator.next();
+				if (!key.equals(getKey(bufferedEvent))) {
+					continue;
+				}
+				if (null == lastEvent) {
+					lastEvent = bufferedEvent;
+				} else {
+					earlierEvent = bufferedEvent;
+				}
+			}
+			if (null == lastEvent) {
+				return false;
+			}
+			if (isUndoing(event, lastEvent)) {
+				removeBuffered(lastEvent);
+				this.dropCount += 2;
+				return true;
+			}
+			if (null != earlierEvent && isUndoing(lastEvent, earlierEvent)) {
+				removeBuffered(earlierEvent);
+				removeBuffered(lastEvent);
+				this.dropCount += 2;
+				this.buffer.add(event);
+				return true;
+			}
+			return false;
+		}
+
+		// by identity, events need not implement equals
+		private void removeBuffered(final T event) {
+			final Iterator<T> iterator = this.buffer.iterator();
+			while (iterator.hasNext()) {
+				if (event == iterator.next()) {
+					iterator.remove();
+					return;
+				}
+			}
+		}
+
+		private boolean dropOldest() {
+			final Iterator<T> iterator = this.buffer.iterator();
+			while (iterator.hasNext()) {
+				if (null != getKey(iterator.next())) {
+					iterator.remove();
+					return true;
+				}
+			}
+			return false;
+		}
+
+		synchronized boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		synchronized long getDropCount() {
+			return this.dropCount;
+		}
+
+		synchronized void complete() {
+			this.completed = true;
+			// releases a blocked offer
+			notifyAll();
+			scheduleDrain();
+		}
+
+		@Override
+		public void request(final long n) {
+			if (n <= 0) {
+				cancel();
+				this.subscriber.onError(new IllegalArgumentException("non-positive request"));
+				return;
+			}
+			synchronized (this) {
+				this.demand += n;
+				if (this.demand < 0) {
+					// unbounded
+					this.demand = Long.MAX_VALUE;
+				}
+				scheduleDrain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			final boolean ended;
+			synchronized (this) {
+				ended = this.cancelled;
+				this.cancelled = true;
+				this.buffer.clear();
+				notifyAll();
+			}
+			EventPublisher.this.subscriptions.remove(this);
+			if (!ended) {
+				subscriptionEnded();
+			}
+		}
+
+		// with the lock held
+		void scheduleDrain() {
+			if (this.draining || this.cancelled) {
+				return;
+			}
+			if ((this.demand > 0 && !this.buffer.isEmpty()) || (this.completed && this.buffer.isEmpty())) {
+				this.draining = true;
+				getExecutor().execute(this::drain);
+			}
+		}
+
+		// only ever runs once at a time per subscription
+		private void drain() {
+			while (true) {
+				final T event;
+				synchronized (this) {
+					if (this.cancelled) {
+						this.draining = false;
+						return;
+					}
+					if (this.buffer.isEmpty() && this.completed) {
+						this.cancelled = true;
+						this.draining = false;
+						event = null;
+					} else {
+						if (0 == this.demand || this.buffer.isEmpty()) {
+							this.draining = false;
+							return;
+						}
+						event = this.buffer.pollFirst();
+						if (Long.MAX_VALUE != this.demand) {
+							this.demand--;
+						}
+						notifyAll();
+					}
+				}
+				if (null == event) {
+					this.subscriber.onComplete();
+					subscriptionEnded();
+					return;
+				}
+				try {
+					this.subscriber.onNext(event);
+				} catch (final RuntimeException e) {
+					cancel();
+					this.subscriber.onError(e);
+					return;
+				}
+			}
+		}
+	}
+}
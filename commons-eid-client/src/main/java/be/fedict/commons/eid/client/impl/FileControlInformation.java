@@ -0,0 +1,102 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+/**
+ * Parser for the file control information returned by SELECT FILE, according
+ * to ISO 7816-4. Only the file size is of interest here.
+ */
+public final class FileControlInformation {
+
+	private static final int FCP_TEMPLATE = 0x62;
+	private static final int FMD_TEMPLATE = 0x64;
+	private static final int FCI_TEMPLATE = 0x6F;
+	private static final int DATA_BYTES = 0x80;
+
+	private FileControlInformation() {
+		super();
+	}
+
+	/**
+	 * Gives back the size of the elementary file, as announced within the given
+	 * FCI/FCP response data. Only the number of data bytes (tag 80) is used: the
+	 * total number of bytes allocated to the file (tag 81) can be larger than its
+	 * content.
+	 *
+	 * @param fci the response data of a SELECT FILE command.
+	 * @return the number of data bytes of the file, or -1 if not available.
+	 */
+	public static int getFileSize(final byte[] fci) {
+		if (null == fci || fci.length < 2) {
+			return -1;
+		}
+		final int tag = fci[0] & 0xff;
+		if (FCP_TEMPLATE != tag && FMD_TEMPLATE != tag && FCI_TEMPLATE != tag) {
+			return -1;
+		}
+		final int[] header = parseLength(fci, 1);
+		if (null == header) {
+			return -1;
+		}
+		final int end = Math.min(fci.length, header[1] + header[0]);
+		int idx = header[1];
+		while (idx + 1 < end) {
+			final int dataObjectTag = fci[idx] & 0xff;
+			final int[] length = parseLength(fci, idx + 1);
+			if (null == length || length[1] + length[0] > end) {
+				return -1;
+			}
+			if (DATA_BYTES == dataObjectTag) {
+				return toInt(fci, length[1], length[0]);
+			}
+			idx = length[1] + length[0];
+		}
+		return -1;
+	}
+
+	/*
+	 * Returns { length, offset of value } of the BER-TLV length field at the given
+	 * offset, or null when malformed.
+	 */
+	private static int[] parseLength(final byte[] data, final int offset) {
+		if (offset >= data.length) {
+			return null;
+		}
+		final int first = data[offset] & 0xff;
+		if (first < 0x80) {
+			return new int[] { first, offset + 1 };
+		}
+		final int lengthBytes = first & 0x7f;
+		if (0 == lengthBytes || lengthBytes > 2 || offset + lengthBytes >= data.length) {
+			return null;
+		}
+		return new int[] { toInt(data, offset + 1, lengthBytes), offset + 1 + lengthBytes };
+	}
+
+	private static int toInt(final byte[] data, final int offset, final int length) {
+		if (length < 1 || length > 3) {
+			return -1;
+		}
+		int value = 0;
+		for (int idx = offset; idx < offset + length; idx++) {
+			value = (value << 8) | (data[idx] & 0xff);
+		}
+		return value;
+	}
+}
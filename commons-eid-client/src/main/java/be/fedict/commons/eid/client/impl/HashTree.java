@@ -0,0 +1,180 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import be.fedict.commons.eid.client.HashTreeSignature;
+
+/**
+ * SHA-256 hash tree over a list of document digests, so that a single signature
+ * over the root covers all documents.
+ * 
+ * The leaves are SHA-256(0x00 || document digest), the inner nodes are
+ * SHA-256(0x01 || left || right). A node without sibling is promoted to the
+ * next level as is. The inclusion path of a leaf lists the sibling hashes from
+ * the leaf level up to the root, skipping levels where the node has no
+ * sibling.
+ */
+public final class HashTree {
+
+	private static final byte LEAF = 0x00;
+	private static final byte NODE = 0x01;
+
+	private final List<byte[][]> levels;
+
+	/**
+	 * @param documentDigests the document digests, at least one.
+	 */
+	public HashTree(final List<byte[]> documentDigests) {
+		if (documentDigests.isEmpty()) {
+			throw new IllegalArgumentException("document digests expected");
+		}
+		final MessageDigest messageDigest = getMessageDigest();
+		this.levels = new ArrayList<>();
+		byte[][] level = new byte[documentDigests.size()][];
+		for (int idx = 0; idx < level.length; idx++) {
+			level[idx] = hash(messageDigest, LEAF, documentDigests.get(idx), null);
+		}
+		this.levels.add(level);
+		while (level.length > 1) {
+			final byte[][] parentLevel = new byte[(level.length + 1) / 2][];
+			for (int idx = 0; idx < level.length; idx += 2) {
+				if (idx + 1 < level.length) {
+					parentLevel[idx / 2] = hash(messageDigest, NODE, level[idx], level[idx + 1]);
+				} else {
+					parentLevel[idx / 2] = level[idx];
+				}
+			}
+			this.levels.add(parentLevel);
+			level = parentLevel;
+		}
+	}
+
+	/**
+	 * @return the number of document digests.
+	 */
+	public int getSize() {
+		return this.levels.get(0).length;
+	}
+
+	/**
+	 * @return the root hash, the value to be signed.
+	 */
+	public byte[] getRoot() {
+		return this.levels.get(this.levels.size() - 1)[0].clone();
+	}
+
+	/**
+	 * Gives back the inclusion path of the given document digest.
+	 * 
+	 * @param index the index of the document digest.
+	 * @return the sibling hashes from the leaf level up to the root.
+	 */
+	public List<byte[]> getPath(int index) {
+		if (index < 0 || index >= getSize()) {
+			throw new IndexOutOfBoundsException("index: " + index);
+		}
+		final List<byte[]> path = new ArrayList<>();
+		for (int levelIdx = 0; levelIdx < this.levels.size() - 1; levelIdx++) {
+			final byte[][] level = this.levels.get(levelIdx);
+			final int sibling = index ^ 1;
+			if (sibling < level.length) {
+				path.add(level[sibling].clone());
+			}
+			index /= 2;
+		}
+		return path;
+	}
+
+	/**
+	 * Gives back the detached signatures of all document digests, given the
+	 * signature over the root.
+	 * 
+	 * @param rootSignature the signature over the root hash.
+	 * @return the signatures, in the order of the document digests.
+	 */
+	public List<HashTreeSignature> getSignatures(final byte[] rootSignature) {
+		final List<HashTreeSignature> signatures = new ArrayList<>(getSize());
+		for (int idx = 0; idx < getSize(); idx++) {
+			signatures.add(new HashTreeSignature(idx, getSize(), getPath(idx), rootSignature));
+		}
+		return Collections.unmodifiableList(signatures);
+	}
+
+	/**
+	 * Recomputes the root hash from a document digest and its inclusion path.
+	 * 
+	 * @param documentDigest
+	 * @param index          the index of the document digest.
+	 * @param size           the number of document digests in the tree.
+	 * @param path           the inclusion path.
+	 * @return the root hash, or <code>null</code> if the path does not match the
+	 *         tree size.
+	 */
+	public static byte[] getRoot(final byte[] documentDigest, int index, int size, final List<byte[]> path) {
+		if (index < 0 || index >= size) {
+			return null;
+		}
+		final MessageDigest messageDigest = getMessageDigest();
+		byte[] node = hash(messageDigest, LEAF, documentDigest, null);
+		int pathIdx = 0;
+		while (size > 1) {
+			if (1 == index % 2) {
+				if (pathIdx == path.size()) {
+					return null;
+				}
+				node = hash(messageDigest, NODE, path.get(pathIdx++), node);
+			} else if (index + 1 < size) {
+				if (pathIdx == path.size()) {
+					return null;
+				}
+				node = hash(messageDigest, NODE, node, path.get(pathIdx++));
+			}
+			index /= 2;
+			size = (size + 1) / 2;
+		}
+		if (pathIdx != path.size()) {
+			return null;
+		}
+		return node;
+	}
+
+	private static byte[] hash(final MessageDigest messageDigest, final byte prefix, final byte[] first,
+			final byte[] second) {
+		messageDigest.update(prefix);
+		messageDigest.update(first);
+		if (null != second) {
+			messageDigest.update(second);
+		}
+		return messageDigest.digest();
+	}
+
+	private static MessageDigest getMessageDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256", e);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable matcher for a set of string prefixes. The prefixes are sorted, and
+ * prefixes made redundant by a shorter prefix are dropped, so that matching is a
+ * binary search that does not allocate.
+ */
+public final class PrefixMatcher {
+
+	private final String[] prefixes;
+
+	public PrefixMatcher(final Collection<String> prefixes) {
+		final String[] sortedPrefixes = prefixes.toArray(new String[0]);
+		Arrays.sort(sortedPrefixes);
+		final List<String> retainedPrefixes = new ArrayList<>(sortedPrefixes.length);
+		String lastPrefix = null;
+		for (String prefix : sortedPrefixes) {
+			if (null != lastPrefix && prefix.startsWith(lastPrefix)) {
+				// covered by the shorter prefix
+				continue;
+			}
+			retainedPrefixes.add(prefix);
+			lastPrefix = prefix;
+		}
+		this.prefixes = retainedPrefixes.toArray(new String[0]);
+	}
+
+	public boolean isEmpty() {
+		return 0 == this.prefixes.length;
+	}
+
+	/**
+	 * @param value
+	 * @return <code>true</code> if the value starts with one of the prefixes.
+	 */
+	public boolean matches(final String value) {
+		if (null == value || 0 == this.prefixes.length) {
+			return false;
+		}
+		// any prefix of the value sorts before the value, and no other retained
+		// prefix can sort between the two
+		int idx = Arrays.binarySearch(this.prefixes, value);
+		if (idx >= 0) {
+			return true;
+		}
+		idx = -idx - 2;
+		return idx >= 0 && value.startsWith(this.prefixes[idx]);
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+/**
+ * Selection of the card protocol when connecting to a card terminal. The
+ * protocols are tried in order until a connection succeeds. Optionally, a
+ * short calibration read is done with every supported protocol, and the
+ * fastest one is used. The protocol that worked is remembered per card
+ * terminal name, so later connections to the same terminal use it directly.
+ * 
+ * The default strategy only uses T=0, for optimal compatibility.
+ */
+public class ProtocolStrategy {
+
+	public static final String T0 = "T=0";
+	public static final String T1 = "T=1";
+
+	/*
+	 * The root certificate file, present on all eID cards.
+	 */
+	private static final byte[] CALIBRATION_FILE_ID = new byte[] { 0x3F, 0x00, (byte) 0xDF, 0x00, 0x50, 0x3B };
+
+	private final List<String> protocols;
+	private final boolean calibrate;
+	private final Map<String, String> terminalProtocols;
+
+	/**
+	 * Instantiate a ProtocolStrategy that only uses T=0.
+	 */
+	public ProtocolStrategy() {
+		this(false, false);
+	}
+
+	/**
+	 * Instantiate a ProtocolStrategy.
+	 * 
+	 * @param preferT1  <code>true</code> to try T=1 first, falling back to T=0.
+	 * @param calibrate <code>true</code> to pick the fastest of the supported
+	 *                  protocols via a calibration read of the root certificate.
+	 */
+	public ProtocolStrategy(final boolean preferT1, final boolean calibrate) {
+		if (preferT1 || calibrate) {
+			this.protocols = Collections.unmodifiableList(Arrays.asList(T1, T0));
+		} else {
+			this.protocols = Collections.singletonList(T0);
+		}
+		this.calibrate = calibrate;
+		this.terminalProtocols = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @return the protocols tried, in order.
+	 */
+	public List<String> getProtocols() {
+		return this.protocols;
+	}
+
+	public boolean isCalibrate() {
+		return this.calibrate;
+	}
+
+	/**
+	 * @param cardTerminalName
+	 * @return the protocol remembered for the given card terminal, or
+	 *         <code>null</code>.
+	 */
+	public String getProtocol(final String cardTerminalName) {
+		return this.terminalProtocols.get(cardTerminalName);
+	}
+
+	/**
+	 * Forget the protocol remembered for the given card terminal.
+	 * 
+	 * @param cardTerminalName
+	 */
+	public void forgetProtocol(final String cardTerminalName) {
+		this.terminalProtocols.remove(cardTerminalName);
+	}
+
+	/**
+	 * Connects to the card in the given card terminal.
+	 * 
+	 * @param cardTerminal
+	 * @return the connected card.
+	 * @throws CardException if none of the protocols could be used.
+	 */
+	public Card connect(final CardTerminal cardTerminal) throws CardException {
+		final String cardTerminalName = cardTerminal.getName();
+		final String rememberedProtocol = this.terminalProtocols.get(cardTerminalName);
+		if (null != rememberedProtocol) {
+			try {
+				return cardTerminal.connect(rememberedProtocol);
+			} catch (final CardException e) {
+				this.terminalProtocols.remove(cardTerminalName);
+			}
+		}
+
+		String bestProtocol = null;
+		long bestDuration = Long.MAX_VALUE;
+		CardException lastException = null;
+		for (final String protocol : this.protocols) {
+			final Card card;
+			try {
+				card = cardTerminal.connect(protocol);
+			} catch (final CardException e) {
+				lastException = e;
+				continue;
+			}
+			if (!this.calibrate) {
+				this.terminalProtocols.put(cardTerminalName, protocol);
+				return card;
+			}
+			final long duration = calibrate(card);
+			// reset, so the next protocol can be negotiated
+			card.disconnect(true);
+			if (null == bestProtocol || duration < bestDuration) {
+				bestDuration = duration;
+				bestProtocol = protocol;
+			}
+		}
+		if (null == bestProtocol) {
+			if (null == lastException) {
+				throw new CardException("no card protocol available");
+			}
+			throw lastException;
+		}
+		final Card card = cardTerminal.connect(bestProtocol);
+		if (Long.MAX_VALUE != bestDuration) {
+			this.terminalProtocols.put(cardTerminalName, bestProtocol);
+		}
+		return card;
+	}
+
+	/*
+	 * Times the reading of the root certificate file. Gives back Long.MAX_VALUE if
+	 * this is not an eID card, or in case of errors.
+	 */
+	private long calibrate(final Card card) {
+		final CardChannel cardChannel = card.getBasicChannel();
+		final long start = System.nanoTime();
+		try {
+			ResponseAPDU responseApdu = cardChannel
+					.transmit(new CommandAPDU(0x00, 0xA4, 0x08, 0x0C, CALIBRATION_FILE_ID));
+			if (0x9000 != responseApdu.getSW()) {
+				return Long.MAX_VALUE;
+			}
+			int offset = 0;
+			while (true) {
+				responseApdu = cardChannel.transmit(new CommandAPDU(0x00, 0xB0, offset >> 8, offset & 0xff, 0xff));
+				if (0x6B00 == responseApdu.getSW()) {
+					break;
+				}
+				if (0x9000 != responseApdu.getSW()) {
+					return Long.MAX_VALUE;
+				}
+				final int length = responseApdu.getData().length;
+				offset += length;
+				if (length < 0xff) {
+					break;
+				}
+			}
+		} catch (final CardException e) {
+			return Long.MAX_VALUE;
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.client.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.smartcardio.CardException;
+
+/**
+ * Handling of SCARD_E_SHARING_VIOLATION errors. Instead of pausing after every
+ * command, a card operation is only retried when the PC/SC subsystem actually
+ * reports a sharing violation, with an exponential backoff between the
+ * attempts. The number of sharing violations is recorded per card terminal
+ * name, so readers that never need the work-around can be identified.
+ */
+public class SharingViolationStrategy {
+
+	public static final int DEFAULT_MAX_RETRIES = 5;
+	public static final long DEFAULT_INITIAL_DELAY = 20;
+	public static final long DEFAULT_MAX_DELAY = 500;
+
+	private static final String SHARING_VIOLATION = "SCARD_E_SHARING_VIOLATION";
+
+	private final int maxRetries;
+	private final long initialDelay;
+	private final long maxDelay;
+	private final Map<String, AtomicInteger> sharingViolations;
+
+	/**
+	 * Instantiate a SharingViolationStrategy with the default retry settings.
+	 */
+	public SharingViolationStrategy() {
+		this(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+	}
+
+	/**
+	 * Instantiate a SharingViolationStrategy.
+	 *
+	 * @param maxRetries   the maximum number of retries after a sharing violation.
+	 *                     0 disables the work-around.
+	 * @param initialDelay the delay in milliseconds before the first retry.
+	 * @param maxDelay     the upper bound in milliseconds for the doubling delay.
+	 */
+	public SharingViolationStrategy(final int maxRetries, final long initialDelay, final long maxDelay) {
+		if (maxRetries < 0 || initialDelay < 0 || maxDelay < initialDelay) {
+			throw new IllegalArgumentException("invalid sharing violation retry settings");
+		}
+		this.maxRetries = maxRetries;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.sharingViolations = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Checks whether the given exception, or one of its causes, reports a
+	 * SCARD_E_SHARING_VIOLATION.
+	 *
+	 * @param cardException
+	 * @return <code>true</code> in case of a sharing violation.
+	 */
+	public boolean isSharingViolation(final CardException cardException) {
+		Throwable throwable = cardException;
+		while (null != throwable) {
+			final String message = throwable.getMessage();
+			if (null != message && message.contains(SHARING_VIOLATION)) {
+				return true;
+			}
+			throwable = throwable.getCause();
+		}
+		return false;
+	}
+
+	/**
+	 * @param retry the retry that failed, starting at 0.
+	 * @return <code>true</code> if another attempt should be made.
+	 */
+	public boolean shouldRetry(final int retry) {
+		return retry < this.maxRetries;
+	}
+
+	/**
+	 * @param retry the retry about to be made, starting at 0.
+	 * @return the delay in milliseconds to wait before the given retry.
+	 */
+	public long getDelay(final int retry) {
+		long delay = this.initialDelay;
+		for (int idx = 0; idx < retry && delay < this.maxDelay; idx++) {
+			delay <<= 1;
+		}
+		return Math.min(delay, this.maxDelay);
+	}
+
+	public int getMaxRetries() {
+		return this.maxRetries;
+	}
+
+	public long getInitialDelay() {
+		return this.initialDelay;
+	}
+
+	public long getMaxDelay() {
+		return this.maxDelay;
+	}
+
+	/**
+	 * Records a sharing violation on the given card terminal.
+	 *
+	 * @param cardTerminalName the name of the card terminal, may be null.
+	 */
+	public void sharingViolationOccurred(final String cardTerminalName) {
+		this.sharingViolations.computeIfAbsent(toKey(cardTerminalName), key -> new AtomicInteger()).incrementAndGet();
+	}
+
+	/**
+	 * @param cardTerminalName the name of the card terminal, may be null.
+	 * @return how many times the sharing violation work-around fired for the given
+	 *         card terminal.
+	 */
+	public int getSharingViolations(final String cardTerminalName) {
+		final AtomicInteger counter = this.sharingViolations.get(toKey(cardTerminalName));
+		if (null == counter) {
+			return 0;
+		}
+		return counter.get();
+	}
+
+	/**
+	 * @return a copy of the sharing violation counts, per card terminal name.
+	 */
+	public Map<String, Integer> getSharingViolations() {
+		final Map<String, Integer> result = new HashMap<>();
+		for (Map.Entry<String, AtomicInteger> entry : this.sharingViolations.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().get());
+		}
+		return result;
+	}
+
+	private String toKey(final String cardTerminalName) {
+		if (null == cardTerminalName) {
+			return "";
+		}
+		return cardTerminalName;
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.EnumMap;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import be.fedict.commons.eid.client.impl.CCID;
+import be.fedict.commons.eid.client.impl.CCID.FEATURE;
+import be.fedict.commons.eid.client.impl.CCIDFeatureCache;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class CCIDFeatureCacheTest {
+
+	private static final int GET_TLV_PROPERTIES = 0x42330012;
+
+	@TempDir
+	File tempDir;
+
+	@AfterEach
+	public void tearDown() {
+		CCIDFeatureCache.setFile(null);
+		CCIDFeatureCache.clear();
+	}
+
+	@Test
+	public void testFeatureDiscoveryOncePerCardTerminal() throws Exception {
+		TestCardTerminal cardTerminal = new TestCardTerminal("pinpad reader");
+
+		CCID ccid = new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		assertEquals(1, cardTerminal.controlCommands);
+		assertEquals(Integer.valueOf(0x42330006), ccid.getFeature(FEATURE.VERIFY_PIN_DIRECT));
+
+		// next card in the same reader
+		ccid = new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		assertEquals(1, cardTerminal.controlCommands);
+		assertEquals(Integer.valueOf(0x42330006), ccid.getFeature(FEATURE.VERIFY_PIN_DIRECT));
+		assertFalse(ccid.hasFeature(FEATURE.MODIFY_PIN_DIRECT));
+
+		// detached
+		CCIDFeatureCache.invalidate("pinpad reader");
+		new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		assertEquals(2, cardTerminal.controlCommands);
+	}
+
+	@Test
+	public void testOtherFirmwareDiscoveredAgain() throws Exception {
+		TestCardTerminal cardTerminal = new TestCardTerminal("pinpad reader");
+		// sFirmwareID, wIdVendor, wIdProduct
+		cardTerminal.properties = new byte[] { 0x08, 0x03, '1', '.', '0', 0x0b, 0x02, 0x4e, 0x04, 0x0c, 0x02, 0x11,
+				0x2c };
+
+		new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		// GET_FEATURES, GET_TLV_PROPERTIES
+		assertEquals(2, cardTerminal.controlCommands);
+
+		// same device: only GET_TLV_PROPERTIES
+		CCID ccid = new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		assertEquals(3, cardTerminal.controlCommands);
+		assertEquals(Integer.valueOf(0x42330006), ccid.getFeature(FEATURE.VERIFY_PIN_DIRECT));
+
+		// firmware upgraded, without the card terminal being seen detached
+		cardTerminal.properties[4] = '1';
+		new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+		assertEquals(6, cardTerminal.controlCommands);
+		assertEquals("0803312e310b024e040c02112c", CCIDFeatureCache.get("pinpad reader").getDeviceId());
+	}
+
+	@Test
+	public void testFailedDiscoveryNotCached() throws Exception {
+		TestCardTerminal cardTerminal = new TestCardTerminal("broken reader");
+		cardTerminal.fail = true;
+
+		new CCID(new TestCard(cardTerminal), cardTerminal, new VoidLogger());
+
+		assertNull(CCIDFeatureCache.get("broken reader"));
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		File file = new File(this.tempDir, "ccid.properties");
+		CCIDFeatureCache.setFile(file);
+		EnumMap<FEATURE, Integer> features = new EnumMap<>(FEATURE.class);
+		features.put(FEATURE.VERIFY_PIN_START, 0x42330001);
+		features.put(FEATURE.GET_KEY_PRESSED, 0x42330005);
+		CCIDFeatureCache.put("reader 1", new CCIDFeatureCache.Entry(features, true, "0b024e04"));
+		CCIDFeatureCache.put("reader 2", new CCIDFeatureCache.Entry(new EnumMap<>(FEATURE.class), false, "0b02"));
+		CCIDFeatureCache.invalidate("reader 2");
+		// cannot be told apart from another device with the same name
+		CCIDFeatureCache.put("reader 3", new CCIDFeatureCache.Entry(features, false));
+		assertTrue(file.exists());
+
+		// a new process
+		CCIDFeatureCache.setFile(null);
+		CCIDFeatureCache.clear();
+		CCIDFeatureCache.setFile(file);
+
+		CCIDFeatureCache.Entry entry = CCIDFeatureCache.get("reader 1");
+		assertNotNull(entry);
+		assertEquals(features, entry.getFeatures());
+		assertTrue(entry.usesPPDU());
+		assertEquals("0b024e04", entry.getDeviceId());
+		assertNull(CCIDFeatureCache.get("reader 2"));
+		assertNull(CCIDFeatureCache.get("reader 3"));
+	}
+
+	private static class TestCardTerminal extends CardTerminal {
+
+		private final String name;
+		private int controlCommands;
+		private boolean fail;
+		private byte[] properties;
+
+		TestCardTerminal(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public Card connect(String protocol) {
+			return new TestCard(this);
+		}
+
+		@Override
+		public boolean isCardPresent() {
+			return true;
+		}
+
+		@Override
+		public boolean waitForCardPresent(long timeout) {
+			return true;
+		}
+
+		@Override
+		public boolean waitForCardAbsent(long timeout) {
+			return false;
+		}
+	}
+
+	private static class TestCard extends Card {
+
+		private final TestCardTerminal cardTerminal;
+
+		TestCard(TestCardTerminal cardTerminal) {
+			this.cardTerminal = cardTerminal;
+		}
+
+		@Override
+		public ATR getATR() {
+			return new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40 });
+		}
+
+		@Override
+		public String getProtocol() {
+			return "T=0";
+		}
+
+		@Override
+		public CardChannel getBasicChannel() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CardChannel openLogicalChannel() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void beginExclusive() {
+		}
+
+		@Override
+		public void endExclusive() {
+		}
+
+		@Override
+		public byte[] transmitControlCommand(int controlCode, byte[] command) throws CardException {
+			this.cardTerminal.controlCommands++;
+			if (this.cardTerminal.fail) {
+				throw new CardException("SCARD_E_NOT_TRANSACTED");
+			}
+			if (GET_TLV_PROPERTIES == controlCode) {
+				return this.cardTerminal.properties.clone();
+			}
+			if (null != this.cardTerminal.properties) {
+				// VERIFY_PIN_DIRECT and GET_TLV_PROPERTIES TLV
+				return new byte[] { 0x06, 0x04, 0x42, 0x33, 0x00, 0x06, 0x12, 0x04, 0x42, 0x33, 0x00, 0x12 };
+			}
+			// VERIFY_PIN_DIRECT TLV
+			return new byte[] { 0x06, 0x04, 0x42, 0x33, 0x00, 0x06 };
+		}
+
+		@Override
+		public void disconnect(boolean reset) {
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.event.PINPadKey;
+import be.fedict.commons.eid.client.impl.CCID;
+import be.fedict.commons.eid.client.impl.CCIDFeatureCache;
+import be.fedict.commons.eid.client.impl.VoidLogger;
+
+public class CCIDTest {
+
+	private static final int GET_KEY_PRESSED = 0x42330005;
+
+	@AfterEach
+	public void tearDown() {
+		CCIDFeatureCache.clear();
+	}
+
+	@Test
+	public void testWaitForOK() throws Exception {
+		TestCard card = new TestCard(0x00, 0x00, 0x2b, 0x2b, 0x0a, 0x2b, 0x00, 0x0d);
+		CCID ccid = new CCID(card, null, new VoidLogger());
+		ccid.setPolling(1, 8, 10000);
+		assertEquals(-1, ccid.getConfirmLatency());
+		List<PINPadKey> keys = new LinkedList<>();
+
+		ccid.waitForOK(keys::add);
+
+		assertEquals(Arrays.asList(PINPadKey.DIGIT, PINPadKey.DIGIT, PINPadKey.ERASE, PINPadKey.DIGIT,
+				PINPadKey.CONFIRM), keys);
+		assertEquals(8, card.keyPolls);
+		assertTrue(ccid.getConfirmLatency() >= 1);
+	}
+
+	@Test
+	public void testWaitForOKCancel() throws Exception {
+		TestCard card = new TestCard(0x2b, 0x1b);
+		CCID ccid = new CCID(card, null, new VoidLogger());
+		List<PINPadKey> keys = new LinkedList<>();
+
+		assertThrows(SecurityException.class, () -> ccid.waitForOK(keys::add));
+
+		assertEquals(Arrays.asList(PINPadKey.DIGIT, PINPadKey.CANCEL), keys);
+	}
+
+	@Test
+	public void testWaitForOKDeadline() throws Exception {
+		TestCard card = new TestCard();
+		CCID ccid = new CCID(card, null, new VoidLogger());
+		ccid.setPolling(1, 16, 100);
+		List<PINPadKey> keys = new LinkedList<>();
+
+		ccid.waitForOK(keys::add);
+
+		assertEquals(Arrays.asList(PINPadKey.TIMEOUT), keys);
+		// backoff: 1, 2, 4, 8, 16, 16, ... ms
+		assertTrue(card.keyPolls < 20, "polls: " + card.keyPolls);
+	}
+
+	@Test
+	public void testInvalidPolling() throws Exception {
+		CCID ccid = new CCID(new TestCard(), null, new VoidLogger());
+
+		assertThrows(IllegalArgumentException.class, () -> ccid.setPolling(0, 100, 1000));
+		assertThrows(IllegalArgumentException.class, () -> ccid.setPolling(100, 10, 1000));
+	}
+
+	private static class TestCard extends Card {
+
+		private final int[] keys;
+		private int keyPolls;
+
+		TestCard(int... keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		public ATR getATR() {
+			return new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40 });
+		}
+
+		@Override
+		public String getProtocol() {
+			return "T=0";
+		}
+
+		@Override
+		public CardChannel getBasicChannel() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public CardChannel openLogicalChannel() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void beginExclusive() {
+		}
+
+		@Override
+		public void endExclusive() {
+		}
+
+		@Override
+		public byte[] transmitControlCommand(int controlCode, byte[] command) throws CardException {
+			if (GET_KEY_PRESSED == controlCode) {
+				int key = this.keyPolls < this.keys.length ? this.keys[this.keyPolls] : 0x00;
+				this.keyPolls++;
+				return new byte[] { (byte) key };
+			}
+			// GET_KEY_PRESSED TLV
+			return new byte[] { 0x05, 0x04, 0x42, 0x33, 0x00, 0x05 };
+		}
+
+		@Override
+		public void disconnect(boolean reset) {
+		}
+	}
+}
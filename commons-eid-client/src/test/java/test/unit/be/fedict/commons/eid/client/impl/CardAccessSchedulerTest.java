@@ -0,0 +1,92 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.CardAccessScheduler;
+import be.fedict.commons.eid.client.impl.CardAccessScheduler.Priority;
+
+public class CardAccessSchedulerTest {
+
+	@Test
+	public void testPriorityOrder() throws Exception {
+		CardAccessScheduler scheduler = new CardAccessScheduler();
+		scheduler.acquire(Priority.BACKGROUND);
+		assertTrue(scheduler.isOwner());
+		assertFalse(scheduler.hasPrecedingRequest());
+
+		List<String> grants = Collections.synchronizedList(new ArrayList<>());
+		Thread background = startWaiter(scheduler, Priority.BACKGROUND, "background", grants);
+		Thread first = startWaiter(scheduler, Priority.DEFAULT, "default 1", grants);
+		Thread second = startWaiter(scheduler, Priority.DEFAULT, "default 2", grants);
+		Thread interactive = startWaiter(scheduler, Priority.INTERACTIVE, "interactive", grants);
+		assertEquals(4, scheduler.getWaitingCount());
+		assertTrue(scheduler.hasPrecedingRequest());
+
+		scheduler.release();
+		for (Thread thread : Arrays.asList(background, first, second, interactive)) {
+			thread.join();
+		}
+
+		assertEquals(Arrays.asList("interactive", "default 1", "default 2", "background"), grants);
+		assertEquals(null, scheduler.getOwner());
+	}
+
+	@Test
+	public void testInterruptedWaiter() throws Exception {
+		CardAccessScheduler scheduler = new CardAccessScheduler();
+		scheduler.acquire(Priority.DEFAULT);
+		Thread waiter = startWaiter(scheduler, Priority.INTERACTIVE, "interactive", new ArrayList<>());
+
+		waiter.interrupt();
+		waiter.join();
+
+		assertEquals(0, scheduler.getWaitingCount());
+		assertFalse(scheduler.hasPrecedingRequest());
+	}
+
+	private static Thread startWaiter(CardAccessScheduler scheduler, Priority priority, String name,
+			List<String> grants) throws Exception {
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.acquire(priority);
+			} catch (InterruptedException e) {
+				return;
+			}
+			grants.add(name);
+			scheduler.release();
+		});
+		int waiting = scheduler.getWaitingCount();
+		thread.start();
+		while (scheduler.getWaitingCount() == waiting) {
+			Thread.sleep(1);
+		}
+		return thread;
+	}
+}
@@ -0,0 +1,367 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.smartcardio.Card;
+import javax.smartcardio.CardTerminal;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.event.CardEvent;
+import be.fedict.commons.eid.client.event.Flow;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+import be.fedict.commons.eid.client.impl.CardEventPublisher;
+
+public class CardEventPublisherTest {
+
+	private final CardTerminal terminalA = new TestCardTerminal("reader A");
+	private final CardTerminal terminalB = new TestCardTerminal("reader B");
+
+	@Test
+	public void testReplay() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		publisher.terminalAttached(this.terminalA);
+		publisher.terminalAttached(this.terminalB);
+		publisher.terminalEventsInitialized();
+		publisher.cardInserted(this.terminalB, null);
+		publisher.cardEventsInitialized();
+		publisher.terminalDetached(this.terminalA);
+
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[TERMINAL_ATTACHED [reader B], TERMINAL_EVENTS_INITIALIZED, CARD_INSERTED [reader B], "
+				+ "CARD_EVENTS_INITIALIZED]", subscriber.events.toString());
+
+		publisher.cardRemoved(this.terminalB);
+		assertEquals(5, subscriber.events.size());
+		assertEquals("CARD_REMOVED [reader B]", subscriber.events.get(4).toString());
+	}
+
+	@Test
+	public void testAddPublisher() throws Exception {
+		CardEventPublisher eventPublishers = new CardEventPublisher(1, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		eventPublishers.terminalAttached(this.terminalA);
+		eventPublishers.terminalAttached(this.terminalB);
+		eventPublishers.terminalEventsInitialized();
+		eventPublishers.cardInserted(this.terminalA, null);
+		eventPublishers.cardEventsInitialized();
+
+		// created after the initial events
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		eventPublishers.addPublisher(publisher);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[TERMINAL_ATTACHED [reader A], TERMINAL_ATTACHED [reader B], TERMINAL_EVENTS_INITIALIZED, "
+				+ "CARD_INSERTED [reader A], CARD_EVENTS_INITIALIZED]", subscriber.events.toString());
+
+		eventPublishers.cardRemoved(this.terminalA);
+		assertEquals("CARD_REMOVED [reader A]", subscriber.events.get(5).toString());
+
+		eventPublishers.removePublisher(publisher);
+		eventPublishers.terminalDetached(this.terminalB);
+		assertEquals(6, subscriber.events.size());
+	}
+
+	@Test
+	public void testDemand() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardInserted(this.terminalB, null);
+		assertTrue(subscriber.events.isEmpty());
+
+		subscriber.subscription.request(1);
+		assertEquals("[CARD_INSERTED [reader A]]", subscriber.events.toString());
+
+		subscriber.subscription.request(5);
+		publisher.cardRemoved(this.terminalA);
+		assertEquals(3, subscriber.events.size());
+		assertEquals(0, publisher.getDropCount());
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(2, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardInserted(this.terminalB, null);
+		publisher.cardRemoved(this.terminalA);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[CARD_INSERTED [reader B], CARD_REMOVED [reader A]]", subscriber.events.toString());
+		assertEquals(1, publisher.getDropCount());
+	}
+
+	@Test
+	public void testCoalesce() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(2, OverflowPolicy.COALESCE, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardInserted(this.terminalB, null);
+		// collapses with the insertion
+		publisher.cardRemoved(this.terminalA);
+		publisher.cardRemoved(this.terminalB);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[CARD_INSERTED [reader B], CARD_REMOVED [reader B]]", subscriber.events.toString());
+		assertEquals(2, publisher.getDropCount());
+	}
+
+	@Test
+	public void testCoalesceKeepsOrder() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(3, OverflowPolicy.COALESCE, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardInserted(this.terminalB, null);
+		publisher.cardRemoved(this.terminalA);
+		// the earlier insertion and removal collapse, the new insertion goes last
+		publisher.cardInserted(this.terminalA, null);
+		publisher.terminalAttached(this.terminalB);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[CARD_INSERTED [reader B], CARD_INSERTED [reader A], TERMINAL_ATTACHED [reader B]]",
+				subscriber.events.toString());
+		assertEquals(2, publisher.getDropCount());
+	}
+
+	@Test
+	public void testCoalesceTerminal() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(2, OverflowPolicy.COALESCE, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.terminalAttached(this.terminalA);
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardRemoved(this.terminalA);
+		publisher.cardInserted(this.terminalB, null);
+		publisher.terminalDetached(this.terminalA);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[CARD_INSERTED [reader B]]", subscriber.events.toString());
+		assertEquals(4, publisher.getDropCount());
+	}
+
+	@Test
+	public void testInitializedNeverDropped() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(1, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		publisher.cardEventsInitialized();
+		publisher.cardInserted(this.terminalA, null);
+		publisher.cardInserted(this.terminalB, null);
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertEquals("[CARD_EVENTS_INITIALIZED, CARD_INSERTED [reader B]]", subscriber.events.toString());
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(1, OverflowPolicy.BLOCK, null);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		Thread detector = new Thread(() -> {
+			publisher.cardInserted(this.terminalA, null);
+			publisher.cardRemoved(this.terminalA);
+			publisher.cardInserted(this.terminalB, null);
+		});
+		detector.start();
+		detector.join(500);
+		assertTrue(detector.isAlive());
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		detector.join(5000);
+		assertFalse(detector.isAlive());
+
+		publisher.close();
+		subscriber.awaitCompletion();
+		assertEquals("[CARD_INSERTED [reader A], CARD_REMOVED [reader A], CARD_INSERTED [reader B]]",
+				subscriber.events.toString());
+		assertEquals(0, publisher.getDropCount());
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+		publisher.cardInserted(this.terminalA, null);
+
+		publisher.close();
+		assertFalse(subscriber.completed);
+		assertEquals(0, publisher.getSubscriberCount());
+
+		subscriber.subscription.request(1);
+		assertEquals(1, subscriber.events.size());
+		assertTrue(subscriber.completed);
+	}
+
+	@Test
+	public void testCloseBeforeDelivery() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, null);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+		publisher.cardInserted(this.terminalA, null);
+		publisher.close();
+
+		// the owned threads still deliver the buffered event
+		subscriber.subscription.request(1);
+		subscriber.awaitCompletion();
+		assertEquals("[CARD_INSERTED [reader A]]", subscriber.events.toString());
+
+		// and the replay to late subscribers
+		TestSubscriber lateSubscriber = new TestSubscriber();
+		publisher.subscribe(lateSubscriber);
+		lateSubscriber.subscription.request(Long.MAX_VALUE);
+		lateSubscriber.awaitCompletion();
+		assertEquals("[CARD_INSERTED [reader A]]", lateSubscriber.events.toString());
+	}
+
+	@Test
+	public void testCloseReleasesBlockedPublish() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(1, OverflowPolicy.BLOCK, null);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		Thread detector = new Thread(() -> {
+			publisher.cardInserted(this.terminalA, null);
+			publisher.cardRemoved(this.terminalA);
+		});
+		detector.start();
+		detector.join(500);
+		assertTrue(detector.isAlive());
+
+		Thread closer = new Thread(publisher::close);
+		closer.start();
+		closer.join(5000);
+		assertFalse(closer.isAlive());
+		detector.join(5000);
+		assertFalse(detector.isAlive());
+
+		// the blocked event came after the close
+		subscriber.subscription.request(Long.MAX_VALUE);
+		subscriber.awaitCompletion();
+		assertEquals("[CARD_INSERTED [reader A]]", subscriber.events.toString());
+	}
+
+	@Test
+	public void testNonPositiveRequest() throws Exception {
+		CardEventPublisher publisher = new CardEventPublisher(16, OverflowPolicy.DROP_OLDEST, Runnable::run);
+		TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+
+		subscriber.subscription.request(0);
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+		assertEquals(0, publisher.getSubscriberCount());
+
+		publisher.cardInserted(this.terminalA, null);
+		assertTrue(subscriber.events.isEmpty());
+	}
+
+	private static class TestSubscriber implements Flow.Subscriber<CardEvent> {
+
+		private final List<CardEvent> events = new ArrayList<>();
+		private Flow.Subscription subscription;
+		private Throwable error;
+		private boolean completed;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public synchronized void onNext(CardEvent event) {
+			this.events.add(event);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.error = throwable;
+		}
+
+		@Override
+		public synchronized void onComplete() {
+			this.completed = true;
+			notifyAll();
+		}
+
+		synchronized void awaitCompletion() throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!this.completed && System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+			assertTrue(this.completed);
+		}
+	}
+
+	private static class TestCardTerminal extends CardTerminal {
+
+		private final String name;
+
+		TestCardTerminal(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public Card connect(String protocol) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isCardPresent() {
+			return false;
+		}
+
+		@Override
+		public boolean waitForCardPresent(long timeout) {
+			return false;
+		}
+
+		@Override
+		public boolean waitForCardAbsent(long timeout) {
+			return true;
+		}
+	}
+}
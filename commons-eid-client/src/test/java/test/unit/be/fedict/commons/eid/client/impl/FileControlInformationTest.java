@@ -0,0 +1,62 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.FileControlInformation;
+
+public class FileControlInformationTest {
+
+	@Test
+	public void testFCP() throws Exception {
+		// FCP with file descriptor, data bytes 0x0BF8 and file identifier
+		byte[] fcp = Hex.decode("620f8202012180020bf883024035880100");
+
+		assertEquals(3064, FileControlInformation.getFileSize(fcp));
+	}
+
+	@Test
+	public void testFCITotalBytesIgnored() throws Exception {
+		// allocated bytes, not the size of the content
+		byte[] fci = Hex.decode("6f088102010083024031");
+
+		assertEquals(-1, FileControlInformation.getFileSize(fci));
+	}
+
+	@Test
+	public void testLongFormLength() throws Exception {
+		byte[] fcp = Hex.decode("628104800200b3");
+
+		assertEquals(179, FileControlInformation.getFileSize(fcp));
+	}
+
+	@Test
+	public void testNoFCI() throws Exception {
+		assertEquals(-1, FileControlInformation.getFileSize(null));
+		assertEquals(-1, FileControlInformation.getFileSize(new byte[0]));
+		assertEquals(-1, FileControlInformation.getFileSize(Hex.decode("9000")));
+		assertEquals(-1, FileControlInformation.getFileSize(Hex.decode("6203830240")));
+		// truncated data object
+		assertEquals(-1, FileControlInformation.getFileSize(Hex.decode("6f0781020100830240")));
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.HashTreeSignature;
+import be.fedict.commons.eid.client.impl.HashTree;
+
+public class HashTreeTest {
+
+	@Test
+	public void testSingleDocument() throws Exception {
+		byte[] documentDigest = "document".getBytes();
+		HashTree hashTree = new HashTree(Collections.singletonList(documentDigest));
+
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		messageDigest.update((byte) 0x00);
+		assertArrayEquals(messageDigest.digest(documentDigest), hashTree.getRoot());
+		assertEquals(0, hashTree.getPath(0).size());
+	}
+
+	@Test
+	public void testThreeDocuments() throws Exception {
+		List<byte[]> documentDigests = getDocumentDigests(3);
+		HashTree hashTree = new HashTree(documentDigests);
+
+		byte[] leaf0 = hash(0x00, documentDigests.get(0));
+		byte[] leaf1 = hash(0x00, documentDigests.get(1));
+		byte[] leaf2 = hash(0x00, documentDigests.get(2));
+		assertArrayEquals(hash(0x01, hash(0x01, leaf0, leaf1), leaf2), hashTree.getRoot());
+		// the last leaf is promoted without sibling
+		assertEquals(1, hashTree.getPath(2).size());
+		assertArrayEquals(hash(0x01, leaf0, leaf1), hashTree.getPath(2).get(0));
+	}
+
+	@Test
+	public void testPaths() throws Exception {
+		for (int size = 1; size <= 17; size++) {
+			List<byte[]> documentDigests = getDocumentDigests(size);
+			HashTree hashTree = new HashTree(documentDigests);
+			List<HashTreeSignature> signatures = hashTree.getSignatures(new byte[] { 0x12 });
+			assertEquals(size, signatures.size());
+			for (int idx = 0; idx < size; idx++) {
+				HashTreeSignature signature = signatures.get(idx);
+				assertEquals(idx, signature.getIndex());
+				assertEquals(size, signature.getTreeSize());
+				assertArrayEquals(hashTree.getRoot(),
+						HashTree.getRoot(documentDigests.get(idx), idx, size, signature.getPath()));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidPath() throws Exception {
+		List<byte[]> documentDigests = getDocumentDigests(5);
+		HashTree hashTree = new HashTree(documentDigests);
+		List<byte[]> path = hashTree.getPath(1);
+
+		assertNull(HashTree.getRoot(documentDigests.get(1), 1, 5, path.subList(0, path.size() - 1)));
+		List<byte[]> longPath = new ArrayList<>(path);
+		longPath.add(new byte[32]);
+		assertNull(HashTree.getRoot(documentDigests.get(1), 1, 5, longPath));
+		assertNull(HashTree.getRoot(documentDigests.get(1), 5, 5, path));
+	}
+
+	private static List<byte[]> getDocumentDigests(int count) throws Exception {
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		List<byte[]> documentDigests = new ArrayList<>();
+		for (int idx = 0; idx < count; idx++) {
+			documentDigests.add(messageDigest.digest(("document " + idx).getBytes()));
+		}
+		return documentDigests;
+	}
+
+	private static byte[] hash(int prefix, byte[]... data) throws Exception {
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		messageDigest.update((byte) prefix);
+		for (byte[] dataItem : data) {
+			messageDigest.update(dataItem);
+		}
+		return messageDigest.digest();
+	}
+}
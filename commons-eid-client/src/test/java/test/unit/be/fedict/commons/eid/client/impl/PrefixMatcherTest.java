@@ -0,0 +1,58 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.PrefixMatcher;
+
+public class PrefixMatcherTest {
+
+	@Test
+	public void testMatches() throws Exception {
+		PrefixMatcher matcher = new PrefixMatcher(
+				Arrays.asList("VASCO DP905", "Fedix SCR", "Fedix", "ACS ACR122U PICC Interface", "A"));
+
+		assertTrue(matcher.matches("Fedix SCR 0"));
+		assertTrue(matcher.matches("Fedix"));
+		assertTrue(matcher.matches("FedixSCR 0"));
+		assertTrue(matcher.matches("ACS ACR122U PICC Interface 00 00"));
+		assertTrue(matcher.matches("ACS ACR38U"));
+		assertTrue(matcher.matches("VASCO DP905 00 00"));
+		assertFalse(matcher.matches("VASCO DP865 00 00"));
+		assertFalse(matcher.matches("Fedi"));
+		assertFalse(matcher.matches("Gemalto"));
+		assertFalse(matcher.matches(""));
+		assertFalse(matcher.matches(null));
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		PrefixMatcher matcher = new PrefixMatcher(Collections.emptySet());
+
+		assertTrue(matcher.isEmpty());
+		assertFalse(matcher.matches("Fedix SCR 0"));
+	}
+}
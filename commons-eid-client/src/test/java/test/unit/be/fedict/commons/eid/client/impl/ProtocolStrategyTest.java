@@ -0,0 +1,230 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.Card;
+import javax.smartcardio.CardChannel;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.ProtocolStrategy;
+
+public class ProtocolStrategyTest {
+
+	@Test
+	public void testDefaultOnlyUsesT0() throws Exception {
+		ProtocolStrategy strategy = new ProtocolStrategy();
+		TestCardTerminal cardTerminal = new TestCardTerminal("reader", ProtocolStrategy.T0);
+
+		Card card = strategy.connect(cardTerminal);
+
+		assertEquals(ProtocolStrategy.T0, card.getProtocol());
+		assertEquals(Arrays.asList(ProtocolStrategy.T0), cardTerminal.connects);
+	}
+
+	@Test
+	public void testFallbackToT0() throws Exception {
+		ProtocolStrategy strategy = new ProtocolStrategy(true, false);
+		TestCardTerminal cardTerminal = new TestCardTerminal("reader", ProtocolStrategy.T0);
+
+		Card card = strategy.connect(cardTerminal);
+
+		assertEquals(ProtocolStrategy.T0, card.getProtocol());
+		assertEquals(Arrays.asList(ProtocolStrategy.T1, ProtocolStrategy.T0), cardTerminal.connects);
+		assertEquals(ProtocolStrategy.T0, strategy.getProtocol("reader"));
+
+		// remembered, no more T=1 attempt
+		cardTerminal.connects.clear();
+		strategy.connect(cardTerminal);
+		assertEquals(Arrays.asList(ProtocolStrategy.T0), cardTerminal.connects);
+		assertNull(strategy.getProtocol("other reader"));
+	}
+
+	@Test
+	public void testNoProtocol() throws Exception {
+		ProtocolStrategy strategy = new ProtocolStrategy(true, false);
+		TestCardTerminal cardTerminal = new TestCardTerminal("reader");
+
+		assertThrows(CardException.class, () -> strategy.connect(cardTerminal));
+		assertNull(strategy.getProtocol("reader"));
+	}
+
+	@Test
+	public void testCalibration() throws Exception {
+		ProtocolStrategy strategy = new ProtocolStrategy(false, true);
+		TestCardTerminal cardTerminal = new TestCardTerminal("reader", ProtocolStrategy.T1, ProtocolStrategy.T0);
+		cardTerminal.transmitDelay = 20;
+		cardTerminal.slowProtocol = ProtocolStrategy.T1;
+
+		Card card = strategy.connect(cardTerminal);
+
+		assertEquals(ProtocolStrategy.T0, card.getProtocol());
+		assertEquals(Arrays.asList(ProtocolStrategy.T1, ProtocolStrategy.T0, ProtocolStrategy.T0),
+				cardTerminal.connects);
+		assertEquals(2, cardTerminal.resets);
+		assertEquals(ProtocolStrategy.T0, strategy.getProtocol("reader"));
+
+		strategy.forgetProtocol("reader");
+		assertNull(strategy.getProtocol("reader"));
+	}
+
+	private static class TestCardTerminal extends CardTerminal {
+
+		private final String name;
+		private final List<String> supportedProtocols;
+		private final List<String> connects = new LinkedList<>();
+		private String slowProtocol;
+		private long transmitDelay;
+		private int resets;
+
+		TestCardTerminal(String name, String... supportedProtocols) {
+			this.name = name;
+			this.supportedProtocols = Arrays.asList(supportedProtocols);
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public Card connect(String protocol) throws CardException {
+			this.connects.add(protocol);
+			if (!this.supportedProtocols.contains(protocol)) {
+				throw new CardException("unsupported protocol: " + protocol);
+			}
+			return new TestCard(this, protocol);
+		}
+
+		@Override
+		public boolean isCardPresent() {
+			return true;
+		}
+
+		@Override
+		public boolean waitForCardPresent(long timeout) {
+			return true;
+		}
+
+		@Override
+		public boolean waitForCardAbsent(long timeout) {
+			return false;
+		}
+	}
+
+	private static class TestCard extends Card {
+
+		private final TestCardTerminal cardTerminal;
+		private final String protocol;
+
+		TestCard(TestCardTerminal cardTerminal, String protocol) {
+			this.cardTerminal = cardTerminal;
+			this.protocol = protocol;
+		}
+
+		@Override
+		public ATR getATR() {
+			return new ATR(new byte[] { 0x3b, (byte) 0x98, 0x13, 0x40 });
+		}
+
+		@Override
+		public String getProtocol() {
+			return this.protocol;
+		}
+
+		@Override
+		public CardChannel getBasicChannel() {
+			return new CardChannel() {
+
+				@Override
+				public Card getCard() {
+					return TestCard.this;
+				}
+
+				@Override
+				public int getChannelNumber() {
+					return 0;
+				}
+
+				@Override
+				public ResponseAPDU transmit(CommandAPDU command) throws CardException {
+					if (TestCard.this.protocol.equals(TestCard.this.cardTerminal.slowProtocol)) {
+						try {
+							Thread.sleep(TestCard.this.cardTerminal.transmitDelay);
+						} catch (InterruptedException e) {
+							throw new CardException("interrupted");
+						}
+					}
+					if (0xB0 == command.getINS()) {
+						return new ResponseAPDU(new byte[] { 0x01, 0x02, 0x03, (byte) 0x90, 0x00 });
+					}
+					return new ResponseAPDU(new byte[] { (byte) 0x90, 0x00 });
+				}
+
+				@Override
+				public int transmit(ByteBuffer command, ByteBuffer response) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() {
+				}
+			};
+		}
+
+		@Override
+		public CardChannel openLogicalChannel() throws CardException {
+			throw new CardException("not supported");
+		}
+
+		@Override
+		public void beginExclusive() {
+		}
+
+		@Override
+		public void endExclusive() {
+		}
+
+		@Override
+		public byte[] transmitControlCommand(int controlCode, byte[] command) throws CardException {
+			throw new CardException("not supported");
+		}
+
+		@Override
+		public void disconnect(boolean reset) {
+			if (reset) {
+				this.cardTerminal.resets++;
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.unit.be.fedict.commons.eid.client.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.smartcardio.CardException;
+
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.impl.SharingViolationStrategy;
+
+public class SharingViolationStrategyTest {
+
+	@Test
+	public void testIsSharingViolation() throws Exception {
+		SharingViolationStrategy strategy = new SharingViolationStrategy();
+
+		assertTrue(strategy.isSharingViolation(
+				new CardException("transmit failed", new Exception("SCARD_E_SHARING_VIOLATION"))));
+		assertFalse(strategy.isSharingViolation(new CardException("SCARD_E_NO_SMARTCARD")));
+	}
+
+	@Test
+	public void testBackoff() throws Exception {
+		SharingViolationStrategy strategy = new SharingViolationStrategy(4, 10, 50);
+
+		assertEquals(10, strategy.getDelay(0));
+		assertEquals(20, strategy.getDelay(1));
+		assertEquals(40, strategy.getDelay(2));
+		assertEquals(50, strategy.getDelay(3));
+		assertTrue(strategy.shouldRetry(3));
+		assertFalse(strategy.shouldRetry(4));
+	}
+
+	@Test
+	public void testSharingViolationsPerCardTerminal() throws Exception {
+		SharingViolationStrategy strategy = new SharingViolationStrategy();
+
+		strategy.sharingViolationOccurred("reader 1");
+		strategy.sharingViolationOccurred("reader 1");
+		strategy.sharingViolationOccurred(null);
+
+		assertEquals(2, strategy.getSharingViolations("reader 1"));
+		assertEquals(1, strategy.getSharingViolations(null));
+		assertEquals(0, strategy.getSharingViolations("reader 2"));
+		assertEquals(2, strategy.getSharingViolations().size());
+	}
+}
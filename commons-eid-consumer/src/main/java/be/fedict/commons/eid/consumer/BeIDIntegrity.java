@@ -35,6 +35,8 @@ import java.security.cert.X509Certificate;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -264,6 +266,72 @@ public class BeIDIntegrity {
 		return signature.verify(signatureData);
 	}
 
+	/**
+	 * Verifies the detached signature of a document digest out of a batch signed
+	 * via a single signature over a hash tree. The leaves of the SHA-256 hash
+	 * tree are SHA-256(0x00 || document digest), the inner nodes are SHA-256(0x01
+	 * || left || right), and a node without sibling is promoted as is. The root
+	 * hash is signed as a message.
+	 * 
+	 * @param documentDigest the document digest.
+	 * @param index          the index of the document digest within the tree.
+	 * @param treeSize       the number of document digests in the tree.
+	 * @param path           the sibling hashes from the leaf level up to the
+	 *                       root.
+	 * @param signatureAlgo  the signature algorithm used to sign the root hash.
+	 * @param rootSignature  the signature over the root hash.
+	 * @param certificate    the signer certificate.
+	 * @return
+	 */
+	public boolean verifyHashTreeSignature(final byte[] documentDigest, final int index, final int treeSize,
+			final List<byte[]> path, final String signatureAlgo, final byte[] rootSignature,
+			final X509Certificate certificate) {
+		final byte[] root = getHashTreeRoot(documentDigest, index, treeSize, path);
+		if (null == root) {
+			LOGGER.warn("hash tree path mismatch");
+			return false;
+		}
+		try {
+			return this.verifySignature(signatureAlgo, rootSignature, certificate.getPublicKey(), root);
+		} catch (final InvalidKeyException ikex) {
+			LOGGER.warn("invalid key: " + ikex.getMessage(), ikex);
+			return false;
+		} catch (final NoSuchAlgorithmException nsaex) {
+			LOGGER.warn("no such algo: " + nsaex.getMessage(), nsaex);
+			return false;
+		} catch (final SignatureException sigex) {
+			LOGGER.warn("signature error: " + sigex.getMessage(), sigex);
+			return false;
+		}
+	}
+
+	private byte[] getHashTreeRoot(final byte[] documentDigest, int index, int treeSize, final List<byte[]> path) {
+		if (index < 0 || index >= treeSize) {
+			return null;
+		}
+		byte[] node = digest("SHA-256", new byte[] { 0x00 }, documentDigest);
+		final Iterator<byte[]> pathIterator = path.iterator();
+		while (treeSize > 1) {
+			if (1 == index % 2) {
+				if (!pathIterator.hasNext()) {
+					return null;
+				}
+				node = digest("SHA-256", new byte[] { 0x01 }, pathIterator.next(), node);
+			} else if (index + 1 < treeSize) {
+				if (!pathIterator.hasNext()) {
+					return null;
+				}
+				node = digest("SHA-256", new byte[] { 0x01 }, node, pathIterator.next());
+			}
+			index /= 2;
+			treeSize = (treeSize + 1) / 2;
+		}
+		if (pathIterator.hasNext()) {
+			return null;
+		}
+		return node;
+	}
+
 	private byte[] fixECDSASignature(byte[] signature) {
 		int derSize = signature[1];
 		if (signature.length > derSize + 2) {
@@ -275,14 +343,17 @@ public class BeIDIntegrity {
 		return signature;
 	}
 
-	private byte[] digest(final String algoName, final byte[] data) {
+	private byte[] digest(final String algoName, final byte[]... data) {
 		MessageDigest messageDigest;
 		try {
 			messageDigest = MessageDigest.getInstance(algoName);
 		} catch (final NoSuchAlgorithmException nsaex) {
 			throw new RuntimeException(algoName);
 		}
-		return messageDigest.digest(data);
+		for (final byte[] dataItem : data) {
+			messageDigest.update(dataItem);
+		}
+		return messageDigest.digest();
 	}
 
 	private byte[] trimRight(final byte[] addressFile) {
@@ -20,6 +20,7 @@
 package test.unit.be.fedict.commons.eid.consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -46,6 +47,7 @@ import java.security.spec.ECGenParameterSpec;
 import java.security.spec.RSAKeyGenParameterSpec;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
 
 import org.apache.commons.io.IOUtils;
@@ -430,6 +432,52 @@ public class BeIDIntegrityTest {
 		assertEquals("1234", identity.nationalNumber);
 	}
 
+	@Test
+	public void testVerifyHashTreeSignature() throws Exception {
+		KeyPair keyPair = generateKeyPair(1024, "RSA");
+		X509Certificate certificate = generateSelfSignedCertificate(keyPair.getPublic(), "CN=Test", keyPair.getPrivate(),
+				"SHA256withRSA");
+
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		byte[] document0 = messageDigest.digest("document 0".getBytes());
+		byte[] document1 = messageDigest.digest("document 1".getBytes());
+		byte[] document2 = messageDigest.digest("document 2".getBytes());
+		byte[] leaf0 = hash(0x00, document0);
+		byte[] leaf1 = hash(0x00, document1);
+		byte[] leaf2 = hash(0x00, document2);
+		byte[] node01 = hash(0x01, leaf0, leaf1);
+		byte[] root = hash(0x01, node01, leaf2);
+
+		Signature signature = Signature.getInstance("SHA256withRSA");
+		signature.initSign(keyPair.getPrivate());
+		signature.update(root);
+		byte[] rootSignature = signature.sign();
+
+		BeIDIntegrity beIDIntegrity = new BeIDIntegrity();
+		assertTrue(beIDIntegrity.verifyHashTreeSignature(document0, 0, 3, Arrays.asList(leaf1, leaf2),
+				"SHA256withRSA", rootSignature, certificate));
+		assertTrue(beIDIntegrity.verifyHashTreeSignature(document1, 1, 3, Arrays.asList(leaf0, leaf2),
+				"SHA256withRSA", rootSignature, certificate));
+		assertTrue(beIDIntegrity.verifyHashTreeSignature(document2, 2, 3, Arrays.asList(node01), "SHA256withRSA",
+				rootSignature, certificate));
+
+		assertFalse(beIDIntegrity.verifyHashTreeSignature(document1, 0, 3, Arrays.asList(leaf1, leaf2),
+				"SHA256withRSA", rootSignature, certificate));
+		assertFalse(beIDIntegrity.verifyHashTreeSignature(document2, 2, 4, Arrays.asList(node01), "SHA256withRSA",
+				rootSignature, certificate));
+		assertFalse(beIDIntegrity.verifyHashTreeSignature(document2, 2, 3, Arrays.asList(node01, leaf2),
+				"SHA256withRSA", rootSignature, certificate));
+	}
+
+	private byte[] hash(int prefix, byte[]... data) throws Exception {
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		messageDigest.update((byte) prefix);
+		for (byte[] dataItem : data) {
+			messageDigest.update(dataItem);
+		}
+		return messageDigest.digest();
+	}
+
 	private KeyPair generateKeyPair(int keySize, String keyAlgorithm) throws Exception {
 		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(keyAlgorithm);
 		SecureRandom random = new SecureRandom();
@@ -0,0 +1,83 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package be.fedict.commons.eid.jca;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.List;
+
+import be.fedict.commons.eid.client.HashTreeSignature;
+import be.fedict.commons.eid.client.impl.HashTree;
+
+/**
+ * Signs a batch of document digests with a single eID signature, by signing
+ * the root of a hash tree over the document digests.
+ * <p/>
+ * Usage:
+ * <p/>
+ * 
+ * <pre>
+ * PrivateKey privateKey = (PrivateKey) keyStore.getKey("Signature", null);
+ * BeIDHashTreeSigner signer = new BeIDHashTreeSigner(privateKey, "SHA256withRSA");
+ * List&lt;HashTreeSignature&gt; signatures = signer.sign(documentDigests);
+ * </pre>
+ * 
+ * The resulting signatures can be verified via
+ * <code>BeIDIntegrity.verifyHashTreeSignature</code>.
+ * 
+ * @see HashTree
+ */
+public class BeIDHashTreeSigner {
+
+	private final PrivateKey privateKey;
+
+	private final String signatureAlgorithm;
+
+	/**
+	 * @param privateKey         the eID private key.
+	 * @param signatureAlgorithm the signature algorithm used to sign the root
+	 *                           hash, like SHA256withRSA.
+	 */
+	public BeIDHashTreeSigner(final PrivateKey privateKey, final String signatureAlgorithm) {
+		this.privateKey = privateKey;
+		this.signatureAlgorithm = signatureAlgorithm;
+	}
+
+	/**
+	 * Signs the given document digests, using a single eID signature.
+	 * 
+	 * @param documentDigests the document digests, at least one.
+	 * @return the signatures, in the order of the document digests.
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeyException
+	 * @throws SignatureException
+	 */
+	public List<HashTreeSignature> sign(final List<byte[]> documentDigests)
+			throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+		final HashTree hashTree = new HashTree(documentDigests);
+		final Signature signature = Signature.getInstance(this.signatureAlgorithm);
+		signature.initSign(this.privateKey);
+		signature.update(hashTree.getRoot());
+		final byte[] rootSignature = signature.sign();
+		return hashTree.getSignatures(rootSignature);
+	}
+}
@@ -0,0 +1,886 @@
+/*
+ * Commons eID Project.
+ * Copyright (C) 2026 e-Contract.be BV.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License version
+ * 3.0 as published by the Free Software Foundation.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, see
+ * http://www.gnu.org/licenses/.
+ */
+
+package test.integ.be.fedict.commons.eid.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.smartcardio.ATR;
+import javax.smartcardio.CardException;
+import javax.smartcardio.CommandAPDU;
+import javax.smartcardio.ResponseAPDU;
+
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import be.fedict.commons.eid.client.BeIDCard;
+import be.fedict.commons.eid.client.BeIDCardAsync;
+import be.fedict.commons.eid.client.BeIDCardSession;
+import be.fedict.commons.eid.client.EidSnapshot;
+import be.fedict.commons.eid.client.FileType;
+import be.fedict.commons.eid.client.PINPurpose;
+import be.fedict.commons.eid.client.event.BeIDCardListener;
+import be.fedict.commons.eid.client.impl.BeIDDigest;
+import be.fedict.commons.eid.client.spi.BeIDCardUIAdapter;
+import be.fedict.commons.eid.client.spi.UserCancelledException;
+import test.integ.be.fedict.commons.eid.client.simulation.ErrorCapableBeIdCard;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedBeIDCard;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCard;
+import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCardTerminal;
+
+public class BeIDCardSimulationTest {
+
+	private static final byte[] ATR_1_8 = new byte[] { 0x3b, 0x7f, (byte) 0x96, 0x00, 0x00, (byte) 0x80, 0x31,
+			(byte) 0x80, 0x65, (byte) 0xb0, (byte) 0x85, 0x04, 0x01, 0x20, 0x12, 0x0f, (byte) 0xff, (byte) 0x82,
+			(byte) 0x90, 0x00 };
+
+	private SimulatedBeIDCard simulatedCard;
+
+	private BeIDCard beIDCard;
+
+	@BeforeEach
+	public void setUp() {
+		this.simulatedCard = new SimulatedBeIDCard("Alice");
+		this.beIDCard = new BeIDCard(this.simulatedCard, new TestLogger());
+	}
+
+	@Test
+	public void testReadFileIntoBuffer() throws Exception {
+		byte[] photo = this.beIDCard.readFile(FileType.Photo);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(photo.length);
+		int size = this.beIDCard.readFile(FileType.Photo, buffer);
+
+		assertEquals(photo.length, size);
+		buffer.flip();
+		byte[] bufferedPhoto = new byte[buffer.remaining()];
+		buffer.get(bufferedPhoto);
+		assertArrayEquals(photo, bufferedPhoto);
+
+		// shorter than a single response
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+		buffer = ByteBuffer.allocate(identity.length);
+		assertEquals(identity.length, this.beIDCard.readFile(FileType.Identity, buffer));
+		assertArrayEquals(identity, buffer.array());
+	}
+
+	@Test
+	public void testReadFileIntoTooSmallBuffer() throws Exception {
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+
+		ByteBuffer buffer = ByteBuffer.allocate(identity.length - 1);
+		assertThrows(BufferOverflowException.class, () -> this.beIDCard.readFile(FileType.Identity, buffer));
+	}
+
+	@Test
+	public void testOpenFile() throws Exception {
+		byte[] photo = this.beIDCard.readFile(FileType.Photo);
+
+		byte[] streamedPhoto;
+		try (InputStream inputStream = this.beIDCard.openFile(FileType.Photo)) {
+			streamedPhoto = IOUtils.toByteArray(inputStream);
+		}
+
+		assertArrayEquals(photo, streamedPhoto);
+	}
+
+	@Test
+	public void testOpenFileWithNestedRead() throws Exception {
+		byte[] photo = this.beIDCard.readFile(FileType.Photo);
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+
+		ByteArrayOutputStream streamedPhoto = new ByteArrayOutputStream();
+		try (InputStream inputStream = this.beIDCard.openFile(FileType.Photo)) {
+			streamedPhoto.write(inputStream.read());
+			assertArrayEquals(identity, this.beIDCard.readFile(FileType.Identity));
+			IOUtils.copy(inputStream, streamedPhoto);
+		}
+
+		assertArrayEquals(photo, streamedPhoto.toByteArray());
+	}
+
+	@Test
+	public void testCloseFileFromOtherThread() throws Exception {
+		InputStream inputStream = this.beIDCard.openFile(FileType.Photo);
+		AtomicReference<Throwable> closeError = new AtomicReference<>();
+		Thread otherThread = new Thread(() -> {
+			try {
+				inputStream.close();
+			} catch (Throwable e) {
+				closeError.set(e);
+			}
+		});
+		otherThread.start();
+		otherThread.join();
+		assertTrue(closeError.get() instanceof IllegalStateException);
+		assertTrue(this.beIDCard.isExclusive());
+
+		inputStream.close();
+		assertFalse(this.beIDCard.isExclusive());
+	}
+
+	@Test
+	public void testReadSnapshot() throws Exception {
+		EidSnapshot snapshot = this.beIDCard.readSnapshot(EnumSet.allOf(FileType.class));
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.RootCertificate),
+				snapshot.getFile(FileType.RootCertificate));
+	}
+
+	@Test
+	public void testResumableRead() throws Exception {
+		byte[] photo = this.beIDCard.readFile(FileType.Photo);
+		int fullReadCommandCount = this.simulatedCard.getCommandCount();
+
+		ErrorCapableBeIdCard errorCapableCard = new ErrorCapableBeIdCard("Alice");
+		errorCapableCard.setCardData(Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f"));
+		errorCapableCard.introduceCardException(6);
+		BeIDCard interruptedBeIDCard = new BeIDCard(errorCapableCard, new TestLogger()).setResumableReads(true);
+		assertThrows(CardException.class, () -> interruptedBeIDCard.readFile(FileType.Photo));
+
+		// reconnect to the same card
+		int commandCount = errorCapableCard.getCommandCount();
+		BeIDCard resumedBeIDCard = new BeIDCard(errorCapableCard, new TestLogger()).setResumableReads(true);
+		byte[] resumedPhoto = resumedBeIDCard.readFile(FileType.Photo);
+
+		assertArrayEquals(photo, resumedPhoto);
+		// select file, get card data and only the remaining blocks
+		assertTrue(errorCapableCard.getCommandCount() - commandCount < fullReadCommandCount);
+	}
+
+	@Test
+	public void testResumableReadOfOtherSelectedFile() throws Exception {
+		ErrorCapableBeIdCard errorCapableCard = new ErrorCapableBeIdCard("Alice");
+		errorCapableCard.setCardData(Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f"));
+		errorCapableCard.introduceCardException(6);
+		BeIDCard interruptedBeIDCard = new BeIDCard(errorCapableCard, new TestLogger()).setResumableReads(true);
+		assertThrows(CardException.class, () -> interruptedBeIDCard.readFile(FileType.Photo));
+
+		// the photo checkpoint does not apply to another file
+		BeIDCard resumedBeIDCard = new BeIDCard(errorCapableCard, new TestLogger()).setResumableReads(true);
+		byte[] identity;
+		try (BeIDCardSession session = resumedBeIDCard.session()) {
+			resumedBeIDCard.selectFile(FileType.Identity.getFileId());
+			identity = resumedBeIDCard.readBinary(FileType.Photo, FileType.Photo.getEstimatedMaxSize());
+		}
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), identity);
+
+		// the chip serial number is asked once per card connection
+		int commandCount = errorCapableCard.getCommandCount();
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), resumedBeIDCard.readFile(FileType.Photo));
+		int resumedCommandCount = errorCapableCard.getCommandCount() - commandCount;
+		new BeIDCard(errorCapableCard, new TestLogger()).setResumableReads(true).readFile(FileType.Identity);
+		assertEquals(commandCount + resumedCommandCount + 2, errorCapableCard.getCommandCount());
+	}
+
+	@Test
+	public void testSnapshotSelectsFilesByFileIdentifier() throws Exception {
+		EidSnapshot snapshot = this.beIDCard
+				.readSnapshot(EnumSet.of(FileType.Identity, FileType.Address, FileType.Photo));
+
+		// Address and Photo share the DF of Identity
+		assertEquals(2, this.simulatedCard.getShortSelectCount());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Address), snapshot.getAddress());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), snapshot.getPhoto());
+		assertEquals(2, this.simulatedCard.getShortSelectCount());
+	}
+
+	@Test
+	public void testSession() throws Exception {
+		Thread otherThread = new Thread(() -> {
+			try {
+				this.beIDCard.readFile(FileType.Identity);
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		try (BeIDCardSession session = this.beIDCard.session()) {
+			this.beIDCard.readFile(FileType.Identity);
+			this.beIDCard.readFile(FileType.Address);
+			try (BeIDCardSession nestedSession = this.beIDCard.session()) {
+				this.beIDCard.readFile(FileType.Photo);
+			}
+			assertTrue(this.beIDCard.isExclusive());
+
+			// other threads wait for the session to end
+			otherThread.start();
+			otherThread.join(200);
+			assertTrue(otherThread.isAlive());
+			assertEquals(1, this.simulatedCard.getTransactionCount());
+			// the selection state is kept across the calls within the session
+			assertEquals(2, this.simulatedCard.getShortSelectCount());
+		}
+		assertFalse(this.beIDCard.isExclusive());
+		otherThread.join();
+		assertEquals(2, this.simulatedCard.getTransactionCount());
+	}
+
+	@Test
+	public void testCardOperationsWaitForSession() throws Exception {
+		byte[] cardData = Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f");
+		this.simulatedCard.setCardData(cardData);
+		AtomicReference<byte[]> otherCardData = new AtomicReference<>();
+		Thread otherThread = new Thread(() -> {
+			try {
+				this.beIDCard.selectFile(FileType.Identity.getFileId());
+				otherCardData.set(this.beIDCard.getCardData());
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+		try (BeIDCardSession session = this.beIDCard.session()) {
+			otherThread.start();
+			otherThread.join(200);
+			// queued instead of interleaving with the session
+			assertTrue(otherThread.isAlive());
+			assertEquals(1, this.simulatedCard.getTransactionCount());
+		}
+		otherThread.join();
+		assertArrayEquals(cardData, otherCardData.get());
+		assertEquals(3, this.simulatedCard.getTransactionCount());
+	}
+
+	@Test
+	public void testReadYieldsToHigherPriority() throws Exception {
+		List<FileType> cardReads = Collections.synchronizedList(new ArrayList<>());
+		AtomicReference<Thread> certificateThread = new AtomicReference<>();
+		readCertificateWhileReadingPhoto(cardReads, certificateThread);
+
+		byte[] photo = this.beIDCard.readFile(FileType.Photo);
+		certificateThread.get().join();
+
+		// photo read, yielded to the certificate read, resumed photo read
+		assertEquals(Arrays.asList(FileType.Photo, FileType.AuthentificationCertificate, FileType.Photo), cardReads);
+		assertEquals(3, this.simulatedCard.getTransactionCount());
+		assertArrayEquals(new BeIDCard(this.simulatedCard, new TestLogger()).readFile(FileType.Photo), photo);
+	}
+
+	@Test
+	public void testSnapshotDoesNotYield() throws Exception {
+		List<FileType> cardReads = Collections.synchronizedList(new ArrayList<>());
+		AtomicReference<Thread> certificateThread = new AtomicReference<>();
+		readCertificateWhileReadingPhoto(cardReads, certificateThread);
+
+		EidSnapshot snapshot = this.beIDCard
+				.readSnapshot(EnumSet.of(FileType.Identity, FileType.Photo, FileType.Address));
+		certificateThread.get().join();
+
+		// the certificate read waits for the whole snapshot
+		assertEquals(Arrays.asList(FileType.Identity, FileType.Address, FileType.Photo,
+				FileType.AuthentificationCertificate), cardReads);
+		assertEquals(2, this.simulatedCard.getTransactionCount());
+		assertArrayEquals(new BeIDCard(this.simulatedCard, new TestLogger()).readFile(FileType.Photo),
+				snapshot.getPhoto());
+	}
+
+	/*
+	 * Starts a certificate read from another thread once the photo read is
+	 * under way, and records the files being read, in card order, as read
+	 * progress is notified while holding the card.
+	 */
+	private void readCertificateWhileReadingPhoto(List<FileType> cardReads, AtomicReference<Thread> certificateThread) {
+		this.beIDCard.addCardListener(new BeIDCardListener() {
+
+			@Override
+			public void notifyReadProgress(FileType fileType, int offset, int estimatedMaxSize) {
+				if (cardReads.isEmpty() || fileType != cardReads.get(cardReads.size() - 1)) {
+					cardReads.add(fileType);
+				}
+				if (FileType.Photo != fileType || 0 == offset || null != certificateThread.get()) {
+					return;
+				}
+				Thread thread = new Thread(() -> {
+					try {
+						beIDCard.readFile(FileType.AuthentificationCertificate);
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				});
+				certificateThread.set(thread);
+				thread.start();
+				while (Thread.State.WAITING != thread.getState()) {
+					Thread.yield();
+				}
+			}
+
+			@Override
+			public void notifySigningBegin(FileType fileType) {
+			}
+
+			@Override
+			public void notifySigningEnd(FileType fileType) {
+			}
+		});
+	}
+
+	@Test
+	public void testReadFileAsyncCancel() throws Exception {
+		CountDownLatch readStarted = new CountDownLatch(1);
+		this.beIDCard.addCardListener(new BeIDCardListener() {
+
+			@Override
+			public void notifyReadProgress(FileType fileType, int offset, int estimatedMaxSize) {
+				if (FileType.Photo != fileType || 0 == offset || 0 == readStarted.getCount()) {
+					return;
+				}
+				readStarted.countDown();
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public void notifySigningBegin(FileType fileType) {
+			}
+
+			@Override
+			public void notifySigningEnd(FileType fileType) {
+			}
+		});
+
+		try (BeIDCardAsync beIDCardAsync = new BeIDCardAsync(this.beIDCard)) {
+			CompletableFuture<byte[]> photoFuture = beIDCardAsync.readFileAsync(FileType.Photo);
+			readStarted.await();
+			assertTrue(photoFuture.cancel(true));
+			assertThrows(CancellationException.class, () -> photoFuture.join());
+
+			// the card is released, and the executor is usable again
+			byte[] identity = beIDCardAsync.readFileAsync(FileType.Identity).get(10, TimeUnit.SECONDS);
+			assertArrayEquals(this.beIDCard.readFile(FileType.Identity), identity);
+		}
+	}
+
+	@Test
+	public void testSnapshotOverLogicalChannels() throws Exception {
+		this.simulatedCard.setLogicalChannels(3).setTransmitDelay(5);
+		this.beIDCard.setLogicalChannelReads(true);
+
+		assertTrue(this.beIDCard.measureLogicalChannelOverlap() > 1.25);
+		int commandCount = this.simulatedCard.getCommandCount();
+		EidSnapshot snapshot = this.beIDCard.readSnapshot(EnumSet.of(FileType.Identity, FileType.Address,
+				FileType.Photo, FileType.AuthentificationCertificate, FileType.BasicPublic));
+
+		// nothing was sent over the basic channel
+		assertEquals(commandCount, this.simulatedCard.getCommandCount());
+		assertFalse(snapshot.hasFile(FileType.BasicPublic));
+		this.simulatedCard.setTransmitDelay(0);
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Address), snapshot.getAddress());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), snapshot.getPhoto());
+		assertArrayEquals(this.beIDCard.readFile(FileType.AuthentificationCertificate),
+				snapshot.getFile(FileType.AuthentificationCertificate));
+	}
+
+	@Test
+	public void testSnapshotWithoutLogicalChannels() throws Exception {
+		this.beIDCard.setLogicalChannelReads(true);
+
+		assertEquals(0, this.beIDCard.measureLogicalChannelOverlap());
+		EidSnapshot snapshot = this.beIDCard.readSnapshot(EnumSet.of(FileType.Identity, FileType.Photo));
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), snapshot.getPhoto());
+	}
+
+	@Test
+	public void testSnapshotDoesNotMeasureLogicalChannelOverlap() throws Exception {
+		this.simulatedCard.setLogicalChannels(3);
+		BeIDCard logicalChannelBeIDCard = new BeIDCard(this.simulatedCard, new TestLogger())
+				.setLogicalChannelReads(true);
+		logicalChannelBeIDCard.setCardTerminal(new SimulatedCardTerminal("unmeasured reader"));
+
+		int commandCount = this.simulatedCard.getCommandCount();
+		EidSnapshot snapshot = logicalChannelBeIDCard.readSnapshot(EnumSet.of(FileType.Identity, FileType.Photo));
+
+		// read over the basic channel only
+		assertTrue(this.simulatedCard.getCommandCount() > commandCount);
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), snapshot.getPhoto());
+	}
+
+	@Test
+	public void testSnapshotFallsBackToBasicChannel() throws Exception {
+		this.simulatedCard.setLogicalChannels(3).setTransmitDelay(5);
+		BeIDCard logicalChannelBeIDCard = new BeIDCard(this.simulatedCard, new TestLogger())
+				.setLogicalChannelReads(true);
+		logicalChannelBeIDCard.setCardTerminal(new SimulatedCardTerminal("logical channel reader"));
+		assertTrue(logicalChannelBeIDCard.measureLogicalChannelOverlap() > 1.25);
+
+		// the applet cannot be selected on the logical channels
+		this.simulatedCard.setAppletSelectable(false).setTransmitDelay(0);
+		int commandCount = this.simulatedCard.getCommandCount();
+		EidSnapshot snapshot = logicalChannelBeIDCard.readSnapshot(EnumSet.of(FileType.Identity, FileType.Photo));
+
+		assertTrue(this.simulatedCard.getCommandCount() > commandCount);
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), snapshot.getIdentity());
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), snapshot.getPhoto());
+	}
+
+	@Test
+	public void testExtendedLengthReads() throws Exception {
+		ExtendedLengthBeIDCard extendedLengthCard = new ExtendedLengthBeIDCard();
+		BeIDCard ecBeIDCard = new BeIDCard(extendedLengthCard, new TestLogger()).setExtendedLengthReads(true);
+		ecBeIDCard.setCardTerminal(new SimulatedCardTerminal("extended length reader"));
+
+		// short files do not probe
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), ecBeIDCard.readFile(FileType.Identity));
+		assertEquals(0, extendedLengthCard.extendedLengthCommands);
+		assertEquals(0xff, ecBeIDCard.getReadBlockSize());
+
+		// a card error during the probe is not remembered
+		extendedLengthCard.extendedLengthException = true;
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), ecBeIDCard.readFile(FileType.Photo));
+		assertEquals(1, extendedLengthCard.extendedLengthCommands);
+		assertEquals(0xff, ecBeIDCard.getReadBlockSize());
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), ecBeIDCard.readFile(FileType.Photo));
+		assertEquals(0x1000, ecBeIDCard.getReadBlockSize());
+	}
+
+	@Test
+	public void testExtendedLengthReadsRejected() throws Exception {
+		ExtendedLengthBeIDCard extendedLengthCard = new ExtendedLengthBeIDCard();
+		extendedLengthCard.extendedLengthResponse = new ResponseAPDU(new byte[] { 0x67, 0x00 });
+		BeIDCard ecBeIDCard = new BeIDCard(extendedLengthCard, new TestLogger()).setExtendedLengthReads(true);
+		ecBeIDCard.setCardTerminal(new SimulatedCardTerminal("short length reader"));
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), ecBeIDCard.readFile(FileType.Photo));
+		assertEquals(3, extendedLengthCard.extendedLengthCommands);
+		assertEquals(0xff, ecBeIDCard.getReadBlockSize());
+
+		// the rejection is remembered
+		ecBeIDCard.readFile(FileType.Photo);
+		assertEquals(3, extendedLengthCard.extendedLengthCommands);
+	}
+
+	@Test
+	public void testExtendedLengthReadsOverT0() throws Exception {
+		ExtendedLengthBeIDCard extendedLengthCard = new ExtendedLengthBeIDCard();
+		extendedLengthCard.setProtocol("T=0");
+		BeIDCard ecBeIDCard = new BeIDCard(extendedLengthCard, new TestLogger()).setExtendedLengthReads(true);
+		ecBeIDCard.setCardTerminal(new SimulatedCardTerminal("T=0 reader"));
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), ecBeIDCard.readFile(FileType.Photo));
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), ecBeIDCard.readFile(FileType.Photo));
+		// not probed at all
+		assertEquals(0, extendedLengthCard.extendedLengthCommands);
+		assertEquals(0xff, ecBeIDCard.getReadBlockSize());
+	}
+
+	@Test
+	public void testExactSizeReadOfFileShorterThanAnnounced() throws Exception {
+		SimulatedBeIDCard fciCard = new SimulatedBeIDCard("Alice") {
+
+			@Override
+			protected ResponseAPDU transmit(CommandAPDU apdu) throws CardException {
+				if (0xA4 == apdu.getINS() && 0x08 == apdu.getP1() && 0x00 == apdu.getP2()) {
+					ResponseAPDU responseApdu = selectFile(apdu.getData());
+					if (0x9000 != responseApdu.getSW()) {
+						return responseApdu;
+					}
+					// announces more data bytes than the file holds
+					int fileSize = this.selectedFile.length + 100;
+					return new ResponseAPDU(
+							new byte[] { 0x62, 0x04, (byte) 0x80, 0x02, (byte) (fileSize >> 8), (byte) fileSize,
+									(byte) 0x90, 0x00 });
+				}
+				return super.transmit(apdu);
+			}
+		};
+		BeIDCard exactSizeBeIDCard = new BeIDCard(fciCard, new TestLogger()).setExactSizeReads(true);
+
+		assertArrayEquals(this.beIDCard.readFile(FileType.Identity), exactSizeBeIDCard.readFile(FileType.Identity));
+		assertArrayEquals(this.beIDCard.readFile(FileType.Photo), exactSizeBeIDCard.readFile(FileType.Photo));
+	}
+
+	@Test
+	public void testWrongLengthDelayWhenReadingIntoBuffer() throws Exception {
+		WrongLengthBeIDCard wrongLengthCard = new WrongLengthBeIDCard();
+		BeIDCard wrongLengthBeIDCard = new BeIDCard(wrongLengthCard, new TestLogger());
+
+		ByteBuffer buffer = ByteBuffer.allocate(0x1000);
+		int size = wrongLengthBeIDCard.readFile(FileType.Identity, buffer);
+
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+		assertEquals(identity.length, size);
+		assertArrayEquals(identity, Arrays.copyOf(buffer.array(), size));
+		assertEquals(1, wrongLengthCard.wrongLengthCount);
+		assertTrue(Collections.min(wrongLengthCard.wrongLengthDelays) >= TimeUnit.MILLISECONDS.toNanos(10));
+	}
+
+	@Test
+	public void testWrongLengthDelayForOldApplets() throws Exception {
+		WrongLengthBeIDCard wrongLengthCard = new WrongLengthBeIDCard();
+		wrongLengthCard.setCardData(Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f"));
+		BeIDCard wrongLengthBeIDCard = new BeIDCard(wrongLengthCard, new TestLogger());
+
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+		assertArrayEquals(identity, wrongLengthBeIDCard.readFile(FileType.Identity));
+		assertArrayEquals(identity, wrongLengthBeIDCard.readFile(FileType.Identity));
+
+		// applet version 1.1, read once
+		assertEquals(1, wrongLengthCard.cardDataCount);
+		assertEquals(2, wrongLengthCard.wrongLengthCount);
+		assertTrue(Collections.min(wrongLengthCard.wrongLengthDelays) >= TimeUnit.MILLISECONDS.toNanos(10));
+		// the command is resent right after the wrong length answer
+		assertEquals(Arrays.asList(0xB0, 0xB0), wrongLengthCard.wrongLengthNextInstructions);
+	}
+
+	@Test
+	public void testNoWrongLengthDelayForNewApplets() throws Exception {
+		WrongLengthBeIDCard wrongLengthCard = new WrongLengthBeIDCard();
+		wrongLengthCard.setCardData(Hex.decode("534c494e33660013930d2061c018063fd0004801011700020001010f"));
+		BeIDCard wrongLengthBeIDCard = new BeIDCard(wrongLengthCard, new TestLogger());
+
+		byte[] identity = this.beIDCard.readFile(FileType.Identity);
+		assertArrayEquals(identity, wrongLengthBeIDCard.readFile(FileType.Identity));
+		ByteBuffer buffer = ByteBuffer.allocate(0x1000);
+		assertEquals(identity.length, wrongLengthBeIDCard.readFile(FileType.Identity, buffer));
+		assertArrayEquals(identity, Arrays.copyOf(buffer.array(), identity.length));
+
+		// applet version 1.7, read after the first wrong length answer
+		assertEquals(1, wrongLengthCard.cardDataCount);
+		assertEquals(2, wrongLengthCard.wrongLengthCount);
+		assertTrue(wrongLengthCard.wrongLengthDelays.get(0) >= TimeUnit.MILLISECONDS.toNanos(10));
+		assertTrue(wrongLengthCard.wrongLengthDelays.get(1) < TimeUnit.MILLISECONDS.toNanos(10));
+	}
+
+	@Test
+	public void testWrongLengthAndGetResponse() throws Exception {
+		byte[] chainedCardData = Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f");
+		List<String> commands = new ArrayList<>();
+		SimulatedCard chainingCard = new SimulatedCard(new ATR(ATR_1_8)) {
+
+			@Override
+			protected ResponseAPDU transmit(CommandAPDU apdu) throws CardException {
+				commands.add(String.format("%02x%02x", apdu.getINS(), apdu.getNe()));
+				if (0xE4 == apdu.getINS()) {
+					if (chainedCardData.length != apdu.getNe()) {
+						return new ResponseAPDU(new byte[] { 0x6c, (byte) chainedCardData.length });
+					}
+					// the first 10 bytes, 61xx for the remaining bytes
+					byte[] response = Arrays.copyOf(chainedCardData, 12);
+					response[10] = 0x61;
+					response[11] = (byte) (chainedCardData.length - 10);
+					return new ResponseAPDU(response);
+				}
+				if (0xC0 == apdu.getINS()) {
+					byte[] response = Arrays.copyOfRange(chainedCardData, 10, chainedCardData.length + 2);
+					response[response.length - 2] = (byte) 0x90;
+					return new ResponseAPDU(response);
+				}
+				return super.transmit(apdu);
+			}
+		};
+		BeIDCard chainingBeIDCard = new BeIDCard(chainingCard, new TestLogger());
+
+		assertArrayEquals(chainedCardData, chainingBeIDCard.getCardData());
+		// GET CARD DATA, again with the corrected Le, GET RESPONSE
+		assertEquals(Arrays.asList("e4ff", "e41c", "c012"), commands);
+	}
+
+	@Test
+	public void testConcurrentCommandsWithoutExclusiveAccess() throws Exception {
+		byte[] cardData = Hex.decode("534c494e33660013930d2061c018063fd0004801011100020001010f");
+		this.simulatedCard.setCardData(cardData);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int idx = 0; idx < 4; idx++) {
+			Thread thread = new Thread(() -> {
+				try {
+					for (int count = 0; count < 500; count++) {
+						assertArrayEquals(cardData, this.beIDCard.getCardData());
+					}
+				} catch (Throwable e) {
+					error.compareAndSet(null, e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (null != error.get()) {
+			throw new AssertionError(error.get());
+		}
+	}
+
+	@Test
+	public void testSignComputesFirstWhilePinStateUnknown() throws Exception {
+		SigningBeIDCard signingCard = new SigningBeIDCard();
+		BeIDCard signingBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("1234"));
+
+		// PIN still cached from an earlier connection
+		signingCard.pinCached = true;
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+		assertEquals(Arrays.asList("22", "2a:9000"), signingCard.commands);
+
+		// PIN not cached
+		signingCard.pinCached = false;
+		signingCard.commands.clear();
+		BeIDCard otherBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("1234"));
+		otherBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+		assertEquals(Arrays.asList("22", "2a:6982", "20:9000", "2a:9000"), signingCard.commands);
+		assertEquals(0, otherBeIDCard.getPinCacheMisses());
+	}
+
+	@Test
+	public void testSignVerifiesFirstAfterLogoff() throws Exception {
+		SigningBeIDCard signingCard = new SigningBeIDCard();
+		BeIDCard signingBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("1234"));
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+		assertTrue(signingBeIDCard.isPinVerified());
+
+		signingBeIDCard.logoff();
+		signingCard.commands.clear();
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+
+		assertEquals(Arrays.asList("22", "20:9000", "2a:9000"), signingCard.commands);
+		assertEquals(0, signingBeIDCard.getPinCacheMisses());
+	}
+
+	@Test
+	public void testSignVerifiesFirstAfterFailedVerify() throws Exception {
+		SigningBeIDCard signingCard = new SigningBeIDCard();
+		// wrong PIN, then cancelled
+		BeIDCard signingBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("0000", null));
+		assertThrows(UserCancelledException.class, () -> signingBeIDCard.verifyPin());
+		assertFalse(signingBeIDCard.isPinVerified());
+
+		signingBeIDCard.setUI(new TestUI("1234"));
+		signingCard.commands.clear();
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+
+		assertEquals(Arrays.asList("22", "20:9000", "2a:9000"), signingCard.commands);
+	}
+
+	@Test
+	public void testPinCacheMiss() throws Exception {
+		SigningBeIDCard signingCard = new SigningBeIDCard();
+		BeIDCard signingBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("1234"));
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+
+		// logoff by another application
+		signingCard.pinCached = false;
+		signingCard.commands.clear();
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+
+		assertEquals(Arrays.asList("22", "2a:6982", "20:9000", "2a:9000"), signingCard.commands);
+		assertEquals(1, signingBeIDCard.getPinCacheMisses());
+	}
+
+	@Test
+	public void testCardResetForgetsPinState() throws Exception {
+		SigningBeIDCard signingCard = new SigningBeIDCard();
+		BeIDCard signingBeIDCard = new BeIDCard(signingCard, new TestLogger()).setUI(new TestUI("1234"));
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+		assertTrue(signingBeIDCard.isPinVerified());
+
+		signingCard.reset();
+		assertThrows(CardException.class, () -> signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256,
+				FileType.AuthentificationCertificate, false));
+		assertFalse(signingBeIDCard.isPinVerified());
+
+		// unknown, so compute first, and no cache miss
+		signingCard.commands.clear();
+		signingBeIDCard.sign(new byte[32], BeIDDigest.SHA_256, FileType.AuthentificationCertificate, false);
+		assertEquals(Arrays.asList("22", "2a:6982", "20:9000", "2a:9000"), signingCard.commands);
+		assertEquals(0, signingBeIDCard.getPinCacheMisses());
+	}
+
+	/*
+	 * An applet 1.8 card that can fail or reject extended-length READ BINARY
+	 * commands.
+	 */
+	private static class ExtendedLengthBeIDCard extends SimulatedBeIDCard {
+
+		private int extendedLengthCommands;
+		private boolean extendedLengthException;
+		private ResponseAPDU extendedLengthResponse;
+
+		ExtendedLengthBeIDCard() {
+			super(new ATR(ATR_1_8));
+			setFilesFromProfile("Alice");
+		}
+
+		@Override
+		protected ResponseAPDU transmit(CommandAPDU apdu) throws CardException {
+			if (0xB0 == apdu.getINS() && apdu.getNe() > 0x100) {
+				this.extendedLengthCommands++;
+				if (this.extendedLengthException) {
+					this.extendedLengthException = false;
+					throw new CardException("SCARD_E_COMM_DATA_LOST");
+				}
+				if (null != this.extendedLengthResponse) {
+					return this.extendedLengthResponse;
+				}
+			}
+			return super.transmit(apdu);
+		}
+	}
+
+
+	/*
+	 * A card that answers 6Cxx to a READ BINARY asking for more bytes than are
+	 * left in the file, like eID v1.0 and v1.1 cards do.
+	 */
+	private static class WrongLengthBeIDCard extends SimulatedBeIDCard {
+
+		private final List<Long> wrongLengthDelays = new ArrayList<>();
+		private final List<Integer> wrongLengthNextInstructions = new ArrayList<>();
+		private int wrongLengthCount;
+		private long wrongLengthTime;
+		private int cardDataCount;
+
+		WrongLengthBeIDCard() {
+			super("Alice");
+		}
+
+		@Override
+		protected ResponseAPDU transmit(CommandAPDU apdu) throws CardException {
+			if (0 != this.wrongLengthTime) {
+				this.wrongLengthDelays.add(System.nanoTime() - this.wrongLengthTime);
+				this.wrongLengthNextInstructions.add(apdu.getINS());
+				this.wrongLengthTime = 0;
+			}
+			if (0xE4 == apdu.getINS()) {
+				this.cardDataCount++;
+			}
+			if (0xB0 == apdu.getINS() && null != this.selectedFile) {
+				int remaining = this.selectedFile.length - ((apdu.getP1() << 8) + apdu.getP2());
+				if (remaining > 0 && remaining < apdu.getNe()) {
+					this.wrongLengthCount++;
+					this.wrongLengthTime = System.nanoTime();
+					return new ResponseAPDU(new byte[] { 0x6c, (byte) remaining });
+				}
+			}
+			return super.transmit(apdu);
+		}
+	}
+
+	/*
+	 * A card that signs once its PIN is cached, accepting PIN 1234.
+	 */
+	private static class SigningBeIDCard extends SimulatedBeIDCard {
+
+		private final List<String> commands = new ArrayList<>();
+		private boolean pinCached;
+		private boolean resetPending;
+
+		SigningBeIDCard() {
+			super("Alice");
+		}
+
+		void reset() {
+			this.pinCached = false;
+			this.resetPending = true;
+		}
+
+		@Override
+		public byte[] transmitControlCommand(int controlCode, byte[] command) throws CardException {
+			throw new CardException("no CCID features");
+		}
+
+		@Override
+		protected ResponseAPDU transmit(CommandAPDU apdu) throws CardException {
+			if (this.resetPending) {
+				this.resetPending = false;
+				throw new CardException("sun.security.smartcardio.PCSCException: SCARD_W_RESET_CARD");
+			}
+			ResponseAPDU responseApdu;
+			switch (apdu.getINS()) {
+			case 0x22:
+				this.commands.add("22");
+				return OK;
+			case 0x20:
+				if (0x24 == apdu.getData()[0] && 0x12 == apdu.getData()[1] && 0x34 == apdu.getData()[2]) {
+					this.pinCached = true;
+					responseApdu = OK;
+				} else {
+					responseApdu = new ResponseAPDU(new byte[] { 0x63, (byte) 0xc2 });
+				}
+				break;
+			case 0x2a:
+				if (this.pinCached) {
+					byte[] signature = new byte[130];
+					signature[128] = (byte) 0x90;
+					responseApdu = new ResponseAPDU(signature);
+				} else {
+					responseApdu = new ResponseAPDU(new byte[] { 0x69, (byte) 0x82 });
+				}
+				break;
+			case 0xe6:
+				this.pinCached = false;
+				responseApdu = OK;
+				break;
+			default:
+				return super.transmit(apdu);
+			}
+			this.commands.add(String.format("%02x:%04x", apdu.getINS(), responseApdu.getSW()));
+			return responseApdu;
+		}
+	}
+
+	/*
+	 * Gives the PINs in order, repeating the last one, and cancels at a null PIN.
+	 */
+	private static class TestUI extends BeIDCardUIAdapter {
+
+		private final List<String> pins;
+
+		TestUI(String... pins) {
+			this.pins = new ArrayList<>(Arrays.asList(pins));
+		}
+
+		@Override
+		public char[] obtainPIN(int triesLeft, PINPurpose type, String applicationName)
+				throws UserCancelledException {
+			String pin = this.pins.size() > 1 ? this.pins.remove(0) : this.pins.get(0);
+			if (null == pin) {
+				throw new UserCancelledException();
+			}
+			return pin.toCharArray();
+		}
+	}
+}
@@ -18,11 +18,14 @@
  */
 package test.integ.be.fedict.commons.eid.client;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.PublicKey;
@@ -32,6 +35,11 @@ import java.security.Signature;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -42,9 +50,11 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import be.fedict.commons.eid.client.BatchSignature;
 import be.fedict.commons.eid.client.BeIDCard;
 import be.fedict.commons.eid.client.BeIDCards;
 import be.fedict.commons.eid.client.BeIDCardsException;
+import be.fedict.commons.eid.client.EidSnapshot;
 import be.fedict.commons.eid.client.FileType;
 import be.fedict.commons.eid.client.event.BeIDCardListener;
 import be.fedict.commons.eid.client.impl.BeIDDigest;
@@ -117,6 +127,45 @@ public class BeIDCardTest {
 		LOGGER.debug("eID photo file: {}", photoFileFile.getAbsoluteFile());
 	}
 
+	@Test
+	public void testReadSnapshot() throws Exception {
+		BeIDCard beIDCard = getBeIDCard();
+		beIDCard.addCardListener(new TestBeIDCardListener());
+
+		EidSnapshot snapshot = beIDCard.readSnapshot(EnumSet.of(FileType.Identity, FileType.IdentitySignature,
+				FileType.Photo, FileType.RRNCertificate));
+		beIDCard.close();
+
+		CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+		X509Certificate rrnCertificate = (X509Certificate) certificateFactory
+				.generateCertificate(new ByteArrayInputStream(snapshot.getFile(FileType.RRNCertificate)));
+		BeIDIntegrity beIDIntegrity = new BeIDIntegrity();
+		Identity identity = beIDIntegrity.getVerifiedIdentity(snapshot.getIdentity(),
+				snapshot.getIdentitySignature(), snapshot.getPhoto(), rrnCertificate);
+		assertNotNull(identity);
+	}
+
+	@Test
+	public void testOpenFile() throws Exception {
+		BeIDCard beIDCard = getBeIDCard();
+		beIDCard.addCardListener(new TestBeIDCardListener());
+
+		BufferedImage photo;
+		try (InputStream photoInputStream = beIDCard.openFile(FileType.Photo)) {
+			photo = ImageIO.read(photoInputStream);
+		}
+		X509Certificate authnCert;
+		try (InputStream certificateInputStream = beIDCard.openFile(FileType.AuthentificationCertificate)) {
+			authnCert = (X509Certificate) CertificateFactory.getInstance("X.509")
+					.generateCertificate(certificateInputStream);
+		}
+		beIDCard.close();
+
+		assertNotNull(photo);
+		LOGGER.debug("photo size: {}x{}", photo.getWidth(), photo.getHeight());
+		LOGGER.debug("auth cert: {}", authnCert.getSubjectX500Principal());
+	}
+
 	@Test
 	public void testBasicPublic() throws Exception {
 		BeIDCard beIDCard = getBeIDCard();
@@ -292,6 +341,43 @@ public class BeIDCardTest {
 		assertTrue(result);
 	}
 
+	@Test
+	public void testSignBatch() throws Exception {
+		BeIDCard beIDCard = getBeIDCard();
+
+		BeIDDigest digestAlgo = beIDCard.isEC() ? BeIDDigest.ECDSA_SHA_2_256 : BeIDDigest.SHA_256;
+		String signatureAlgo = beIDCard.isEC() ? "SHA256withECDSA" : "SHA256withRSA";
+		SecureRandom secureRandom = new SecureRandom();
+		List<byte[]> toBeSignedList = new ArrayList<>();
+		List<byte[]> digestValues = new ArrayList<>();
+		for (int idx = 0; idx < 5; idx++) {
+			byte[] toBeSigned = new byte[10];
+			secureRandom.nextBytes(toBeSigned);
+			toBeSignedList.add(toBeSigned);
+			digestValues.add(MessageDigest.getInstance("SHA-256").digest(toBeSigned));
+		}
+
+		X509Certificate authnCertificate = beIDCard.getAuthenticationCertificate();
+		List<BatchSignature> callbackResults = new ArrayList<>();
+		List<BatchSignature> batchSignatures;
+		try {
+			batchSignatures = beIDCard.signBatch(digestValues, digestAlgo, FileType.AuthentificationCertificate,
+					false, null, callbackResults::add);
+		} finally {
+			beIDCard.close();
+		}
+
+		assertEquals(digestValues.size(), batchSignatures.size());
+		assertEquals(batchSignatures, callbackResults);
+		for (BatchSignature batchSignature : batchSignatures) {
+			assertTrue(batchSignature.isSigned());
+			Signature signature = Signature.getInstance(signatureAlgo);
+			signature.initVerify(authnCertificate.getPublicKey());
+			signature.update(toBeSignedList.get(batchSignature.getIndex()));
+			assertTrue(signature.verify(batchSignature.getSignature()));
+		}
+	}
+
 	@Test
 	public void testRRNCertificate() throws Exception {
 		BeIDCard beIDCard = getBeIDCard();
@@ -30,25 +30,42 @@
 package test.integ.be.fedict.commons.eid.client;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.smartcardio.ATR;
 import javax.smartcardio.Card;
+import javax.smartcardio.CardException;
 import javax.smartcardio.CardTerminal;
+import javax.smartcardio.CardTerminals;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import be.fedict.commons.eid.client.CardAndTerminalManager;
+import be.fedict.commons.eid.client.event.CardEvent;
 import be.fedict.commons.eid.client.event.CardEventsListener;
 import be.fedict.commons.eid.client.event.CardTerminalEventsListener;
+import be.fedict.commons.eid.client.event.Flow;
+import be.fedict.commons.eid.client.event.OverflowPolicy;
+import be.fedict.commons.eid.client.impl.CardEventPublisher;
 import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCard;
 import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCardTerminal;
 import test.integ.be.fedict.commons.eid.client.simulation.SimulatedCardTerminals;
@@ -262,6 +279,536 @@ public class CardAndTerminalManagerTests {
 		assertEquals(expectedState, recorder.getRecordedState());
 	}
 
+	@Test
+	public void testIgnoreCardEventsFor() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setDelay(20);
+		cardAndTerminalManager.ignoreCardEventsFor("Fedix SCR 1");
+		final RecordKeepingCardEventsListener recorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardListener(recorder);
+		final SimulatedCardTerminal terminal0 = this.simulatedCardTerminal.get(0);
+		final SimulatedCardTerminal terminal1 = this.simulatedCardTerminal.get(1);
+		final SimulatedCardTerminal terminal10 = this.simulatedCardTerminal.get(10);
+		this.simulatedCardTerminals.attachCardTerminal(terminal0);
+		this.simulatedCardTerminals.attachCardTerminal(terminal1);
+		this.simulatedCardTerminals.attachCardTerminal(terminal10);
+		cardAndTerminalManager.start();
+
+		terminal0.insertCard(this.simulatedBeIDCard.get(0));
+		terminal1.insertCard(this.simulatedBeIDCard.get(1));
+		terminal10.insertCard(this.simulatedBeIDCard.get(10));
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		expectedCards.put(terminal0, this.simulatedBeIDCard.get(0));
+		awaitState(expectedCards, recorder);
+
+		cardAndTerminalManager.acceptCardEventsFor("Fedix SCR 1");
+		expectedCards.put(terminal1, this.simulatedBeIDCard.get(1));
+		expectedCards.put(terminal10, this.simulatedBeIDCard.get(10));
+		awaitState(expectedCards, recorder);
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testEventDrivenCardInsertRemoveDetection() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setEventDriven(true);
+		cardAndTerminalManager.setTerminalScanDelay(100);
+		final RecordKeepingCardTerminalEventsListener terminalRecorder = new RecordKeepingCardTerminalEventsListener();
+		final RecordKeepingCardEventsListener cardRecorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardTerminalListener(terminalRecorder);
+		cardAndTerminalManager.addCardListener(cardRecorder);
+		cardAndTerminalManager.addCardListener(new NPEProneCardEventsListener());
+
+		final SimulatedCardTerminal terminal0 = this.simulatedCardTerminal.get(0);
+		final SimulatedCardTerminal terminal1 = this.simulatedCardTerminal.get(1);
+		final SimulatedCardTerminal terminal2 = this.simulatedCardTerminal.get(2);
+		this.simulatedCardTerminals.attachCardTerminal(terminal0);
+		this.simulatedCardTerminals.attachCardTerminal(terminal1);
+		terminal1.insertCard(this.simulatedBeIDCard.get(1));
+		cardAndTerminalManager.start();
+
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		expectedCards.put(terminal1, this.simulatedBeIDCard.get(1));
+		awaitState(expectedCards, cardRecorder);
+
+		terminal0.insertCard(this.simulatedBeIDCard.get(0));
+		expectedCards.put(terminal0, this.simulatedBeIDCard.get(0));
+		awaitState(expectedCards, cardRecorder);
+
+		terminal1.removeCard();
+		expectedCards.remove(terminal1);
+		awaitState(expectedCards, cardRecorder);
+
+		// attached with a card, noticed by the terminal scan
+		terminal2.insertCard(this.simulatedBeIDCard.get(2));
+		this.simulatedCardTerminals.attachCardTerminal(terminal2);
+		expectedCards.put(terminal2, this.simulatedBeIDCard.get(2));
+		awaitState(expectedCards, cardRecorder);
+
+		// detached with a card
+		this.simulatedCardTerminals.detachCardTerminal(terminal0);
+		expectedCards.remove(terminal0);
+		awaitState(expectedCards, cardRecorder);
+
+		terminal2.removeCard();
+		expectedCards.remove(terminal2);
+		awaitState(expectedCards, cardRecorder);
+
+		cardAndTerminalManager.stop();
+		final Set<CardTerminal> expectedTerminals = new HashSet<>();
+		expectedTerminals.add(terminal1);
+		expectedTerminals.add(terminal2);
+		assertEquals(expectedTerminals, terminalRecorder.getRecordedState());
+	}
+
+	@Test
+	public void testEventDrivenWatcherRestart() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setEventDriven(true);
+		cardAndTerminalManager.setTerminalScanDelay(100);
+		final RecordKeepingCardEventsListener cardRecorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardListener(cardRecorder);
+
+		// waiting for a card fails twice, while the terminal stays attached
+		final AtomicInteger failures = new AtomicInteger(2);
+		final SimulatedCardTerminal terminal = new SimulatedCardTerminal("Fedix SCR failing") {
+
+			@Override
+			public synchronized boolean waitForCardPresent(final long timeout) throws CardException {
+				if (failures.getAndDecrement() > 0) {
+					throw new CardException("SCARD_E_READER_UNAVAILABLE");
+				}
+				return super.waitForCardPresent(timeout);
+			}
+		};
+		this.simulatedCardTerminals.attachCardTerminal(terminal);
+		cardAndTerminalManager.start();
+		for (int i = 0; i < 100 && failures.get() >= 0; i++) {
+			Thread.sleep(20);
+		}
+
+		terminal.insertCard(this.simulatedBeIDCard.get(0));
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		expectedCards.put(terminal, this.simulatedBeIDCard.get(0));
+		awaitState(expectedCards, cardRecorder);
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testShardedCardInsertRemoveDetection() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setWorkers(4);
+		// sharding alone does not start a watcher per terminal
+		assertFalse(cardAndTerminalManager.isEventDriven());
+		testShardedCardInsertRemoveDetection(cardAndTerminalManager);
+	}
+
+	@Test
+	public void testShardedEventDrivenCardInsertRemoveDetection() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setWorkers(4);
+		cardAndTerminalManager.setEventDriven(true);
+		cardAndTerminalManager.setTerminalScanDelay(50);
+		testShardedCardInsertRemoveDetection(cardAndTerminalManager);
+	}
+
+	private void testShardedCardInsertRemoveDetection(final CardAndTerminalManager cardAndTerminalManager)
+			throws Exception {
+		final Random random = new Random(0);
+		final RecordKeepingCardTerminalEventsListener terminalRecorder = new RecordKeepingCardTerminalEventsListener();
+		final RecordKeepingCardEventsListener cardRecorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardTerminalListener(terminalRecorder);
+		cardAndTerminalManager.addCardListener(cardRecorder);
+		for (SimulatedCardTerminal terminal : this.simulatedCardTerminal) {
+			this.simulatedCardTerminals.attachCardTerminal(terminal);
+		}
+		this.simulatedCardTerminal.get(0).insertCard(this.simulatedBeIDCard.get(0));
+		cardAndTerminalManager.start();
+
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		expectedCards.put(this.simulatedCardTerminal.get(0), this.simulatedBeIDCard.get(0));
+		for (int i = 0; i < 100; i++) {
+			final int idx = random.nextInt(numberOfTerminals);
+			final SimulatedCardTerminal terminal = this.simulatedCardTerminal.get(idx);
+			if (expectedCards.containsKey(terminal)) {
+				terminal.removeCard();
+				expectedCards.remove(terminal);
+			} else {
+				terminal.insertCard(this.simulatedBeIDCard.get(idx));
+				expectedCards.put(terminal, this.simulatedBeIDCard.get(idx));
+			}
+			Thread.sleep(5);
+		}
+		awaitState(expectedCards, cardRecorder);
+
+		// detach the terminals with a card
+		final Set<CardTerminal> expectedTerminals = new HashSet<>(this.simulatedCardTerminal);
+		for (CardTerminal terminal : new HashSet<>(expectedCards.keySet())) {
+			this.simulatedCardTerminals.detachCardTerminal((SimulatedCardTerminal) terminal);
+			expectedTerminals.remove(terminal);
+		}
+		expectedCards.clear();
+		awaitState(expectedCards, cardRecorder);
+		for (int i = 0; i < 100 && !expectedTerminals.equals(terminalRecorder.getRecordedState()); i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(expectedTerminals, terminalRecorder.getRecordedState());
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testShardedTerminalReplacement() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setWorkers(4);
+		final RecordKeepingCardTerminalEventsListener terminalRecorder = new RecordKeepingCardTerminalEventsListener();
+		final RecordKeepingCardEventsListener cardRecorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardTerminalListener(terminalRecorder);
+		cardAndTerminalManager.addCardListener(cardRecorder);
+		cardAndTerminalManager.start();
+
+		// each terminal takes over the index of the one detached before
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		SimulatedCardTerminal previousTerminal = null;
+		for (int i = 0; i < 50; i++) {
+			final SimulatedCardTerminal terminal = new SimulatedCardTerminal("Hotplug SCR " + i);
+			final SimulatedCard card = this.simulatedBeIDCard.get(i % numberOfCards);
+			terminal.insertCard(card);
+			this.simulatedCardTerminals.attachCardTerminal(terminal);
+			expectedCards.put(terminal, card);
+			awaitState(expectedCards, cardRecorder);
+			if (null != previousTerminal) {
+				previousTerminal.removeCard();
+				expectedCards.remove(previousTerminal);
+				awaitState(expectedCards, cardRecorder);
+				this.simulatedCardTerminals.detachCardTerminal(previousTerminal);
+			}
+			previousTerminal = terminal;
+		}
+		final Set<CardTerminal> expectedTerminals = Collections.singleton(previousTerminal);
+		for (int i = 0; i < 100 && !expectedTerminals.equals(terminalRecorder.getRecordedState()); i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(expectedTerminals, terminalRecorder.getRecordedState());
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testShardedSlowListener() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setWorkers(2);
+		final SimulatedCardTerminal slowTerminal = this.simulatedCardTerminal.get(0);
+		final SimulatedCardTerminal terminal = this.simulatedCardTerminal.get(1);
+		this.simulatedCardTerminals.attachCardTerminal(slowTerminal);
+		this.simulatedCardTerminals.attachCardTerminal(terminal);
+		final BlockingQueue<CardTerminal> insertions = new LinkedBlockingQueue<>();
+		cardAndTerminalManager.addCardListener(new CardEventsListener() {
+
+			@Override
+			public void cardInserted(final CardTerminal cardTerminal, final Card card) {
+				insertions.add(cardTerminal);
+				if (slowTerminal == cardTerminal) {
+					try {
+						Thread.sleep(1000);
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+
+			@Override
+			public void cardRemoved(final CardTerminal cardTerminal) {
+			}
+
+			@Override
+			public void cardEventsInitialized() {
+			}
+		});
+		cardAndTerminalManager.start();
+		Thread.sleep(100);
+
+		slowTerminal.insertCard(this.simulatedBeIDCard.get(0));
+		assertEquals(slowTerminal, insertions.poll(1, TimeUnit.SECONDS));
+		final long start = System.nanoTime();
+		terminal.insertCard(this.simulatedBeIDCard.get(1));
+		assertEquals(terminal, insertions.poll(1, TimeUnit.SECONDS));
+		// not waiting for the slow listener
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testEventPublisherCreatedAfterStart() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		final SimulatedCardTerminal terminal = this.simulatedCardTerminal.get(0);
+		this.simulatedCardTerminals.attachCardTerminal(terminal);
+		terminal.insertCard(this.simulatedBeIDCard.get(0));
+		final CountDownLatch initialized = new CountDownLatch(1);
+		cardAndTerminalManager.addCardListener(new CardEventsListener() {
+
+			@Override
+			public void cardInserted(final CardTerminal cardTerminal, final Card card) {
+			}
+
+			@Override
+			public void cardRemoved(final CardTerminal cardTerminal) {
+			}
+
+			@Override
+			public void cardEventsInitialized() {
+				initialized.countDown();
+			}
+		});
+		cardAndTerminalManager.start();
+		assertTrue(initialized.await(5, TimeUnit.SECONDS));
+
+		final CardEventPublisher publisher = cardAndTerminalManager.createEventPublisher(16,
+				OverflowPolicy.DROP_OLDEST);
+		final BlockingQueue<CardEvent> events = new LinkedBlockingQueue<>();
+		publisher.subscribe(new Flow.Subscriber<CardEvent>() {
+
+			@Override
+			public void onSubscribe(final Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(final CardEvent event) {
+				events.add(event);
+			}
+
+			@Override
+			public void onError(final Throwable throwable) {
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+		// the state as it was before the publisher was created
+		assertEquals(CardEvent.Type.TERMINAL_ATTACHED, events.poll(1, TimeUnit.SECONDS).getType());
+		assertEquals(CardEvent.Type.TERMINAL_EVENTS_INITIALIZED, events.poll(1, TimeUnit.SECONDS).getType());
+		assertEquals(CardEvent.Type.CARD_INSERTED, events.poll(1, TimeUnit.SECONDS).getType());
+		assertEquals(CardEvent.Type.CARD_EVENTS_INITIALIZED, events.poll(1, TimeUnit.SECONDS).getType());
+
+		terminal.removeCard();
+		assertEquals(CardEvent.Type.CARD_REMOVED, events.poll(5, TimeUnit.SECONDS).getType());
+
+		cardAndTerminalManager.removeEventPublisher(publisher);
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testCardInsertionLatency() throws Exception {
+		final long pollingLatency = measureCardInsertionLatency(false);
+		final long eventDrivenLatency = measureCardInsertionLatency(true);
+		System.out.println("mean card insertion to callback latency, polling: "
+				+ TimeUnit.NANOSECONDS.toMicros(pollingLatency) + " us, event driven: "
+				+ TimeUnit.NANOSECONDS.toMicros(eventDrivenLatency) + " us, polling to event driven ratio: "
+				+ String.format("%.2f", (double) pollingLatency / Math.max(eventDrivenLatency, 1)));
+		assertTrue(eventDrivenLatency < TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	public void testCardInsertionLatencyWithSharedContext() throws Exception {
+		// like pcsc-lite, serializes the blocking waits of all terminals on one context
+		final ReentrantLock context = new ReentrantLock(true);
+		final SimulatedCardTerminals sharedContextTerminals = new SimulatedCardTerminals() {
+
+			@Override
+			public List<CardTerminal> list(final State state) throws CardException {
+				context.lock();
+				try {
+					return super.list(state);
+				} finally {
+					context.unlock();
+				}
+			}
+		};
+		final List<SimulatedCardTerminal> terminals = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			final SimulatedCardTerminal terminal = new SimulatedCardTerminal("Fedix SCR shared " + i) {
+
+				@Override
+				public boolean waitForCardAbsent(final long timeout) throws CardException {
+					context.lock();
+					try {
+						return super.waitForCardAbsent(timeout);
+					} finally {
+						context.unlock();
+					}
+				}
+
+				@Override
+				public boolean waitForCardPresent(final long timeout) throws CardException {
+					context.lock();
+					try {
+						return super.waitForCardPresent(timeout);
+					} finally {
+						context.unlock();
+					}
+				}
+			};
+			sharedContextTerminals.attachCardTerminal(terminal);
+			terminals.add(terminal);
+		}
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				sharedContextTerminals);
+		cardAndTerminalManager.setEventDriven(true);
+		cardAndTerminalManager.setTerminalScanDelay(50);
+
+		final long sharedContextLatency = measureCardInsertionLatency(cardAndTerminalManager, terminals);
+		System.out.println("mean card insertion to callback latency, event driven with a shared context: "
+				+ TimeUnit.NANOSECONDS.toMicros(sharedContextLatency) + " us");
+		// a watcher waits for the blocking waits of the other watchers
+		assertTrue(sharedContextLatency > TimeUnit.MILLISECONDS.toNanos(5));
+		// but never longer than the terminal scan delay of each of them
+		assertTrue(sharedContextLatency < TimeUnit.MILLISECONDS.toNanos(terminals.size() * 50));
+	}
+
+	@Test
+	public void testAdaptiveDelay() throws Exception {
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				this.simulatedCardTerminals);
+		cardAndTerminalManager.setAdaptiveDelay(10, 80, 400);
+		final RecordKeepingCardEventsListener recorder = new RecordKeepingCardEventsListener();
+		cardAndTerminalManager.addCardListener(recorder);
+		final SimulatedCardTerminal terminal = this.simulatedCardTerminal.get(0);
+		this.simulatedCardTerminals.attachCardTerminal(terminal);
+		cardAndTerminalManager.start();
+
+		// idle: backing off to the maximum delay
+		awaitEffectiveDelay(cardAndTerminalManager, 80);
+
+		// activity: back to the minimum delay
+		terminal.insertCard(this.simulatedBeIDCard.get(0));
+		final Map<CardTerminal, Card> expectedCards = new HashMap<>();
+		expectedCards.put(terminal, this.simulatedBeIDCard.get(0));
+		awaitState(expectedCards, recorder);
+		for (int i = 0; i < 50 && cardAndTerminalManager.getEffectiveDelay() >= 80; i++) {
+			Thread.sleep(1);
+		}
+		assertTrue(cardAndTerminalManager.getEffectiveDelay() < 80);
+		awaitEffectiveDelay(cardAndTerminalManager, 80);
+
+		cardAndTerminalManager.stop();
+	}
+
+	@Test
+	public void testAdaptiveDelayWithoutPCSC() throws Exception {
+		final CardTerminals failingCardTerminals = new CardTerminals() {
+
+			@Override
+			public List<CardTerminal> list(final State state) throws CardException {
+				throw new CardException("list() failed", new Exception("SCARD_E_NO_SERVICE"));
+			}
+
+			@Override
+			public boolean waitForChange(final long timeout) throws CardException {
+				throw new CardException("waitForChange() failed", new Exception("SCARD_E_NO_SERVICE"));
+			}
+		};
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				failingCardTerminals);
+		cardAndTerminalManager.setAdaptiveDelay(10, 20, 160);
+		cardAndTerminalManager.start();
+
+		// 10, 20, 40, 80, 160 ms
+		awaitEffectiveDelay(cardAndTerminalManager, 160);
+		Thread.sleep(400);
+		assertEquals(160, cardAndTerminalManager.getEffectiveDelay());
+
+		cardAndTerminalManager.stop();
+	}
+
+	private void awaitEffectiveDelay(final CardAndTerminalManager cardAndTerminalManager, final int expectedDelay)
+			throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			if (expectedDelay == cardAndTerminalManager.getEffectiveDelay()) {
+				break;
+			}
+			Thread.sleep(20);
+		}
+		assertEquals(expectedDelay, cardAndTerminalManager.getEffectiveDelay());
+	}
+
+	private long measureCardInsertionLatency(final boolean eventDriven) throws Exception {
+		final SimulatedCardTerminals simulatedCardTerminals = new SimulatedCardTerminals();
+		for (SimulatedCardTerminal terminal : this.simulatedCardTerminal) {
+			simulatedCardTerminals.attachCardTerminal(terminal);
+		}
+		final CardAndTerminalManager cardAndTerminalManager = new CardAndTerminalManager(new TestLogger(),
+				simulatedCardTerminals);
+		cardAndTerminalManager.setEventDriven(eventDriven);
+		return measureCardInsertionLatency(cardAndTerminalManager, this.simulatedCardTerminal);
+	}
+
+	private long measureCardInsertionLatency(final CardAndTerminalManager cardAndTerminalManager,
+			final List<SimulatedCardTerminal> terminals) throws Exception {
+		final Random random = new Random(0);
+		final Map<CardTerminal, Long> insertionTimes = new ConcurrentHashMap<>();
+		final BlockingQueue<Long> latencies = new LinkedBlockingQueue<>();
+		final BlockingQueue<CardTerminal> removals = new LinkedBlockingQueue<>();
+		cardAndTerminalManager.addCardListener(new CardEventsListener() {
+
+			@Override
+			public void cardInserted(final CardTerminal cardTerminal, final Card card) {
+				final long now = System.nanoTime();
+				latencies.add(now - insertionTimes.get(cardTerminal));
+			}
+
+			@Override
+			public void cardRemoved(final CardTerminal cardTerminal) {
+				removals.add(cardTerminal);
+			}
+
+			@Override
+			public void cardEventsInitialized() {
+			}
+		});
+		cardAndTerminalManager.start();
+		Thread.sleep(300);
+
+		final int count = 20;
+		long totalLatency = 0;
+		for (int i = 0; i < count; i++) {
+			final SimulatedCardTerminal terminal = terminals.get(i % terminals.size());
+			Thread.sleep(random.nextInt(250));
+			insertionTimes.put(terminal, System.nanoTime());
+			terminal.insertCard(this.simulatedBeIDCard.get(i % numberOfCards));
+			final Long latency = latencies.poll(5, TimeUnit.SECONDS);
+			assertNotNull(latency);
+			totalLatency += latency;
+			terminal.removeCard();
+			assertNotNull(removals.poll(5, TimeUnit.SECONDS));
+		}
+		cardAndTerminalManager.stop();
+		return totalLatency / count;
+	}
+
+	private void awaitState(final Map<CardTerminal, Card> expectedCards, final RecordKeepingCardEventsListener recorder)
+			throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			if (expectedCards.equals(recorder.getRecordedState())) {
+				break;
+			}
+			Thread.sleep(20);
+		}
+		assertEquals(expectedCards, recorder.getRecordedState());
+	}
+
 	private final static class NPEProneCardTerminalEventsListener implements CardTerminalEventsListener {
 		@Override
 		public void terminalAttached(final CardTerminal cardTerminal) {
@@ -32,6 +32,7 @@ public class ErrorCapableBeIdCard extends SimulatedBeIDCard {
 	private boolean nextBitError;
 	private boolean nextRandomResponse;
 	private boolean nextCardException;
+	private int cardExceptionCountdown;
 	private boolean nextConfused;
 	private int delay;
 	private final Random random;
@@ -66,6 +67,11 @@ public class ErrorCapableBeIdCard extends SimulatedBeIDCard {
 		return this;
 	}
 
+	public ErrorCapableBeIdCard introduceCardException(final int afterCommands) {
+		this.cardExceptionCountdown = afterCommands;
+		return this;
+	}
+
 	public ErrorCapableBeIdCard introduceConfusion() {
 		this.nextConfused = true;
 		return this;
@@ -90,6 +96,10 @@ public class ErrorCapableBeIdCard extends SimulatedBeIDCard {
 			return WHO_AM_I;
 		}
 
+		if (this.cardExceptionCountdown > 0 && 0 == --this.cardExceptionCountdown) {
+			this.nextCardException = true;
+		}
+
 		if (this.nextCardException) {
 			this.nextCardException = false;
 			throw new CardException("Fake CardException Introduced By " + this.getClass().getName());
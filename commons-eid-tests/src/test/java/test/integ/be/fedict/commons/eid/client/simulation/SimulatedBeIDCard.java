@@ -18,6 +18,7 @@
 
 package test.integ.be.fedict.commons.eid.client.simulation;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import javax.smartcardio.ATR;
@@ -63,6 +64,9 @@ public class SimulatedBeIDCard extends SimulatedCard {
 			final String profile) throws IOException {
 		final InputStream idInputStream = SimulatedBeIDCard.class
 				.getResourceAsStream("/" + profile + "_" + type + ".tlv");
+		if (null == idInputStream) {
+			throw new FileNotFoundException(profile + "_" + type + ".tlv");
+		}
 		setFile(type.getFileId(), IOUtils.toByteArray(idInputStream));
 		return this;
 	}
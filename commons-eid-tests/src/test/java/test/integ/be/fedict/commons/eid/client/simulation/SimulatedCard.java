@@ -40,6 +40,15 @@ public class SimulatedCard extends Card {
 	protected String protocol;
 	protected Map<BigInteger, byte[]> files;
 	protected byte[] selectedFile;
+	protected byte[] selectedFileId;
+	protected int shortSelectCount;
+	protected int transactionCount;
+	protected byte[] cardData;
+	protected int commandCount;
+	protected int logicalChannels;
+	protected int openLogicalChannels;
+	protected long transmitDelay;
+	protected boolean appletSelectable = true;
 
 	public SimulatedCard(final ATR atr) {
 		super();
@@ -51,9 +60,19 @@ public class SimulatedCard extends Card {
 		this.atr = atr;
 	}
 
+	public SimulatedCard setProtocol(final String protocol) {
+		this.protocol = protocol;
+		return this;
+	}
+
 	@Override
 	public void beginExclusive() throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+		// single-threaded simulation
+		this.transactionCount++;
+	}
+
+	public int getTransactionCount() {
+		return this.transactionCount;
 	}
 
 	@Override
@@ -63,7 +82,7 @@ public class SimulatedCard extends Card {
 
 	@Override
 	public void endExclusive() throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+		// single-threaded simulation
 	}
 
 	@Override
@@ -82,8 +101,47 @@ public class SimulatedCard extends Card {
 	}
 
 	@Override
-	public CardChannel openLogicalChannel() throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCard");
+	public synchronized CardChannel openLogicalChannel() throws CardException {
+		if (this.openLogicalChannels >= this.logicalChannels) {
+			throw new CardException("SCARD_E_NOT_SUPPORTED");
+		}
+		this.openLogicalChannels++;
+		// each logical channel has its own selection state
+		final SimulatedCard channelCard = new SimulatedCard(this.atr);
+		channelCard.files = this.files;
+		channelCard.transmitDelay = this.transmitDelay;
+		channelCard.appletSelectable = this.appletSelectable;
+		return new SimulatedCardChannel(channelCard, this.openLogicalChannels) {
+
+			@Override
+			public void close() throws CardException {
+				synchronized (SimulatedCard.this) {
+					SimulatedCard.this.openLogicalChannels--;
+				}
+			}
+		};
+	}
+
+	public SimulatedCard setLogicalChannels(final int logicalChannels) {
+		this.logicalChannels = logicalChannels;
+		return this;
+	}
+
+	/**
+	 * Makes every command take the given time, like a real card would.
+	 */
+	public SimulatedCard setTransmitDelay(final long transmitDelay) {
+		this.transmitDelay = transmitDelay;
+		return this;
+	}
+
+	/**
+	 * Makes selecting an applet by AID fail, for logical channels opened
+	 * afterwards too.
+	 */
+	public SimulatedCard setAppletSelectable(final boolean appletSelectable) {
+		this.appletSelectable = appletSelectable;
+		return this;
 	}
 
 	@Override
@@ -92,15 +150,46 @@ public class SimulatedCard extends Card {
 	}
 
 	protected ResponseAPDU transmit(final CommandAPDU apdu) throws CardException {
+		this.commandCount++;
+		if (this.transmitDelay > 0) {
+			try {
+				Thread.sleep(this.transmitDelay);
+			} catch (final InterruptedException e) {
+				throw new CardException(e);
+			}
+		}
+		// like the default javax.smartcardio provider
+		if ("T=0".equals(this.protocol) && (apdu.getNc() > 0xff || apdu.getNe() > 0x100)) {
+			throw new CardException("Extended length forms not supported for T=0");
+		}
+		// "SELECT APPLET"
+		if (apdu.getCLA() == 0x00 && apdu.getINS() == 0xA4 && apdu.getP1() == 0x04 && apdu.getP2() == 0x0C) {
+			return this.appletSelectable ? OK : FILE_NOT_FOUND;
+		}
 		// "SELECT FILE"
-		if (apdu.getCLA() == 0x00 && apdu.getINS() == 0xA4 && apdu.getP1() == 0x08 && apdu.getP2() == 0x0C) {
+		else if (apdu.getCLA() == 0x00 && apdu.getINS() == 0xA4 && apdu.getP1() == 0x08 && apdu.getP2() == 0x0C) {
 			return selectFile(apdu.getData());
 		}
+		// "SELECT FILE" by file identifier, under the current DF
+		else if (apdu.getCLA() == 0x00 && apdu.getINS() == 0xA4 && apdu.getP1() == 0x02 && apdu.getP2() == 0x0C
+				&& this.selectedFileId != null) {
+			this.shortSelectCount++;
+			final byte[] fileId = this.selectedFileId.clone();
+			System.arraycopy(apdu.getData(), 0, fileId, fileId.length - 2, 2);
+			return selectFile(fileId);
+		}
 		// "READ BINARY"
 		else if (apdu.getCLA() == 0x00 && apdu.getINS() == 0xB0) {
 			final int offset = (apdu.getP1() << 8) + apdu.getP2();
 			return readBinary(offset, apdu.getNe());
 		}
+		// "GET CARD DATA"
+		else if (apdu.getCLA() == 0x80 && apdu.getINS() == 0xE4 && this.cardData != null) {
+			final byte[] response = new byte[this.cardData.length + 2];
+			System.arraycopy(this.cardData, 0, response, 0, this.cardData.length);
+			response[this.cardData.length] = (byte) 0x90;
+			return new ResponseAPDU(response);
+		}
 		return COMMAND_NOT_AVAILABLE;
 	}
 
@@ -135,8 +224,10 @@ public class SimulatedCard extends Card {
 	protected ResponseAPDU selectFile(final byte[] fileId) {
 		this.selectedFile = this.files.get(new BigInteger(fileId));
 		if (this.selectedFile == null) {
+			this.selectedFileId = null;
 			return FILE_NOT_FOUND;
 		}
+		this.selectedFileId = fileId;
 		return OK;
 	}
 
@@ -145,6 +236,19 @@ public class SimulatedCard extends Card {
 		return this;
 	}
 
+	public int getShortSelectCount() {
+		return this.shortSelectCount;
+	}
+
+	public int getCommandCount() {
+		return this.commandCount;
+	}
+
+	public SimulatedCard setCardData(final byte[] cardData) {
+		this.cardData = cardData;
+		return this;
+	}
+
 	public SimulatedCard removeFile(final byte[] fileId) {
 		this.files.remove(new BigInteger(fileId));
 		return this;
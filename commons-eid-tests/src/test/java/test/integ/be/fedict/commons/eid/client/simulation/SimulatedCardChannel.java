@@ -27,9 +27,15 @@ import javax.smartcardio.ResponseAPDU;
 
 public class SimulatedCardChannel extends CardChannel {
 	private final SimulatedCard card;
+	private final int channelNumber;
 
 	public SimulatedCardChannel(final SimulatedCard card) {
+		this(card, 0);
+	}
+
+	public SimulatedCardChannel(final SimulatedCard card, final int channelNumber) {
 		this.card = card;
+		this.channelNumber = channelNumber;
 	}
 
 	@Override
@@ -44,7 +50,7 @@ public class SimulatedCardChannel extends CardChannel {
 
 	@Override
 	public int getChannelNumber() {
-		return 0;
+		return this.channelNumber;
 	}
 
 	@Override
@@ -55,6 +61,14 @@ public class SimulatedCardChannel extends CardChannel {
 	@Override
 	public int transmit(final ByteBuffer bb0, final ByteBuffer bb1)
 			throws CardException {
-		throw new RuntimeException("Not Implemented In SimulatedCardChannel");
+		// like the default javax.smartcardio provider
+		if (bb1.remaining() < 258) {
+			throw new IllegalArgumentException("Insufficient space in response buffer");
+		}
+		final byte[] command = new byte[bb0.remaining()];
+		bb0.get(command);
+		final byte[] response = this.card.transmit(new CommandAPDU(command)).getBytes();
+		bb1.put(response);
+		return response.length;
 	}
 }